@@ -0,0 +1,209 @@
+package gr.unipi.weather_app.benchmark;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.model.City;
+import gr.unipi.weather_app.repository.CityIdMigration;
+import gr.unipi.weather_app.repository.CitySearchCountRepository;
+import gr.unipi.weather_app.repository.CityStatsRepository;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import gr.unipi.weather_app.service.WeatherRollupService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded SQLite databases for the repository benchmarks.
+ * <p>
+ * Each database lives in {@code target/benchmark-db/weather-<rows>.db} and is reused
+ * across runs once it holds the requested number of rows, because seeding tens of
+ * millions of rows takes minutes. The schema is created by the Flyway migrations of the
+ * application, so the databases carry the same indexes as the application. The per-city totals and
+ * the hourly and daily buckets are rebuilt from the readings once they are seeded, and
+ * the search counts start from the per-city totals as in an upgraded database.
+ */
+final class BenchmarkDatabase {
+
+    /**
+     * The number of distinct cities in the seeded data.
+     */
+    static final int CITIES = 500;
+
+    /**
+     * The time span covered by the seeded readings, ending now.
+     */
+    static final Duration HISTORY = Duration.ofDays(730);
+
+    private static final int SEED_BATCH = 10_000;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Returns the name of a seeded city.
+     *
+     * @param index the city index, from {@code 0} to {@link #CITIES} - 1
+     * @return the city name
+     */
+    static String city(int index) {
+        return "City " + index;
+    }
+
+    /**
+     * Returns the file of the database seeded with the given number of rows.
+     *
+     * @param rows the number of weather readings the database holds
+     * @return the database file, which exists once {@link #open(long)} has returned
+     */
+    static Path file(long rows) {
+        return Path.of("target", "benchmark-db", "weather-" + rows + ".db");
+    }
+
+    /**
+     * Starts a JPA-only application context on a database seeded with the given number of rows.
+     *
+     * @param rows the number of weather readings the database should hold
+     * @return the started context; the caller must close it
+     */
+    static ConfigurableApplicationContext open(long rows) {
+        Path file = file(rows);
+        try {
+            Files.createDirectories(file.getParent());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(JpaConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:sqlite:" + file.toAbsolutePath(),
+                        "--logging.level.root=warn");
+
+        long existing = context.getBean(WeatherRepository.class).count();
+        if (existing < rows) {
+            seed(context.getBean(DataSource.class), existing, rows);
+        }
+        if (existing < rows || context.getBean(CityStatsRepository.class).count() == 0) {
+            context.getBean(WeatherRollupService.class).rebuild();
+        }
+        CitySearchCountRepository searchCounts = context.getBean(CitySearchCountRepository.class);
+        if (existing < rows || searchCounts.count() == 0) {
+            new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+                searchCounts.deleteAllInBatch();
+                searchCounts.importFromCityStats();
+            });
+        }
+        return context;
+    }
+
+    /**
+     * Inserts deterministic readings until the table holds the requested number of rows.
+     */
+    private static void seed(DataSource dataSource, long from, long rows) {
+        SplittableRandom random = new SplittableRandom(from);
+        long now = System.currentTimeMillis();
+        long span = HISTORY.toMillis();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long nextId = nextId(connection);
+            int[] cityIds = cityIds(connection);
+
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO weather_data (id, city_id, temperature, humidity, wind_speed, uv_index, " +
+                            "weather_description, timestamp) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (long i = from; i < rows; i++) {
+                    insert.setLong(1, nextId++);
+                    insert.setInt(2, cityIds[random.nextInt(CITIES)]);
+                    insert.setInt(3, temperature(random));
+                    insert.setInt(4, random.nextInt(10, 101));
+                    insert.setInt(5, random.nextInt(0, 80));
+                    insert.setInt(6, random.nextInt(0, 12));
+                    insert.setString(7, "Partly cloudy");
+                    insert.setLong(8, now - random.nextLong(span));
+                    insert.addBatch();
+
+                    if ((i + 1) % SEED_BATCH == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+                insert.executeBatch();
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("UPDATE weather_data_seq SET next_val = " + nextId);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not seed the benchmark database", e);
+        }
+    }
+
+    /**
+     * Draws a temperature around 15°C, so that record highs and lows are rare as in real data.
+     */
+    private static int temperature(SplittableRandom random) {
+        return (int) Math.max(-30, Math.min(48, Math.round(15 + 10 * random.nextGaussian())));
+    }
+
+    /**
+     * Registers the seeded cities, unless they exist, and returns their ids by city index.
+     */
+    private static int[] cityIds(Connection connection) throws SQLException {
+        int[] ids = new int[CITIES];
+        try (PreparedStatement insert = connection.prepareStatement("INSERT OR IGNORE INTO city (name) VALUES (?)");
+             PreparedStatement alias = connection.prepareStatement(
+                     "INSERT OR IGNORE INTO city_alias (alias, city_id) SELECT ?, id FROM city WHERE name = ?");
+             PreparedStatement select = connection.prepareStatement("SELECT id FROM city WHERE name = ?")) {
+            for (int i = 0; i < CITIES; i++) {
+                insert.setString(1, city(i));
+                insert.executeUpdate();
+                alias.setString(1, City.key(city(i)));
+                alias.setString(2, city(i));
+                alias.executeUpdate();
+                select.setString(1, city(i));
+                try (ResultSet result = select.executeQuery()) {
+                    result.next();
+                    ids[i] = result.getInt(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private static long nextId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("SELECT COALESCE(MAX(id), 0) + 1 FROM weather_data")) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    /**
+     * Boots only the persistence layer: entities, repositories, the data source and the rollups.
+     */
+    @Configuration
+    @EnableAutoConfiguration
+    @Import({WeatherRollupService.class, CityIdMigration.class})
+    @EntityScan(basePackageClasses = WeatherData.class)
+    @EnableJpaRepositories(basePackageClasses = WeatherRepository.class)
+    static class JpaConfig {
+    }
+}
@@ -0,0 +1,31 @@
+package gr.unipi.weather_app.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Loads the recorded wttr.in payloads shared by the benchmarks and the tests.
+ */
+final class Payloads {
+
+    private Payloads() {
+    }
+
+    /**
+     * Reads a recorded {@code format=j1} response from {@code src/test/resources/wttr}.
+     *
+     * @param name the payload name, e.g. {@code athens}
+     * @return the raw JSON bytes
+     */
+    static byte[] wttr(String name) {
+        try (InputStream in = Payloads.class.getResourceAsStream("/wttr/" + name + ".json")) {
+            if (in == null) {
+                throw new IllegalArgumentException("No recorded payload named " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package gr.unipi.weather_app.benchmark;
+
+import gr.unipi.weather_app.model.WeatherTotals;
+import gr.unipi.weather_app.repository.CityStatsRepository;
+import gr.unipi.weather_app.repository.DailyWeatherRepository;
+import gr.unipi.weather_app.repository.HourlyWeatherRepository;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import gr.unipi.weather_app.service.CityTemperature;
+import gr.unipi.weather_app.service.RecentWeatherStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the statistics answered by the {@link RecentWeatherStore} with the same queries
+ * through JPA, on the database seeded with a million readings over two years.
+ * <p>
+ * The {@code window} parameter sets how many days the store holds: the default week, or the
+ * whole history, so that all million readings are held in memory. The heap the store takes
+ * is printed once it is loaded; run with {@code -prof gc} to compare the memory each query
+ * allocates, which should be a single result object for the store.
+ * <pre>
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="RecentWeatherStore -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecentWeatherStoreBenchmark {
+
+    private static final long ROWS = 1_000_000;
+
+    @Param({"7", "731"})
+    private int window;
+
+    private ConfigurableApplicationContext context;
+    private WeatherRepository repository;
+    private HourlyWeatherRepository hourlyRepository;
+    private DailyWeatherRepository dailyRepository;
+    private TransactionTemplate readOnly;
+    private RecentWeatherStore store;
+
+    @Setup
+    public void loadStore() {
+        context = BenchmarkDatabase.open(ROWS);
+        repository = context.getBean(WeatherRepository.class);
+        hourlyRepository = context.getBean(HourlyWeatherRepository.class);
+        dailyRepository = context.getBean(DailyWeatherRepository.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        long before = memory.getHeapMemoryUsage().getUsed();
+        store = new RecentWeatherStore(repository, context.getBean(CityStatsRepository.class), transactionManager,
+                Duration.ofDays(window));
+        store.load();
+        System.gc();
+        long after = memory.getHeapMemoryUsage().getUsed();
+        System.out.printf("%nRecent store of %d days: %d KiB of columns, %d KiB of heap%n",
+                window, store.footprint() / 1024, (after - before) / 1024);
+    }
+
+    @TearDown
+    public void closeDatabase() {
+        context.close();
+    }
+
+    private static String randomCity() {
+        return BenchmarkDatabase.city(ThreadLocalRandom.current().nextInt(BenchmarkDatabase.CITIES));
+    }
+
+    @Benchmark
+    public WeatherTotals storeTotalsOfCity() {
+        return store.getTotalsOfCity(randomCity());
+    }
+
+    @Benchmark
+    public WeatherTotals jpaTotalsOfCity() {
+        return repository.findTotalsByCity(randomCity());
+    }
+
+    @Benchmark
+    public List<CityTemperature> storeHottestCity() {
+        return store.findHottestCity();
+    }
+
+    @Benchmark
+    public List<Object[]> jpaHottestCity() {
+        return repository.findHottestCities();
+    }
+
+    /**
+     * Scans the columns of every city for the readings of the last week.
+     */
+    @Benchmark
+    public WeatherTotals storeTotalsOfLastWeek() {
+        return store.getTotalsSince(LocalDateTime.now().minusDays(7));
+    }
+
+    /**
+     * The same combination of raw, hourly and daily totals the service reads for a 7-day average.
+     */
+    @Benchmark
+    public WeatherTotals jpaTotalsOfLastWeek() {
+        LocalDateTime start = LocalDateTime.now().minusDays(7);
+        LocalDateTime firstHour = start.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        LocalDateTime firstDay = start.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+        LocalDateTime endDay = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).plusDays(1);
+        return readOnly.execute(status -> repository.getTotalsBetween(start, firstHour)
+                .plus(hourlyRepository.getTotalsBetween(firstHour, firstDay))
+                .plus(dailyRepository.getTotalsBetween(firstDay, endDay)));
+    }
+}
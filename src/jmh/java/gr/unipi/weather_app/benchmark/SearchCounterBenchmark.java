@@ -0,0 +1,51 @@
+package gr.unipi.weather_app.benchmark;
+
+import gr.unipi.weather_app.service.CitySearches;
+import gr.unipi.weather_app.service.SearchCounter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures counting searches and reading the leaderboard under contention.
+ * <p>
+ * Both run on 16 threads without touching the database: a search increments the counter
+ * of one of the seeded cities, and the leaderboard is served from the in-memory ranking.
+ * Flushes are not included, since they run once per {@code weather.search.flush-interval}.
+ * <pre>
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="SearchCounterBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class SearchCounterBenchmark {
+
+    private final SearchCounter counter = new SearchCounter(null, null, 100);
+
+    @Benchmark
+    public void record() {
+        counter.record(BenchmarkDatabase.city(ThreadLocalRandom.current().nextInt(BenchmarkDatabase.CITIES)));
+    }
+
+    @Benchmark
+    public List<CitySearches> leaderboard() {
+        return counter.mostSearched(10);
+    }
+
+}
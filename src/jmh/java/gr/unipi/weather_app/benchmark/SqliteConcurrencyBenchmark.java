@@ -0,0 +1,138 @@
+package gr.unipi.weather_app.benchmark;
+
+import gr.unipi.weather_app.configuration.DataSourceConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures SQLite throughput under a mixed load of analytics reads and batch inserts.
+ * <p>
+ * Three threads run a 7-day per-city aggregation over past readings while one thread
+ * inserts batches of 50 new readings, as the write-behind buffer does. The
+ * {@code default} pools are the Spring Boot defaults the application used before:
+ * one Hikari pool over a database in rollback-journal mode. The {@code tuned} pools are those of {@link DataSourceConfig}:
+ * WAL mode, tuned pragmas, a writer pool and a read-only pool. Each run works on its
+ * own copy of the seeded database.
+ * <pre>
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="SqliteConcurrency"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqliteConcurrencyBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"default", "tuned"})
+    private String pools;
+
+    @Param({"1000000"})
+    private long rows;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate readOnly;
+    private TransactionTemplate readWrite;
+
+    @Setup
+    public void openDatabase() throws Exception {
+        BenchmarkDatabase.open(rows).close();
+        Path file = BenchmarkDatabase.file(rows).resolveSibling("concurrency-" + pools + ".db");
+        for (String suffix : new String[]{"-wal", "-shm"}) {
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + suffix));
+        }
+        Files.copy(BenchmarkDatabase.file(rows), file, StandardCopyOption.REPLACE_EXISTING);
+
+        Class<?> configuration = pools.equals("tuned") ? DataSourceConfig.class : DefaultPool.class;
+        context = new SpringApplicationBuilder(configuration)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:sqlite:" + file.toAbsolutePath(),
+                        "--logging.level.root=warn");
+
+        DataSource dataSource = context.getBean(DataSource.class);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    @TearDown
+    public void closeDatabase() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public List<Map<String, Object>> read() {
+        // A past week, so that the inserted readings do not grow the range being read
+        LocalDateTime to = LocalDateTime.now().minusDays(30);
+        long from = Timestamp.valueOf(to.minusDays(7)).getTime();
+        return readOnly.execute(status -> jdbc.queryForList(
+                "SELECT city_id, COUNT(*), AVG(temperature) FROM weather_data " +
+                        "WHERE timestamp >= ? AND timestamp < ? GROUP BY city_id", from, Timestamp.valueOf(to).getTime()));
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public int[] write() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now = System.currentTimeMillis();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(new Object[]{random.nextInt(1, BenchmarkDatabase.CITIES + 1),
+                    random.nextInt(-10, 40), random.nextInt(10, 101), random.nextInt(0, 80),
+                    random.nextInt(0, 12), "Partly cloudy", now});
+        }
+        return readWrite.execute(status -> jdbc.batchUpdate(
+                "INSERT INTO weather_data (city_id, temperature, humidity, wind_speed, uv_index, " +
+                        "weather_description, timestamp) VALUES (?, ?, ?, ?, ?, ?, ?)", batch));
+    }
+
+    /**
+     * The single data source Spring Boot configures from {@code spring.datasource.*}.
+     */
+    @Configuration
+    @ImportAutoConfiguration(DataSourceAutoConfiguration.class)
+    static class DefaultPool {
+    }
+}
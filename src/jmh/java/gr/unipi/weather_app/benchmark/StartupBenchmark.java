@@ -0,0 +1,149 @@
+package gr.unipi.weather_app.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time from launching the application to its first answered request, and the
+ * resident memory of the process at that point.
+ * <p>
+ * Each invocation starts the jar extracted by the {@code startup} Maven profile in a new JVM
+ * and asks for the hottest city until it is answered, which needs the web server, the
+ * controllers, the repositories and the database. The {@code variant} parameter starts it
+ * as is ({@code default}), with the {@code startup} Spring profile ({@code lazy}), or with
+ * that profile from the AOT classes and the CDS archive ({@code aot-cds}). The database is
+ * migrated once and then reused, as when the application restarts. The {@code rssMiB}
+ * counter reports the resident memory read from {@code /proc}, on Linux only; JMH adds it
+ * up over the iterations in its summary, so read the value of each one from the JSON results.
+ * <pre>
+ * ./mvnw -Pstartup package -DskipTests
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="StartupBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final Path APPLICATION = Path.of("target", "application");
+    private static final Path DATABASE = Path.of("target", "benchmark-db", "startup.db");
+    private static final Path LOG = Path.of("target", "startup-benchmark.log");
+
+    @Param({"default", "lazy", "aot-cds"})
+    private String variant;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private List<String> command;
+    private Process process;
+    private URI firstRequest;
+
+    /**
+     * The resident memory of the application once it has answered its first request.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Memory {
+        public double rssMiB;
+    }
+
+    @Setup
+    public void findApplication() throws IOException {
+        Path jar;
+        try (var files = Files.list(APPLICATION)) {
+            jar = files.filter(file -> file.toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Build the application with ./mvnw -Pstartup package first"));
+        }
+        Files.createDirectories(DATABASE.getParent());
+
+        command = new ArrayList<>(List.of(ProcessHandle.current().info().command().orElseThrow()));
+        if (variant.equals("aot-cds")) {
+            command.add("-XX:SharedArchiveFile=" + APPLICATION.resolve("application.jsa"));
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.addAll(List.of("-jar", jar.toString(), "--weather.cli.enabled=false", "--weather.provider.type=stub",
+                "--spring.datasource.url=jdbc:sqlite:" + DATABASE.toAbsolutePath()));
+        if (!variant.equals("default")) {
+            command.add("--spring.profiles.active=startup");
+        }
+    }
+
+    @Benchmark
+    public int firstRequest(Memory memory) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        firstRequest = URI.create("http://localhost:" + port + "/api/statistics/hottest");
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add("--server.port=" + port);
+        // The standard input stays open: AOT classes generated with the console enabled keep it waiting there
+        process = new ProcessBuilder(arguments)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(LOG.toFile()))
+                .start();
+
+        while (true) {
+            try {
+                int status = client.send(HttpRequest.newBuilder(firstRequest).build(),
+                        HttpResponse.BodyHandlers.discarding()).statusCode();
+                memory.rssMiB = residentMemory(process.pid()) / 1024.0;
+                return status;
+            } catch (ConnectException e) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("The application exited with " + process.exitValue() + ", see " + LOG);
+                }
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void stopApplication() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    /**
+     * Reads the resident set size of a process in KiB, or {@code 0} where {@code /proc} is not available.
+     */
+    private static long residentMemory(long pid) throws IOException {
+        Path status = Path.of("/proc", String.valueOf(pid), "status");
+        if (!Files.exists(status)) {
+            return 0;
+        }
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("VmRSS:"))
+                .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")))
+                .findFirst().orElse(0);
+    }
+}
@@ -0,0 +1,103 @@
+package gr.unipi.weather_app.benchmark;
+
+import gr.unipi.weather_app.repository.WeatherRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures the hottest and coldest city queries as the {@code weather_data} table grows.
+ * <p>
+ * The queries read the per-city temperature records of {@code city_stats} through their
+ * indexes, so the latency of every benchmark should stay flat from 10k to 10M rows. The
+ * {@code groupedScan} benchmark runs the per-city aggregation over the raw readings the
+ * records avoid, as a reference that grows with the table.
+ * <pre>
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="TemperatureQuery"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemperatureQueryBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private long rows;
+
+    private ConfigurableApplicationContext context;
+    private WeatherRepository repository;
+    private TransactionTemplate readOnly;
+    private EntityManager entityManager;
+
+    @Setup
+    public void openDatabase() {
+        context = BenchmarkDatabase.open(rows);
+        repository = context.getBean(WeatherRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+    }
+
+    @TearDown
+    public void closeDatabase() {
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public List<Object[]> hottestCities() {
+        return repository.findHottestCities();
+    }
+
+    @Benchmark
+    public List<Object[]> coldestCities() {
+        return repository.findColdestCities();
+    }
+
+    @Benchmark
+    public Set<Object> top10HottestCities() {
+        return readOnly.execute(status -> {
+            try (Stream<Object[]> readings = repository.streamByTemperatureDesc()) {
+                Set<Object> cities = new HashSet<>();
+                Iterator<Object[]> iterator = readings.iterator();
+                while (cities.size() < 10 && iterator.hasNext()) {
+                    cities.add(iterator.next()[0]);
+                }
+                return cities;
+            }
+        });
+    }
+
+    @Benchmark
+    public List<?> groupedScan() {
+        return entityManager.createQuery("SELECT w.cityId, MAX(w.temperature) FROM WeatherData w GROUP BY w.cityId " +
+                        "ORDER BY MAX(w.temperature) DESC")
+                .setMaxResults(10)
+                .getResultList();
+    }
+
+}
@@ -0,0 +1,86 @@
+package gr.unipi.weather_app.benchmark;
+
+import gr.unipi.weather_app.configuration.WebClientConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency percentiles of weather API calls under concurrency.
+ * <p>
+ * 32 threads call an in-process {@link WeatherApiStub} answering after 50 ms. The
+ * {@code default} client is the bare {@code WebClient} the application used before,
+ * with the Reactor Netty default pool; the {@code tuned} and {@code tuned-h2} clients
+ * are built by {@link WebClientConfig} from {@code application.yaml}, the latter with
+ * HTTP/2 enabled. The sample-time mode reports the p50, p90, p99 and p99.9 latencies.
+ * <pre>
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="WeatherApiClient"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(32)
+@Fork(1)
+public class WeatherApiClientBenchmark {
+
+    @Param({"default", "tuned", "tuned-h2"})
+    private String client;
+
+    private WeatherApiStub stub;
+    private ConfigurableApplicationContext context;
+    private WebClient webClient;
+
+    @Setup
+    public void startClient() {
+        stub = new WeatherApiStub(Duration.ofMillis(50));
+        if (client.equals("default")) {
+            webClient = WebClient.builder().baseUrl(stub.baseUrl()).build();
+            return;
+        }
+
+        context = new SpringApplicationBuilder(WebClientConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--weather.api.base-url=" + stub.baseUrl(),
+                        "--weather.api.http.http2=" + client.equals("tuned-h2"),
+                        "--logging.level.root=warn");
+        webClient = context.getBean(WebClient.class);
+    }
+
+    @TearDown
+    public void stopClient() {
+        if (context != null) {
+            context.close();
+        }
+        stub.close();
+    }
+
+    @Benchmark
+    public byte[] getWeather() {
+        return webClient.get()
+                .uri("/athens?format=j1")
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .block();
+    }
+
+}
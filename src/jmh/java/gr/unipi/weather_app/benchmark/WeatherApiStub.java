@@ -0,0 +1,51 @@
+package gr.unipi.weather_app.benchmark;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+
+/**
+ * An in-process HTTP server answering like wttr.in with a recorded payload.
+ * <p>
+ * Every {@code GET /{city}} request is answered with the recorded Athens response
+ * after a fixed delay, gzip-compressed when the client asks for it. The server
+ * speaks HTTP/1.1 and cleartext HTTP/2.
+ */
+final class WeatherApiStub implements AutoCloseable {
+
+    private final DisposableServer server;
+
+    /**
+     * Starts the server on a free local port.
+     *
+     * @param delay how long the server waits before answering each request
+     */
+    WeatherApiStub(Duration delay) {
+        byte[] payload = Payloads.wttr("athens");
+        server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .compress(true)
+                .route(routes -> routes.get("/{city}", (request, response) -> response
+                        .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                        .sendByteArray(Mono.delay(delay).thenReturn(payload))))
+                .bindNow();
+    }
+
+    /**
+     * @return the base URL of the server, e.g. {@code http://127.0.0.1:54321}
+     */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+}
@@ -0,0 +1,70 @@
+package gr.unipi.weather_app.benchmark;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.provider.CurrentCondition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a {@link WeatherData} entity from decoded conditions and rendering
+ * its report with {@code toString}, which every CLI lookup does.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation rate per operation next to the latency:
+ * <pre>
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="WeatherDataBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeatherDataBenchmark {
+
+    private final CurrentCondition condition = new CurrentCondition(3, 28, 11, 1, "Mist", "Athens", "Greece");
+    private WeatherData data;
+
+    @Setup
+    public void createData() {
+        data = construct();
+    }
+
+    /**
+     * Builds the entity with setters, as the service does for every weather API response.
+     */
+    @Benchmark
+    public WeatherData construct() {
+        WeatherData weather = new WeatherData();
+        weather.setCity("Athens");
+        weather.setTemperature(condition.temperature());
+        weather.setHumidity(condition.humidity());
+        weather.setWindSpeed(condition.windSpeed());
+        weather.setUvIndex(condition.uvIndex());
+        weather.setWeather_description(condition.description());
+        weather.setTimestamp(LocalDateTime.now());
+        return weather;
+    }
+
+    @Benchmark
+    public String render() {
+        return data.toString();
+    }
+
+    @Benchmark
+    public String constructAndRender() {
+        return construct().toString();
+    }
+
+}
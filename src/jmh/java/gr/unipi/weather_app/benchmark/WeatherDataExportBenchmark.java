@@ -0,0 +1,116 @@
+package gr.unipi.weather_app.benchmark;
+
+import gr.unipi.weather_app.export.ExportFilter;
+import gr.unipi.weather_app.export.ExportFormat;
+import gr.unipi.weather_app.export.WeatherDataExporter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a full export of the {@code weather_data} table in each format, and the heap it needs.
+ * <p>
+ * Every invocation streams the whole seeded table through a forward-only cursor into a
+ * stream that only counts the bytes, so the score is the time to read and encode all rows.
+ * The fork runs with a 256 MB heap, far below the size of the larger tables, and after each
+ * iteration the rows per second, the bytes per row and the peak heap usage are printed. The
+ * peak is the sum of the peaks of the heap pools since the start of the iteration, an upper
+ * bound that should stay the same from 1M to 50M rows. The 50M-row database takes a long
+ * time and several gigabytes to seed, so it can be left out with {@code -p rows=...}:
+ * <pre>
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="WeatherDataExportBenchmark -p rows=1000000,10000000"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+public class WeatherDataExportBenchmark {
+
+    @Param({"1000000", "10000000", "50000000"})
+    private long rows;
+
+    @Param({"CSV", "COLUMNAR"})
+    private ExportFormat format;
+
+    private WeatherDataExporter exporter;
+    private CountingOutputStream out;
+    private List<MemoryPoolMXBean> heapPools;
+    private long startedAt;
+
+    @Setup
+    public void openDatabase() {
+        // Seeds the database if needed, then reads it without the application context
+        BenchmarkDatabase.open(rows).close();
+
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        SQLiteDataSource dataSource = new SQLiteDataSource(config);
+        dataSource.setUrl("jdbc:sqlite:" + BenchmarkDatabase.file(rows).toAbsolutePath());
+        exporter = new WeatherDataExporter(dataSource, 1000, 1);
+        heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounters() {
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        out = new CountingOutputStream();
+        startedAt = System.nanoTime();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        double seconds = (System.nanoTime() - startedAt) / 1e9;
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("%n%s: %,.0f rows/s, %.1f bytes/row, peak heap %d MB%n", format, rows / seconds,
+                (double) out.bytes / rows, peakHeap / (1024 * 1024));
+    }
+
+    @Benchmark
+    public long exportAll() throws IOException {
+        return exporter.export(ExportFilter.ALL, format, out);
+    }
+
+    /**
+     * Discards the export, only counting its size.
+     */
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package gr.unipi.weather_app.benchmark;
+
+import gr.unipi.weather_app.model.CitySearchCount;
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.model.WeatherTotals;
+import gr.unipi.weather_app.repository.CitySearchCountRepository;
+import gr.unipi.weather_app.repository.DailyWeatherRepository;
+import gr.unipi.weather_app.repository.HourlyWeatherRepository;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the lookup and statistics queries of the repositories as the {@code weather_data}
+ * table grows.
+ * <p>
+ * Each query reads either a single row or an index range bounded by time, so the latency
+ * should stay flat from 10k to 10M rows. The hottest and coldest city queries are measured
+ * by {@link TemperatureQueryBenchmark}. Every invocation looks up a random seeded city.
+ * <pre>
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="WeatherRepositoryBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeatherRepositoryBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    private long rows;
+
+    private ConfigurableApplicationContext context;
+    private WeatherRepository repository;
+    private HourlyWeatherRepository hourlyRepository;
+    private DailyWeatherRepository dailyRepository;
+    private CitySearchCountRepository searchCountRepository;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void openDatabase() {
+        context = BenchmarkDatabase.open(rows);
+        repository = context.getBean(WeatherRepository.class);
+        hourlyRepository = context.getBean(HourlyWeatherRepository.class);
+        dailyRepository = context.getBean(DailyWeatherRepository.class);
+        searchCountRepository = context.getBean(CitySearchCountRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown
+    public void closeDatabase() {
+        context.close();
+    }
+
+    private static String randomCity() {
+        return BenchmarkDatabase.city(ThreadLocalRandom.current().nextInt(BenchmarkDatabase.CITIES));
+    }
+
+    @Benchmark
+    public Optional<WeatherData> latestReadingOfCity() {
+        return repository.findLatestByCity(randomCity());
+    }
+
+    @Benchmark
+    public WeatherTotals totalsOfCity() {
+        return repository.findTotalsByCity(randomCity());
+    }
+
+    /**
+     * The query the search counter reloads its in-memory ranking with after each flush.
+     */
+    @Benchmark
+    public List<CitySearchCount> mostSearchedCities() {
+        return searchCountRepository.findByOrderBySearchesDesc(Limit.of(100));
+    }
+
+    /**
+     * The raw readings of the last partial hour, the only range read from {@code weather_data}.
+     */
+    @Benchmark
+    public WeatherTotals rawTotalsOfLastHour() {
+        LocalDateTime now = LocalDateTime.now();
+        return repository.getTotalsBetween(now.truncatedTo(ChronoUnit.HOURS), now);
+    }
+
+    /**
+     * The same combination of raw, hourly and daily totals the service reads for a 7-day average.
+     */
+    @Benchmark
+    public WeatherTotals totalsOfLastWeek() {
+        LocalDateTime start = LocalDateTime.now().minusDays(7);
+        LocalDateTime firstHour = start.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        LocalDateTime firstDay = start.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+        LocalDateTime endDay = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).plusDays(1);
+        return readOnly.execute(status -> repository.getTotalsBetween(start, firstHour)
+                .plus(hourlyRepository.getTotalsBetween(firstHour, firstDay))
+                .plus(dailyRepository.getTotalsBetween(firstDay, endDay)));
+    }
+
+}
@@ -0,0 +1,123 @@
+package gr.unipi.weather_app.benchmark;
+
+import gr.unipi.weather_app.configuration.WebClientConfig;
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.provider.WeatherProvider;
+import gr.unipi.weather_app.repository.CityIdMigration;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import gr.unipi.weather_app.resilience.WeatherApiResilience;
+import gr.unipi.weather_app.service.WeatherService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures {@link WeatherService#getWeather(String)} end to end: cache, rate limiter,
+ * resilience layer, weather provider, decoding and the write-behind buffer.
+ * <p>
+ * 16 threads look up cities through the real service on a fresh SQLite database. With the
+ * {@code http} provider, the weather API is an in-process {@link WeatherApiStub} answering
+ * after 50 ms, so requests cross a real connection pool; with the {@code stub} provider,
+ * the {@code StubWeatherProvider} answers after the same fixed 50 ms without any HTTP.
+ * {@code miss} looks up a new city every time, so every call reaches the weather API and
+ * is saved; {@code hit} looks up the same city, served from the cache. The rate limiter
+ * is opened wide so that it does not cap the measured throughput.
+ * <pre>
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="WeatherServiceBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class WeatherServiceBenchmark {
+
+    @Param({"http", "stub"})
+    private String provider;
+
+    private WeatherApiStub stub;
+    private ConfigurableApplicationContext context;
+    private WeatherService service;
+    private final AtomicLong cities = new AtomicLong();
+
+    @Setup
+    public void startService() throws Exception {
+        Path file = Path.of("target", "benchmark-db", "service-" + provider + ".db");
+        Files.createDirectories(file.getParent());
+        for (String suffix : new String[]{"", "-wal", "-shm"}) {
+            Files.deleteIfExists(file.resolveSibling(file.getFileName() + suffix));
+        }
+
+        stub = new WeatherApiStub(Duration.ofMillis(50));
+        context = new SpringApplicationBuilder(ServiceConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:sqlite:" + file.toAbsolutePath(),
+                        "--weather.provider.type=" + (provider.equals("http") ? "wttr" : "stub"),
+                        "--weather.api.base-url=" + stub.baseUrl(),
+                        "--weather.provider.stub.latency.distribution=fixed",
+                        "--weather.provider.stub.latency.median=50ms",
+                        "--weather.api.rate-limit.permits-per-second=1000000",
+                        "--weather.api.rate-limit.burst=1000000",
+                        "--weather.refresh.enabled=false",
+                        "--logging.level.root=warn");
+        service = context.getBean(WeatherService.class);
+        service.getWeather("Athens");
+    }
+
+    @TearDown
+    public void stopService() {
+        context.close();
+        stub.close();
+    }
+
+    @Benchmark
+    public WeatherData miss() {
+        return service.getWeather("City" + cities.incrementAndGet());
+    }
+
+    @Benchmark
+    public WeatherData hit() {
+        return service.getWeather("Athens");
+    }
+
+    /**
+     * Boots the service layer with its persistence and weather API beans, without the CLI.
+     */
+    @Configuration
+    @EnableAutoConfiguration
+    @EntityScan(basePackageClasses = WeatherData.class)
+    @EnableJpaRepositories(basePackageClasses = WeatherRepository.class)
+    @Import(CityIdMigration.class)
+    @ComponentScan(basePackageClasses = {WeatherService.class, WebClientConfig.class, WeatherProvider.class,
+            WeatherApiResilience.class})
+    static class ServiceConfig {
+    }
+}
@@ -0,0 +1,76 @@
+package gr.unipi.weather_app.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import gr.unipi.weather_app.provider.CurrentCondition;
+import gr.unipi.weather_app.provider.WttrResponseParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding recorded wttr.in {@code format=j1} payloads into a raw {@link Map}
+ * with the streaming {@link WttrResponseParser}.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation rate per operation next to the latency:
+ * <pre>
+ * ./mvnw -Pjmh test-compile exec:exec -Djmh.args="WttrResponseParsing -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WttrResponseParsingBenchmark {
+
+    @Param({"athens", "london", "new-york"})
+    private String payload;
+
+    private byte[] body;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WttrResponseParser parser = new WttrResponseParser();
+
+    @Setup
+    public void loadPayload() {
+        body = Payloads.wttr(payload);
+    }
+
+    /**
+     * The previous approach: bind the whole document to a {@link Map} and pick the fields out of it.
+     */
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public CurrentCondition mapDecoding() throws IOException {
+        Map<String, Object> response = objectMapper.readValue(body, Map.class);
+        Map<String, Object> current = ((List<Map<String, Object>>) response.get("current_condition")).getFirst();
+        Map<String, Object> area = ((List<Map<String, Object>>) response.get("nearest_area")).getFirst();
+        return new CurrentCondition(
+                Integer.parseInt((String) current.get("temp_C")),
+                Integer.parseInt((String) current.get("humidity")),
+                Integer.parseInt((String) current.get("windspeedKmph")),
+                Integer.parseInt((String) current.get("uvIndex")),
+                ((List<Map<String, Object>>) current.get("weatherDesc")).getFirst().get("value").toString(),
+                ((List<Map<String, Object>>) area.get("areaName")).getFirst().get("value").toString(),
+                ((List<Map<String, Object>>) area.get("country")).getFirst().get("value").toString());
+    }
+
+    @Benchmark
+    public CurrentCondition streamingDecoding() throws IOException {
+        return parser.parse(body);
+    }
+
+}
@@ -0,0 +1,17 @@
+/**
+ * This package contains the JMH benchmarks of the Weather App.
+ * <p>
+ * The benchmarks are only compiled with the {@code jmh} Maven profile and are run with
+ * {@code ./mvnw -Pjmh test-compile exec:exec}, selecting benchmarks and options with
+ * {@code -Djmh.args}. They cover decoding of recorded wttr.in payloads, building and
+ * rendering {@link gr.unipi.weather_app.model.WeatherData}, the repository queries on
+ * seeded databases of 10k, 1M and 10M rows, the in-memory store of recent readings against
+ * the same queries through JPA, streaming exports of up to 50M rows,
+ * counting searches, SQLite and HTTP client concurrency,
+ * {@link gr.unipi.weather_app.service.WeatherService#getWeather(String)} end to end
+ * against an in-process weather API, and the startup of the packaged application.
+ * <p>
+ * Results are always written as JSON, to {@code target/jmh-result.json} or to the file
+ * given with {@code -Djmh.result}, so that the runs of two releases can be compared.
+ */
+package gr.unipi.weather_app.benchmark;
@@ -0,0 +1,253 @@
+package gr.unipi.weather_app.cli;
+
+import gr.unipi.weather_app.export.ExportFilter;
+import gr.unipi.weather_app.export.TooManyExportsException;
+import gr.unipi.weather_app.export.WeatherDataExporter;
+import gr.unipi.weather_app.service.AverageWeather;
+import gr.unipi.weather_app.service.CitySearches;
+import gr.unipi.weather_app.service.CityTemperature;
+import gr.unipi.weather_app.service.WeatherService;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Scanner;
+import java.util.stream.Collectors;
+
+/**
+ * Provides a command-line interface (CLI) for interacting with the weather application.
+ * <p>
+ * Users can request weather data, fetch statistical reports, and exit the program.
+ * The menu reads from the standard input of the application, so it serves one user at
+ * a time; the same operations are available to any number of clients over HTTP. It is
+ * started unless {@code weather.cli.enabled} is {@code false}.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.cli.enabled", havingValue = "true", matchIfMissing = true)
+public class WeatherConsole implements CommandLineRunner {
+
+    /**
+     * The number of cities listed by the most searched cities option.
+     */
+    private static final int MOST_SEARCHED_CITIES = 10;
+
+    private final WeatherService weatherService;
+    private final WeatherDataExporter exporter;
+
+    /**
+     * Constructs a new {@code WeatherConsole}.
+     *
+     * @param weatherService the service handling weather-related operations
+     * @param exporter       the exporter writing the stored readings to files
+     */
+    public WeatherConsole(WeatherService weatherService, WeatherDataExporter exporter) {
+        this.weatherService = weatherService;
+        this.exporter = exporter;
+    }
+
+    /**
+     * Runs the menu-driven interaction until the user chooses to exit.
+     *
+     * @param args command-line arguments (not used)
+     */
+    @Override
+    public void run(String... args) {
+        Scanner scanner = new Scanner(System.in);
+        int choice;
+
+        do {
+            System.out.println("\n🌤️ WEATHER APP API MENU 🌤️");
+            System.out.println("1. Get weather data for a city");
+            System.out.println("2. Get average weather for a city");
+            System.out.println("3. Get average weather for the last X days");
+            System.out.println("4. Find the hottest city");
+            System.out.println("5. Find the coldest city");
+            System.out.println("6. Find the most searched cities");
+            System.out.println("7. Export the stored weather data to a file");
+            System.out.println("8. Exit");
+            System.out.print("Enter your choice: ");
+
+            while (!scanner.hasNextInt()) {
+                System.out.println("Invalid input. Please enter a valid number: ");
+                scanner.next();
+            }
+            choice = scanner.nextInt();
+            scanner.nextLine();
+
+            switch (choice) {
+                case 1:
+                    getWeatherData(scanner);
+                    break;
+                case 2:
+                    getAverageWeatherForCity(scanner);
+                    break;
+                case 3:
+                    getAverageWeatherForLastDays(scanner);
+                    break;
+                case 4:
+                    System.out.println(formatRecordCity("🔥", "hottest", weatherService.findHottestCity()));
+                    break;
+                case 5:
+                    System.out.println(formatRecordCity("❄️", "coldest", weatherService.findColdestCity()));
+                    break;
+                case 6:
+                    System.out.println(formatMostSearchedCities(weatherService.getMostSearchedCities(MOST_SEARCHED_CITIES)));
+                    break;
+                case 7:
+                    exportWeatherData(scanner);
+                    break;
+                case 8:
+                    System.out.println("Exiting...");
+                    scanner.close();
+                    System.exit(0);
+                    break;
+                default:
+                    System.out.println("Invalid choice. Please enter a valid number.");
+            }
+
+        } while (choice != 8);
+    }
+
+    /**
+     * Fetches and displays real-time weather data for a specified city.
+     *
+     * @param scanner the {@link Scanner} object to read user input
+     */
+    private void getWeatherData(Scanner scanner) {
+        String city = readCity(scanner);
+
+        System.out.println("\nFetching weather data for " + city + "...");
+        var weatherData = weatherService.getWeather(city);
+        System.out.println(weatherData);
+    }
+
+    /**
+     * Retrieves and displays the average weather data for a specified city.
+     *
+     * @param scanner the {@link Scanner} object to read user input
+     */
+    private void getAverageWeatherForCity(Scanner scanner) {
+        String city = readCity(scanner);
+
+        System.out.println(formatAverageWeather(weatherService.getAverageWeatherForCity(city)));
+    }
+
+    /**
+     * Retrieves and displays the average weather statistics for the last X days.
+     *
+     * @param scanner the {@link Scanner} object to read user input
+     */
+    private void getAverageWeatherForLastDays(Scanner scanner) {
+        System.out.print("Enter number of days: ");
+
+        while (!scanner.hasNextInt()) {
+            System.out.println("Invalid input. Please enter a valid number: ");
+            scanner.next();
+        }
+        int days = scanner.nextInt();
+        scanner.nextLine();
+
+        System.out.println(formatAverageWeather(weatherService.getAverageWeatherForLastDays(days)));
+    }
+
+    /**
+     * Exports the stored readings, of all cities or of one, to a CSV or columnar file.
+     *
+     * @param scanner the {@link Scanner} object to read user input
+     */
+    private void exportWeatherData(Scanner scanner) {
+        System.out.print("Enter the file to export to (.csv or .wdc): ");
+        String file = scanner.nextLine().trim();
+        System.out.print("Enter city name (leave empty for all cities): ");
+        String city = scanner.nextLine().trim();
+
+        try {
+            long rows = exporter.export(new ExportFilter(city, null, null), Path.of(file));
+            System.out.println("\nExported " + rows + " readings to " + file);
+        } catch (IllegalArgumentException | TooManyExportsException e) {
+            System.out.println(e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Could not write " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a city name, asking again until it only contains letters and spaces.
+     *
+     * @param scanner the {@link Scanner} object to read user input
+     * @return the trimmed city name
+     */
+    private String readCity(Scanner scanner) {
+        System.out.print("Enter city name: ");
+        String city = scanner.nextLine().trim();
+
+        while (!city.matches("^[a-zA-Z ]+$")) {
+            System.out.print("Invalid city name! Enter again: ");
+            city = scanner.nextLine().trim();
+        }
+        return city;
+    }
+
+    /**
+     * Formats the hottest or coldest cities into a human-readable string.
+     *
+     * @param icon    the icon shown before the cities
+     * @param ranking the name of the ranking, "hottest" or "coldest"
+     * @param cities  the cities sharing the record temperature
+     * @return a formatted string containing the cities' names and temperature
+     */
+    private String formatRecordCity(String icon, String ranking, List<CityTemperature> cities) {
+        if (cities.isEmpty()) {
+            return "No data available for the " + ranking + " city";
+        }
+        String title = Character.toUpperCase(ranking.charAt(0)) + ranking.substring(1);
+
+        return String.format(
+                "%n%s %s City Recorded: %s%n%s Temperature: %d°C",
+                icon, title, cities.stream().map(CityTemperature::city).collect(Collectors.joining(", ")),
+                title, cities.getFirst().temperature()
+        );
+    }
+
+    /**
+     * Formats the most searched cities into a human-readable string.
+     *
+     * @param cities the cities with their search counts
+     * @return a formatted string listing the most searched cities and their search counts
+     */
+    private String formatMostSearchedCities(List<CitySearches> cities) {
+        if (cities.isEmpty()) {
+            return "No data available for the most searched cities";
+        }
+        StringBuilder result = new StringBuilder();
+        for (CitySearches c : cities) {
+            result.append(String.format(
+                    "%n🔍 City: %s%n🔢 Searches: %d",
+                    c.city(), c.searches()
+            ));
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Formats average weather data into a human-readable string.
+     *
+     * @param average the average weather to display
+     * @return a formatted string containing average weather statistics
+     */
+    private String formatAverageWeather(AverageWeather average) {
+        if (!average.hasData()) {
+            return "No data available for " + average.location();
+        }
+
+        return String.format(
+                "%nAverage Weather for %s%nAverage Temperature: %.1f°C%nAverage Humidity: %.1f%%%nAverage Wind Speed: %.1f km/h%nAverage UV Index: %.1f",
+                average.location(), average.temperature(), average.humidity(),
+                average.windSpeed(), average.uvIndex()
+        );
+    }
+}
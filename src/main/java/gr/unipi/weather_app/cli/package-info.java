@@ -0,0 +1,9 @@
+/**
+ * This package contains the command-line interface of the Weather App.
+ * <p>
+ * Currently, it includes the {@link gr.unipi.weather_app.cli.WeatherConsole} class, which
+ * offers the weather lookups and reports through a menu on the standard input. It can be
+ * turned off with {@code weather.cli.enabled=false} to run the application as an HTTP
+ * service only.
+ */
+package gr.unipi.weather_app.cli;
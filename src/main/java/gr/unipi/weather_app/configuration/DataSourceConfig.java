@@ -0,0 +1,142 @@
+package gr.unipi.weather_app.configuration;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.sqlite.SQLiteConfig;
+import org.sqlite.SQLiteDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.unit.DataSize;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Configuration class for setting up the SQLite {@link DataSource}.
+ * <p>
+ * The database runs in WAL mode, so readers never block the writer and the writer
+ * never blocks readers. Connections are split into two pools: a small writer pool
+ * and a read-only pool. The primary {@link DataSource} hands out connections lazily
+ * and takes them from the read-only pool for read-only transactions, so the
+ * analytics queries in {@link gr.unipi.weather_app.repository.WeatherRepository}
+ * never hold a connection the ingestion needs.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * The JDBC URL of the SQLite database.
+     */
+    @Value("${spring.datasource.url}")
+    private String url;
+
+    /**
+     * How long a connection waits for a lock held by another connection before failing.
+     */
+    @Value("${weather.datasource.busy-timeout}")
+    private Duration busyTimeout;
+
+    /**
+     * The size of the page cache of each connection.
+     */
+    @Value("${weather.datasource.cache-size}")
+    private DataSize cacheSize;
+
+    /**
+     * The size of the database file mapped into memory by each connection.
+     */
+    @Value("${weather.datasource.mmap-size}")
+    private DataSize mmapSize;
+
+    /**
+     * The number of writer connections.
+     * <p>
+     * One connection runs the write transaction. A second one is needed because Hibernate
+     * reserves id blocks from the "weather_data_seq" table in a transaction of its own.
+     */
+    @Value("${weather.datasource.writer.pool-size}")
+    private int writerPoolSize;
+
+    /**
+     * The number of read-only connections.
+     */
+    @Value("${weather.datasource.reader.pool-size}")
+    private int readerPoolSize;
+
+    /**
+     * Creates the pool of writer connections.
+     * <p>
+     * It is created first, so that the database file exists and is switched to WAL mode
+     * before any read-only connection opens it.
+     *
+     * @return the writer {@link HikariDataSource}
+     */
+    @Bean
+    public HikariDataSource writeDataSource() {
+        SQLiteConfig config = sqliteConfig();
+        config.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        // WAL stays consistent after a crash with NORMAL; only the last commits may be lost on power failure
+        config.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        return pool("weather-writer", config, writerPoolSize, false);
+    }
+
+    /**
+     * Creates the pool of read-only connections.
+     *
+     * @param writeDataSource the writer pool, which must be created first
+     * @return the read-only {@link HikariDataSource}
+     */
+    @Bean
+    public HikariDataSource readDataSource(@Qualifier("writeDataSource") HikariDataSource writeDataSource) {
+        SQLiteConfig config = sqliteConfig();
+        config.setReadOnly(true);
+        // Lets transactions toggle the read-only flag, which SQLite otherwise only accepts when opening
+        config.setExplicitReadOnly(true);
+        return pool("weather-reader", config, readerPoolSize, true);
+    }
+
+    /**
+     * Creates the primary {@link DataSource}, routing read-only transactions to the read-only pool.
+     *
+     * @param writeDataSource the writer pool
+     * @param readDataSource  the read-only pool
+     * @return a lazy {@link DataSource} choosing the pool when a connection is first used
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("writeDataSource") HikariDataSource writeDataSource,
+                                 @Qualifier("readDataSource") HikariDataSource readDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(writeDataSource);
+        dataSource.setReadOnlyDataSource(readDataSource);
+        return dataSource;
+    }
+
+    /**
+     * Creates the SQLite settings shared by all connections.
+     */
+    private SQLiteConfig sqliteConfig() {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setBusyTimeout((int) busyTimeout.toMillis());
+        // A negative cache size is in KiB rather than in pages
+        config.setCacheSize((int) -cacheSize.toKilobytes());
+        config.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, String.valueOf(mmapSize.toBytes()));
+        return config;
+    }
+
+    private HikariDataSource pool(String name, SQLiteConfig config, int size, boolean readOnly) {
+        SQLiteDataSource sqlite = new SQLiteDataSource(config);
+        sqlite.setUrl(url);
+
+        HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName(name);
+        hikari.setDataSource(sqlite);
+        hikari.setMaximumPoolSize(size);
+        hikari.setReadOnly(readOnly);
+        return new HikariDataSource(hikari);
+    }
+
+}
@@ -0,0 +1,110 @@
+package gr.unipi.weather_app.configuration;
+
+import gr.unipi.weather_app.export.WeatherDataExporter;
+import gr.unipi.weather_app.metrics.MeteredMethodInterceptor;
+import gr.unipi.weather_app.provider.WeatherProvider;
+import gr.unipi.weather_app.service.WeatherService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.util.function.SingletonSupplier;
+
+/**
+ * Configuration class for timing the service, repository and weather API calls.
+ * <p>
+ * Every public method of {@link WeatherService}, every {@link WeatherProvider} call,
+ * every repository query and every export is wrapped in a {@link MeteredMethodInterceptor},
+ * which records the meters {@code weather.service}, {@code weather.api},
+ * {@code weather.repository} and {@code weather.export} respectively, tagged by outcome, together with their {@code .active} in-flight gauges.
+ * The interceptors are the outermost advice, so the timings include the transactions
+ * opened around the calls. The meters are exported through the Actuator Prometheus
+ * endpoint, with percentile histograms as configured under {@code management.metrics}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Times the public methods of the {@link WeatherService}.
+     *
+     * @param registry the registry of the application meters
+     * @return the advisor applying the interceptor to the service
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor weatherServiceMetricsAdvisor(ObjectProvider<MeterRegistry> registry) {
+        return advisor(WeatherService.class, new MeteredMethodInterceptor(
+                SingletonSupplier.of(registry::getObject), "weather.service", null));
+    }
+
+    /**
+     * Times the calls to the weather API made through any {@link WeatherProvider}.
+     * <p>
+     * Each subscription is one attempt, so retried and hedged requests are timed separately.
+     *
+     * @param registry the registry of the application meters
+     * @return the advisor applying the interceptor to the weather providers
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor weatherProviderMetricsAdvisor(ObjectProvider<MeterRegistry> registry) {
+        return advisor(WeatherProvider.class, new MeteredMethodInterceptor(
+                SingletonSupplier.of(registry::getObject), "weather.api", null));
+    }
+
+    /**
+     * Times the exports of the {@link WeatherDataExporter}.
+     *
+     * @param registry the registry of the application meters
+     * @return the advisor applying the interceptor to the exporter
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor weatherExportMetricsAdvisor(ObjectProvider<MeterRegistry> registry) {
+        return advisor(WeatherDataExporter.class, new MeteredMethodInterceptor(
+                SingletonSupplier.of(registry::getObject), "weather.export", null));
+    }
+
+    /**
+     * Times the queries of every Spring Data repository, tagged with the repository interface.
+     * <p>
+     * The interceptor is added in front of the advice Spring Data puts on each repository proxy,
+     * the same way Spring Boot adds its own repository listeners.
+     *
+     * @param registry the registry of the application meters
+     * @return the post-processor customizing the repository factories
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static BeanPostProcessor repositoryMetricsPostProcessor(ObjectProvider<MeterRegistry> registry) {
+        SingletonSupplier<MeterRegistry> meterRegistry = SingletonSupplier.of(registry::getObject);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxy, repository) -> proxy.addAdvice(0, new MeteredMethodInterceptor(meterRegistry,
+                                    "weather.repository", repository.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static Advisor advisor(Class<?> type, MeteredMethodInterceptor interceptor) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                new ComposablePointcut(new RootClassFilter(type)), interceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+}
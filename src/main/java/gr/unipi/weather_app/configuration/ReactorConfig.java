@@ -0,0 +1,42 @@
+package gr.unipi.weather_app.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Configuration class for setting up the Reactor {@link Scheduler} used for blocking work.
+ * <p>
+ * The reactive weather pipeline never blocks the threads performing HTTP I/O.
+ * Blocking JPA calls are instead moved to a dedicated, bounded scheduler so that
+ * the number of threads touching the database stays fixed regardless of how many
+ * upstream calls are in flight.
+ */
+@Configuration
+public class ReactorConfig {
+
+    /**
+     * The maximum number of threads running blocking database calls.
+     */
+    @Value("${weather.persistence.threads}")
+    private int threads;
+
+    /**
+     * The maximum number of database tasks waiting for a free thread.
+     */
+    @Value("${weather.persistence.queue-capacity}")
+    private int queueCapacity;
+
+    /**
+     * Creates the bounded {@link Scheduler} used for blocking database calls.
+     *
+     * @return a bounded elastic {@link Scheduler} named {@code weather-db}
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler databaseScheduler() {
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "weather-db");
+    }
+
+}
@@ -0,0 +1,37 @@
+package gr.unipi.weather_app.configuration;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Configuration class enabling the {@code @Scheduled} background jobs.
+ * <p>
+ * The jobs run on the task scheduler auto-configured by Spring Boot, which uses
+ * virtual threads when {@code spring.threads.virtual.enabled} is set, so jobs that
+ * block on the database do not hold a platform thread.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    /**
+     * Keeps the beans running {@code @Scheduled} jobs eager when {@code spring.main.lazy-initialization}
+     * is set, as in the startup profile.
+     * <p>
+     * Jobs are only scheduled once their bean is created, and nothing else asks for beans such
+     * as the partition maintenance, so they would never run otherwise.
+     *
+     * @return a filter excluding the beans with {@code @Scheduled} methods from lazy initialization
+     */
+    @Bean
+    static LazyInitializationExcludeFilter scheduledBeans() {
+        return (beanName, beanDefinition, beanType) -> !MethodIntrospector.selectMethods(beanType,
+                (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
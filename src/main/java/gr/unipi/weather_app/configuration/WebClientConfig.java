@@ -1,9 +1,21 @@
 package gr.unipi.weather_app.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
+import io.netty.util.AttributeKey;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Configuration class for setting up a {@link WebClient} bean.
@@ -11,16 +23,157 @@ import org.springframework.web.reactive.function.client.WebClient;
  * This class is responsible for creating a {@link WebClient} instance
  * that will be used to make HTTP requests to the weather API.
  * The base URL for the API is injected from the application's properties.
+ * <p>
+ * Requests go through a Reactor Netty {@link HttpClient} with a bounded connection pool,
+ * connect and response timeouts, compressed responses and, optionally, HTTP/2, so that
+ * a slow or unreachable weather API fails callers in bounded time instead of holding them.
+ * <p>
+ * The client and its pool publish the Reactor Netty metrics, which split each request into
+ * DNS resolution ({@code reactor.netty.http.client.address.resolver}), connecting
+ * ({@code connect.time}, {@code tls.handshake.time}), sending ({@code data.sent.time}) and
+ * reading the body ({@code data.received.time}). The time from a sent request to the
+ * response headers is recorded as {@code weather.api.ttfb}.
  */
 @Configuration
 public class WebClientConfig {
 
+    /**
+     * The time the current request of a connection was sent, for the time to first byte.
+     */
+    private static final AttributeKey<Long> REQUEST_SENT_AT = AttributeKey.valueOf("weatherRequestSentAt");
+
+    /**
+     * The only value of the {@code uri} tag of the HTTP client metrics, so that every city shares its meters.
+     */
+    private static final String URI_TAG = "/{city}";
+
     /**
      * The base URL for the weather API, injected from application properties.
      */
     @Value("${weather.api.base-url}")
     private String baseUrl;
 
+    /**
+     * The maximum number of open connections to the weather API.
+     */
+    @Value("${weather.api.http.max-connections}")
+    private int maxConnections;
+
+    /**
+     * The maximum number of requests waiting for a free connection.
+     */
+    @Value("${weather.api.http.pending-acquire-max-count}")
+    private int pendingAcquireMaxCount;
+
+    /**
+     * How long a request waits for a free connection before failing.
+     */
+    @Value("${weather.api.http.pending-acquire-timeout}")
+    private Duration pendingAcquireTimeout;
+
+    /**
+     * How long an idle connection is kept open.
+     */
+    @Value("${weather.api.http.max-idle-time}")
+    private Duration maxIdleTime;
+
+    /**
+     * How long a connection is used at most, so that DNS changes are picked up.
+     */
+    @Value("${weather.api.http.max-life-time}")
+    private Duration maxLifeTime;
+
+    /**
+     * How often idle and expired connections are closed in the background.
+     */
+    @Value("${weather.api.http.evict-interval}")
+    private Duration evictInterval;
+
+    /**
+     * How long opening a connection may take.
+     */
+    @Value("${weather.api.http.connect-timeout}")
+    private Duration connectTimeout;
+
+    /**
+     * How long the weather API may stay silent while a response is awaited or read.
+     */
+    @Value("${weather.api.http.response-timeout}")
+    private Duration responseTimeout;
+
+    /**
+     * Whether gzip-compressed responses are requested.
+     */
+    @Value("${weather.api.http.compress}")
+    private boolean compress;
+
+    /**
+     * Whether HTTP/2 is offered, falling back to HTTP/1.1 if the server does not support it.
+     */
+    @Value("${weather.api.http.http2}")
+    private boolean http2;
+
+    /**
+     * Creates the pool of connections to the weather API.
+     *
+     * @return a bounded {@link ConnectionProvider} named {@code weather-api}
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider weatherConnectionProvider() {
+        return ConnectionProvider.builder("weather-api")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMaxCount)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * Creates the Reactor Netty {@link HttpClient} used for the weather API.
+     *
+     * @param weatherConnectionProvider the pool of connections to the weather API
+     * @param meterRegistry             the registry of the time to first byte, if metrics are enabled
+     * @return a configured {@link HttpClient}
+     */
+    @Bean
+    public HttpClient weatherHttpClient(ConnectionProvider weatherConnectionProvider,
+                                        ObjectProvider<MeterRegistry> meterRegistry) {
+        HttpClient client = HttpClient.create(weatherConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                .keepAlive(true)
+                .compress(compress)
+                .metrics(true, uri -> URI_TAG);
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Timer ttfb = Timer.builder("weather.api.ttfb")
+                    .description("Time from sending a request to the weather API until its response headers arrive")
+                    .register(registry);
+            client = client
+                    .doAfterRequest((request, connection) ->
+                            connection.channel().attr(REQUEST_SENT_AT).set(System.nanoTime()))
+                    .doOnResponse((response, connection) -> {
+                        Long sentAt = connection.channel().attr(REQUEST_SENT_AT).getAndSet(null);
+                        if (sentAt != null) {
+                            ttfb.record(System.nanoTime() - sentAt, TimeUnit.NANOSECONDS);
+                        }
+                    });
+        }
+
+        if (http2) {
+            // HTTP/2 is negotiated through ALPN over TLS, and through an upgrade over plain text
+            client = baseUrl.startsWith("https")
+                    ? client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure()
+                    : client.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11);
+        }
+        return client;
+    }
+
     /**
      * Creates and configures a {@link WebClient} bean.
      * <p>
@@ -28,12 +181,14 @@ public class WebClientConfig {
      * and can be used throughout the application for making
      * asynchronous HTTP requests.
      *
+     * @param weatherHttpClient the HTTP client sending the requests
      * @return a configured {@link WebClient} instance
      */
     @Bean
-    public WebClient webClient() {
+    public WebClient webClient(HttpClient weatherHttpClient) {
         return WebClient.builder()
                 .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(weatherHttpClient))
                 .build();
     }
 
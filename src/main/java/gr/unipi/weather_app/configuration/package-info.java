@@ -6,6 +6,13 @@
  * <p>
  * Currently, it includes the {@link gr.unipi.weather_app.configuration.WebClientConfig}
  * class, which configures a {@link org.springframework.web.reactive.function.client.WebClient}
- * bean to handle API calls.
+ * bean to handle API calls, the {@link gr.unipi.weather_app.configuration.ReactorConfig}
+ * class, which configures the bounded scheduler used for blocking database calls, the
+ * {@link gr.unipi.weather_app.configuration.DataSourceConfig} class, which configures the
+ * SQLite writer and read-only connection pools, and the
+ * {@link gr.unipi.weather_app.configuration.MetricsConfig} class, which times the service,
+ * repository and weather API calls. The {@link gr.unipi.weather_app.configuration.SchedulingConfig}
+ * class enables the scheduled background jobs and keeps them running when beans are
+ * initialized lazily, as in the {@code startup} profile.
  */
 package gr.unipi.weather_app.configuration;
\ No newline at end of file
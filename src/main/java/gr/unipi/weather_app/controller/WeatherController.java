@@ -0,0 +1,58 @@
+package gr.unipi.weather_app.controller;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.service.WeatherService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * REST controller exposing the weather lookups as reactive endpoints.
+ * <p>
+ * The endpoints return {@link Mono} and {@link Flux} values, so no request thread
+ * is held while the external weather API is being called.
+ */
+@RestController
+@RequestMapping("/api/weather")
+public class WeatherController {
+
+    private final WeatherService weatherService;
+
+    /**
+     * Constructs a new {@code WeatherController}.
+     *
+     * @param weatherService the service handling weather-related operations
+     */
+    public WeatherController(WeatherService weatherService) {
+        this.weatherService = weatherService;
+    }
+
+    /**
+     * Returns the current weather data for a city.
+     *
+     * @param city the name of the city
+     * @return a {@link Mono} emitting the {@link WeatherData} of the city
+     */
+    @GetMapping("/{city}")
+    public Mono<WeatherData> getWeather(@PathVariable String city) {
+        return weatherService.getWeatherAsync(city);
+    }
+
+    /**
+     * Returns the current weather data for several cities.
+     *
+     * @param cities the names of the cities
+     * @return a {@link Flux} emitting the {@link WeatherData} of each city as it becomes available
+     */
+    @GetMapping
+    public Flux<WeatherData> getWeather(@RequestParam("city") List<String> cities) {
+        return weatherService.getWeatherAsync(Flux.fromIterable(cities));
+    }
+
+}
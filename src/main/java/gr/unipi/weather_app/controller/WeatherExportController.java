@@ -0,0 +1,80 @@
+package gr.unipi.weather_app.controller;
+
+import gr.unipi.weather_app.export.ExportFilter;
+import gr.unipi.weather_app.export.ExportFormat;
+import gr.unipi.weather_app.export.TooManyExportsException;
+import gr.unipi.weather_app.export.WeatherDataExporter;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+
+/**
+ * REST controller streaming the stored weather readings out in bulk.
+ * <p>
+ * The export is written straight to the response while the rows are read, on the virtual
+ * thread serving the request, so the response is neither buffered nor subject to an async
+ * request timeout. An export that fails once the response is committed ends the response
+ * early; columnar exports can be told complete by their end marker.
+ */
+@RestController
+@RequestMapping("/api/export")
+public class WeatherExportController {
+
+    private final WeatherDataExporter exporter;
+
+    /**
+     * Constructs a new {@code WeatherExportController}.
+     *
+     * @param exporter the exporter streaming the readings
+     */
+    public WeatherExportController(WeatherDataExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    /**
+     * Streams the stored readings, optionally of one city and time range, as an attachment.
+     *
+     * @param format   the format of the export, {@code csv} or {@code columnar}
+     * @param city     the city whose readings are exported, or none for all cities
+     * @param from     the inclusive start of the time range, e.g. {@code 2025-03-01T00:00}, or none
+     * @param to       the exclusive end of the time range, or none
+     * @param response the response the export is written to
+     * @throws IOException if the response cannot be written
+     */
+    @GetMapping("/weather-data")
+    public void exportWeatherData(@RequestParam(defaultValue = "csv") String format,
+                                  @RequestParam(required = false) String city,
+                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                  @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                  HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat;
+        ExportFilter filter;
+        try {
+            exportFormat = ExportFormat.of(format);
+            filter = new ExportFilter(city, from, to);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        response.setContentType(exportFormat.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("weather-data." + exportFormat.extension()).build().toString());
+        try {
+            exporter.export(filter, exportFormat, response.getOutputStream());
+        } catch (TooManyExportsException e) {
+            response.reset();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,110 @@
+package gr.unipi.weather_app.controller;
+
+import gr.unipi.weather_app.service.AverageWeather;
+import gr.unipi.weather_app.service.CitySearches;
+import gr.unipi.weather_app.service.CityTemperature;
+import gr.unipi.weather_app.service.WeatherService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * REST controller exposing the statistics over the stored weather data.
+ * <p>
+ * The endpoints call the blocking repository queries directly. Requests are served on
+ * virtual threads ({@code spring.threads.virtual.enabled}), so a request waiting for a
+ * database connection does not hold a platform thread.
+ */
+@RestController
+@RequestMapping("/api/statistics")
+public class WeatherStatisticsController {
+
+    private final WeatherService weatherService;
+
+    /**
+     * Constructs a new {@code WeatherStatisticsController}.
+     *
+     * @param weatherService the service handling weather-related operations
+     */
+    public WeatherStatisticsController(WeatherService weatherService) {
+        this.weatherService = weatherService;
+    }
+
+    /**
+     * Returns the average weather of all stored readings of a city.
+     *
+     * @param city the name of the city
+     * @return the {@link AverageWeather} of the city
+     */
+    @GetMapping("/cities/{city}/average")
+    public AverageWeather getAverageWeatherForCity(@PathVariable String city) {
+        return weatherService.getAverageWeatherForCity(city);
+    }
+
+    /**
+     * Returns the average weather of the readings of the last days.
+     *
+     * @param days the number of days to average, at least one
+     * @return the {@link AverageWeather} of the period
+     */
+    @GetMapping("/average")
+    public AverageWeather getAverageWeatherForLastDays(@RequestParam int days) {
+        requirePositive("days", days);
+        return weatherService.getAverageWeatherForLastDays(days);
+    }
+
+    /**
+     * Returns the cities with the highest recorded temperature.
+     *
+     * @param count the number of cities to rank, or none for the hottest city and any ties with it
+     * @return the hottest cities with their temperatures, in ranking order
+     */
+    @GetMapping("/hottest")
+    public List<CityTemperature> findHottestCities(@RequestParam(required = false) Integer count) {
+        if (count == null) {
+            return weatherService.findHottestCity();
+        }
+        requirePositive("count", count);
+        return weatherService.findHottestCities(count);
+    }
+
+    /**
+     * Returns the cities with the lowest recorded temperature.
+     *
+     * @param count the number of cities to rank, or none for the coldest city and any ties with it
+     * @return the coldest cities with their temperatures, in ranking order
+     */
+    @GetMapping("/coldest")
+    public List<CityTemperature> findColdestCities(@RequestParam(required = false) Integer count) {
+        if (count == null) {
+            return weatherService.findColdestCity();
+        }
+        requirePositive("count", count);
+        return weatherService.findColdestCities(count);
+    }
+
+    /**
+     * Returns the cities whose weather was looked up most often.
+     *
+     * @param count the number of cities to return, ten by default
+     * @return the cities with their search counts, most searched first
+     */
+    @GetMapping("/most-searched")
+    public List<CitySearches> getMostSearchedCities(@RequestParam(defaultValue = "10") int count) {
+        requirePositive("count", count);
+        return weatherService.getMostSearchedCities(count);
+    }
+
+    private static void requirePositive(String name, int value) {
+        if (value < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, name + " must be at least 1");
+        }
+    }
+
+}
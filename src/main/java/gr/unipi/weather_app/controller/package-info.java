@@ -0,0 +1,12 @@
+/**
+ * This package contains the REST controllers of the Weather App.
+ * <p>
+ * The controller package exposes the weather services over HTTP. Currently, it includes
+ * the {@link gr.unipi.weather_app.controller.WeatherController} class, which serves
+ * real-time weather lookups through reactive endpoints, and the
+ * {@link gr.unipi.weather_app.controller.WeatherStatisticsController} class, which serves
+ * the averages and city rankings computed from the stored readings as JSON, and the
+ * {@link gr.unipi.weather_app.controller.WeatherExportController} class, which streams
+ * the stored readings out as CSV or columnar exports.
+ */
+package gr.unipi.weather_app.controller;
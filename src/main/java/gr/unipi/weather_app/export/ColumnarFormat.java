@@ -0,0 +1,165 @@
+package gr.unipi.weather_app.export;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The constants and the variable-length integer encoding shared by the {@link ColumnarRowWriter}
+ * and the {@link ColumnarWeatherDataReader}; the layout is described by the reader.
+ */
+final class ColumnarFormat {
+
+    /**
+     * The first bytes of every columnar export, ending with the format version.
+     */
+    static final byte[] MAGIC = {'W', 'D', 'C', '1'};
+
+    /**
+     * The number of rows in each block, except the last one.
+     */
+    static final int BLOCK_ROWS = 4096;
+
+    /**
+     * The number of entries a dictionary holds at most before it is emptied at the start of a block.
+     */
+    static final int MAX_DICTIONARY_SIZE = 65_536;
+
+    /**
+     * The largest column chunk a reader accepts, so that a corrupt length cannot exhaust the heap.
+     */
+    static final int MAX_CHUNK_SIZE = 64 * 1024 * 1024;
+
+    private ColumnarFormat() {
+    }
+
+    static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Reads an unsigned variable-length integer from a stream.
+     *
+     * @return the value, or {@code -1} if the stream ended before it
+     */
+    static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException("The columnar export is truncated");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer in the columnar export");
+    }
+
+    /**
+     * The encoded values of one column of a block, reused from block to block.
+     */
+    static final class Chunk {
+
+        private byte[] bytes = new byte[8192];
+        private int size;
+        private int position;
+
+        void clear() {
+            size = 0;
+            position = 0;
+        }
+
+        void writeVarint(long value) {
+            ensureCapacity(size + 10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        /**
+         * Writes a signed value in zigzag form, so that values close to zero take one byte.
+         */
+        void writeSigned(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        void writeString(String value) {
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length);
+            ensureCapacity(size + utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            ColumnarFormat.writeVarint(out, size);
+            out.write(bytes, 0, size);
+        }
+
+        void readFrom(InputStream in) throws IOException {
+            long length = ColumnarFormat.readVarint(in);
+            if (length < 0) {
+                throw new EOFException("The columnar export is truncated");
+            }
+            if (length > MAX_CHUNK_SIZE) {
+                throw new IOException("Column chunk of " + length + " bytes exceeds the limit of the columnar export");
+            }
+            clear();
+            ensureCapacity((int) length);
+            if (in.readNBytes(bytes, 0, (int) length) < length) {
+                throw new EOFException("The columnar export is truncated");
+            }
+            size = (int) length;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (position == size) {
+                    throw new IOException("Column chunk ended inside a value");
+                }
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable-length integer in the columnar export");
+        }
+
+        long readSigned() throws IOException {
+            long value = readVarint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+
+        String readString() throws IOException {
+            long length = readVarint();
+            if (length > size - position) {
+                throw new IOException("Column chunk ended inside a string");
+            }
+            String value = new String(bytes, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+    }
+}
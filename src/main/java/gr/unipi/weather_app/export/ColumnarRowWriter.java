@@ -0,0 +1,165 @@
+package gr.unipi.weather_app.export;
+
+import gr.unipi.weather_app.export.ColumnarFormat.Chunk;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static gr.unipi.weather_app.export.ColumnarFormat.BLOCK_ROWS;
+import static gr.unipi.weather_app.export.ColumnarFormat.MAX_DICTIONARY_SIZE;
+
+/**
+ * Writes readings in the columnar format described by {@link ColumnarWeatherDataReader}.
+ * <p>
+ * Rows are collected column by column into fixed arrays of {@value ColumnarFormat#BLOCK_ROWS}
+ * rows, which are encoded and written out once full, so the memory used does not depend on
+ * the number of rows exported.
+ */
+final class ColumnarRowWriter implements RowWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final Chunk chunk = new Chunk();
+    private final Dictionary cities = new Dictionary();
+    private final Dictionary descriptions = new Dictionary();
+
+    private final long[] ids = new long[BLOCK_ROWS];
+    private final int[] cityIds = new int[BLOCK_ROWS];
+    private final int[] temperatures = new int[BLOCK_ROWS];
+    private final int[] humidities = new int[BLOCK_ROWS];
+    private final int[] windSpeeds = new int[BLOCK_ROWS];
+    private final int[] uvIndexes = new int[BLOCK_ROWS];
+    private final int[] descriptionIds = new int[BLOCK_ROWS];
+    private final long[] timestamps = new long[BLOCK_ROWS];
+
+    private boolean started;
+    private int rows;
+    private long previousId;
+    private long previousTimestamp;
+
+    ColumnarRowWriter(OutputStream out) {
+        this.out = new BufferedOutputStream(out, BUFFER_SIZE);
+    }
+
+    @Override
+    public void write(long id, String city, int temperature, int humidity, int windSpeed, int uvIndex,
+                      String description, long timestamp) throws IOException {
+        if (rows == 0) {
+            start();
+            cities.startBlock();
+            descriptions.startBlock();
+        }
+        ids[rows] = id;
+        cityIds[rows] = cities.id(city);
+        temperatures[rows] = temperature;
+        humidities[rows] = humidity;
+        windSpeeds[rows] = windSpeed;
+        uvIndexes[rows] = uvIndex;
+        descriptionIds[rows] = descriptions.id(description);
+        timestamps[rows] = timestamp;
+        if (++rows == BLOCK_ROWS) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        start();
+        if (rows > 0) {
+            writeBlock();
+        }
+        ColumnarFormat.writeVarint(out, 0);
+        out.flush();
+    }
+
+    private void start() throws IOException {
+        if (!started) {
+            out.write(ColumnarFormat.MAGIC);
+            started = true;
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        ColumnarFormat.writeVarint(out, rows);
+
+        chunk.clear();
+        for (int i = 0; i < rows; i++) {
+            chunk.writeSigned(ids[i] - previousId);
+            previousId = ids[i];
+        }
+        chunk.writeTo(out);
+
+        writeDictionaryColumn(cities, cityIds);
+        writeIntColumn(temperatures);
+        writeIntColumn(humidities);
+        writeIntColumn(windSpeeds);
+        writeIntColumn(uvIndexes);
+        writeDictionaryColumn(descriptions, descriptionIds);
+
+        chunk.clear();
+        for (int i = 0; i < rows; i++) {
+            chunk.writeSigned(timestamps[i] - previousTimestamp);
+            previousTimestamp = timestamps[i];
+        }
+        chunk.writeTo(out);
+
+        rows = 0;
+    }
+
+    private void writeIntColumn(int[] values) throws IOException {
+        chunk.clear();
+        for (int i = 0; i < rows; i++) {
+            chunk.writeSigned(values[i]);
+        }
+        chunk.writeTo(out);
+    }
+
+    private void writeDictionaryColumn(Dictionary dictionary, int[] values) throws IOException {
+        chunk.clear();
+        chunk.writeVarint((long) dictionary.added.size() << 1 | (dictionary.reset ? 1 : 0));
+        for (String value : dictionary.added) {
+            chunk.writeString(value);
+        }
+        for (int i = 0; i < rows; i++) {
+            chunk.writeVarint(values[i]);
+        }
+        chunk.writeTo(out);
+    }
+
+    /**
+     * The ids of the distinct values of a text column, and the values first seen in the current block.
+     */
+    private static final class Dictionary {
+
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> added = new ArrayList<>();
+        private boolean reset;
+
+        /**
+         * Starts a block, emptying the dictionary if the block could otherwise grow it past its limit.
+         */
+        void startBlock() {
+            added.clear();
+            reset = ids.size() > MAX_DICTIONARY_SIZE - BLOCK_ROWS;
+            if (reset) {
+                ids.clear();
+            }
+        }
+
+        int id(String value) {
+            Integer id = ids.get(value);
+            if (id == null) {
+                id = ids.size();
+                ids.put(value, id);
+                added.add(value);
+            }
+            return id;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package gr.unipi.weather_app.export;
+
+import gr.unipi.weather_app.export.ColumnarFormat.Chunk;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static gr.unipi.weather_app.export.ColumnarFormat.BLOCK_ROWS;
+
+/**
+ * Reads the readings of a columnar export, one row at a time.
+ * <p>
+ * An export starts with the bytes {@code WDC1}, followed by blocks of at most
+ * {@value ColumnarFormat#BLOCK_ROWS} rows and a row count of zero. Each block is its row count
+ * followed by one chunk per column, in the order {@code id}, {@code city}, {@code temperature},
+ * {@code humidity}, {@code wind_speed}, {@code uv_index}, {@code weather_description} and
+ * {@code timestamp}, and each chunk is its length in bytes followed by the encoded values,
+ * so a reader can skip the columns it does not need. All integers are LEB128 varints:
+ * <ul>
+ *     <li>{@code id} and {@code timestamp} hold the zigzag-encoded difference to the previous
+ *     row, the first row of the export being compared with zero. Timestamps are local date-times
+ *     in milliseconds since 1970-01-01T00:00.</li>
+ *     <li>The other numeric columns hold zigzag-encoded values.</li>
+ *     <li>{@code city} and {@code weather_description} start with the number of values new to
+ *     the column's dictionary shifted left by one, with the lowest bit set if the dictionary is
+ *     emptied first, followed by those values as UTF-8 strings prefixed with their length. Then
+ *     comes the dictionary index of each row. Values are numbered in the order they are added.</li>
+ * </ul>
+ * The reader decodes one block at a time, so it runs in constant memory like the writer.
+ */
+public class ColumnarWeatherDataReader implements Closeable {
+
+    private final InputStream in;
+    private final Chunk chunk = new Chunk();
+    private final List<String> cityDictionary = new ArrayList<>();
+    private final List<String> descriptionDictionary = new ArrayList<>();
+
+    private final long[] ids = new long[BLOCK_ROWS];
+    private final String[] cities = new String[BLOCK_ROWS];
+    private final int[] temperatures = new int[BLOCK_ROWS];
+    private final int[] humidities = new int[BLOCK_ROWS];
+    private final int[] windSpeeds = new int[BLOCK_ROWS];
+    private final int[] uvIndexes = new int[BLOCK_ROWS];
+    private final String[] descriptions = new String[BLOCK_ROWS];
+    private final long[] timestamps = new long[BLOCK_ROWS];
+
+    private int rows;
+    private int row;
+    private boolean finished;
+    private long previousId;
+    private long previousTimestamp;
+
+    /**
+     * Constructs a new {@code ColumnarWeatherDataReader} and checks the start of the export.
+     *
+     * @param in the stream of the export, closed with the reader
+     * @throws IOException if the stream cannot be read or does not hold a columnar export
+     */
+    public ColumnarWeatherDataReader(InputStream in) throws IOException {
+        this.in = new BufferedInputStream(in, 64 * 1024);
+        if (!Arrays.equals(this.in.readNBytes(ColumnarFormat.MAGIC.length), ColumnarFormat.MAGIC)) {
+            throw new IOException("Not a columnar weather data export");
+        }
+    }
+
+    /**
+     * Moves to the next reading.
+     *
+     * @return {@code true} if there is another reading, {@code false} at the end of the export
+     * @throws IOException if the export cannot be read or is truncated
+     */
+    public boolean next() throws IOException {
+        if (row + 1 < rows) {
+            row++;
+            return true;
+        }
+        if (finished || !readBlock()) {
+            finished = true;
+            return false;
+        }
+        row = 0;
+        return true;
+    }
+
+    /**
+     * @return the id of the current reading
+     */
+    public long id() {
+        return ids[row];
+    }
+
+    /**
+     * @return the city of the current reading
+     */
+    public String city() {
+        return cities[row];
+    }
+
+    /**
+     * @return the temperature of the current reading in degrees Celsius
+     */
+    public int temperature() {
+        return temperatures[row];
+    }
+
+    /**
+     * @return the humidity of the current reading as a percentage
+     */
+    public int humidity() {
+        return humidities[row];
+    }
+
+    /**
+     * @return the wind speed of the current reading in kilometers per hour
+     */
+    public int windSpeed() {
+        return windSpeeds[row];
+    }
+
+    /**
+     * @return the UV index of the current reading
+     */
+    public int uvIndex() {
+        return uvIndexes[row];
+    }
+
+    /**
+     * @return the weather description of the current reading
+     */
+    public String weatherDescription() {
+        return descriptions[row];
+    }
+
+    /**
+     * @return the local date and time of the current reading, in milliseconds since 1970-01-01T00:00
+     */
+    public long timestampMillis() {
+        return timestamps[row];
+    }
+
+    /**
+     * @return the local date and time of the current reading
+     */
+    public LocalDateTime timestamp() {
+        long millis = timestamps[row];
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000,
+                ZoneOffset.UTC);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private boolean readBlock() throws IOException {
+        long count = ColumnarFormat.readVarint(in);
+        if (count < 0) {
+            throw new IOException("The columnar export is truncated");
+        }
+        if (count == 0) {
+            rows = 0;
+            return false;
+        }
+        if (count > BLOCK_ROWS) {
+            throw new IOException("Block of " + count + " rows exceeds the limit of the columnar export");
+        }
+        rows = (int) count;
+
+        chunk.readFrom(in);
+        for (int i = 0; i < rows; i++) {
+            previousId += chunk.readSigned();
+            ids[i] = previousId;
+        }
+        readDictionaryColumn(cityDictionary, cities);
+        readIntColumn(temperatures);
+        readIntColumn(humidities);
+        readIntColumn(windSpeeds);
+        readIntColumn(uvIndexes);
+        readDictionaryColumn(descriptionDictionary, descriptions);
+        chunk.readFrom(in);
+        for (int i = 0; i < rows; i++) {
+            previousTimestamp += chunk.readSigned();
+            timestamps[i] = previousTimestamp;
+        }
+        return true;
+    }
+
+    private void readIntColumn(int[] values) throws IOException {
+        chunk.readFrom(in);
+        for (int i = 0; i < rows; i++) {
+            values[i] = (int) chunk.readSigned();
+        }
+    }
+
+    private void readDictionaryColumn(List<String> dictionary, String[] values) throws IOException {
+        chunk.readFrom(in);
+        long header = chunk.readVarint();
+        if ((header & 1) != 0) {
+            dictionary.clear();
+        }
+        for (long added = header >>> 1; added > 0; added--) {
+            if (dictionary.size() == ColumnarFormat.MAX_DICTIONARY_SIZE) {
+                throw new IOException("Dictionary exceeds the limit of the columnar export");
+            }
+            dictionary.add(chunk.readString());
+        }
+        for (int i = 0; i < rows; i++) {
+            long id = chunk.readVarint();
+            if (id >= dictionary.size()) {
+                throw new IOException("Dictionary index " + id + " is out of range");
+            }
+            values[i] = dictionary.get((int) id);
+        }
+    }
+}
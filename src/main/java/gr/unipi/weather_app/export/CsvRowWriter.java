@@ -0,0 +1,133 @@
+package gr.unipi.weather_app.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Writes readings as UTF-8 CSV lines, with the timestamp in ISO-8601 local date-time form
+ * with milliseconds, e.g. {@code 2025-03-14T09:26:53.589}.
+ * <p>
+ * Numbers and times are formatted into a scratch buffer, and the date part of the
+ * timestamps is only formatted again when the day changes, so a row allocates nothing
+ * beyond the strings read from the database.
+ */
+final class CsvRowWriter implements RowWriter {
+
+    static final String HEADER = "id,city,temperature,humidity,wind_speed,uv_index,weather_description,timestamp\n";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private final Writer out;
+    private final char[] scratch = new char[20];
+    private boolean started;
+    private long day = Long.MIN_VALUE;
+    private String datePrefix;
+
+    CsvRowWriter(OutputStream out) {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    @Override
+    public void write(long id, String city, int temperature, int humidity, int windSpeed, int uvIndex,
+                      String description, long timestamp) throws IOException {
+        start();
+        writeNumber(id);
+        out.write(',');
+        writeText(city);
+        out.write(',');
+        writeNumber(temperature);
+        out.write(',');
+        writeNumber(humidity);
+        out.write(',');
+        writeNumber(windSpeed);
+        out.write(',');
+        writeNumber(uvIndex);
+        out.write(',');
+        writeText(description);
+        out.write(',');
+        writeTimestamp(timestamp);
+        out.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        start();
+        out.flush();
+    }
+
+    private void start() throws IOException {
+        if (!started) {
+            out.write(HEADER);
+            started = true;
+        }
+    }
+
+    private void writeNumber(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            out.write(Long.toString(value));
+            return;
+        }
+        boolean negative = value < 0;
+        long remaining = Math.abs(value);
+        int position = scratch.length;
+        do {
+            scratch[--position] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (negative) {
+            scratch[--position] = '-';
+        }
+        out.write(scratch, position, scratch.length - position);
+    }
+
+    /**
+     * Writes a text field, quoted if it contains a separator, a quote or a line break.
+     */
+    private void writeText(String value) throws IOException {
+        boolean quoted = false;
+        for (int i = 0; i < value.length() && !quoted; i++) {
+            char c = value.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private void writeTimestamp(long timestamp) throws IOException {
+        long day = Math.floorDiv(timestamp, MILLIS_PER_DAY);
+        int millis = (int) Math.floorMod(timestamp, MILLIS_PER_DAY);
+        if (day != this.day) {
+            this.day = day;
+            this.datePrefix = LocalDate.ofEpochDay(day) + "T";
+        }
+        out.write(datePrefix);
+
+        twoDigits(0, millis / 3_600_000);
+        scratch[2] = ':';
+        twoDigits(3, millis / 60_000 % 60);
+        scratch[5] = ':';
+        twoDigits(6, millis / 1000 % 60);
+        scratch[8] = '.';
+        int fraction = millis % 1000;
+        scratch[9] = (char) ('0' + fraction / 100);
+        scratch[10] = (char) ('0' + fraction / 10 % 10);
+        scratch[11] = (char) ('0' + fraction % 10);
+        out.write(scratch, 0, 12);
+    }
+
+    private void twoDigits(int position, int value) {
+        scratch[position] = (char) ('0' + value / 10);
+        scratch[position + 1] = (char) ('0' + value % 10);
+    }
+}
@@ -0,0 +1,41 @@
+package gr.unipi.weather_app.export;
+
+import java.time.LocalDateTime;
+
+/**
+ * Selects the readings of an export.
+ *
+ * @param city the name of the city whose readings are exported, or {@code null} for all cities
+ * @param from the inclusive start of the exported time range, or {@code null} for no lower bound
+ * @param to   the exclusive end of the exported time range, or {@code null} for no upper bound
+ */
+public record ExportFilter(String city, LocalDateTime from, LocalDateTime to) {
+
+    /**
+     * Exports every stored reading.
+     */
+    public static final ExportFilter ALL = new ExportFilter(null, null, null);
+
+    /**
+     * Constructs a new {@code ExportFilter}, treating a blank city as all cities.
+     *
+     * @throws IllegalArgumentException if the time range ends before it starts
+     */
+    public ExportFilter {
+        if (city != null && city.isBlank()) {
+            city = null;
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("The export range must start before it ends");
+        }
+    }
+
+    /**
+     * Returns whether the filter selects a subset of the readings.
+     *
+     * @return {@code true} if a city or a time bound is set
+     */
+    public boolean isFiltered() {
+        return city != null || from != null || to != null;
+    }
+}
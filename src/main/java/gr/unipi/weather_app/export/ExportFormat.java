@@ -0,0 +1,90 @@
+package gr.unipi.weather_app.export;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * The formats the stored weather readings can be exported in.
+ */
+public enum ExportFormat {
+
+    /**
+     * Comma-separated values with a header line, quoted as described by RFC 4180.
+     */
+    CSV("text/csv;charset=UTF-8", "csv"),
+
+    /**
+     * The compact columnar binary format read by {@link ColumnarWeatherDataReader}.
+     */
+    COLUMNAR("application/octet-stream", "wdc");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    /**
+     * Returns the media type of an export in this format.
+     *
+     * @return the media type, e.g. {@code text/csv;charset=UTF-8}
+     */
+    public String contentType() {
+        return contentType;
+    }
+
+    /**
+     * Returns the file extension of an export in this format.
+     *
+     * @return the extension without the dot, e.g. {@code csv}
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Returns the format with the given name, ignoring case.
+     *
+     * @param name the name of the format, {@code csv} or {@code columnar}
+     * @return the matching {@code ExportFormat}
+     * @throws IllegalArgumentException if no format has that name
+     */
+    public static ExportFormat of(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown export format " + name + ", expected csv or columnar");
+    }
+
+    /**
+     * Returns the format of a file from its extension.
+     *
+     * @param file the file to export to
+     * @return the format whose extension the file name ends with
+     * @throws IllegalArgumentException if the file name ends with neither {@code .csv} nor {@code .wdc}
+     */
+    public static ExportFormat forFile(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        for (ExportFormat format : values()) {
+            if (name.endsWith("." + format.extension)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("The export file must end with .csv or .wdc");
+    }
+
+    /**
+     * Starts writing rows in this format to a stream.
+     */
+    RowWriter open(OutputStream out) {
+        return switch (this) {
+            case CSV -> new CsvRowWriter(out);
+            case COLUMNAR -> new ColumnarRowWriter(out);
+        };
+    }
+}
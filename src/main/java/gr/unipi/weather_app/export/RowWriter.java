@@ -0,0 +1,24 @@
+package gr.unipi.weather_app.export;
+
+import java.io.IOException;
+
+/**
+ * Encodes exported readings into an output stream, one row at a time.
+ * <p>
+ * Implementations only buffer a bounded number of rows, so that exports run in constant memory.
+ */
+interface RowWriter {
+
+    /**
+     * Writes one reading.
+     *
+     * @param timestamp the local date and time of the reading, in milliseconds since 1970-01-01T00:00
+     */
+    void write(long id, String city, int temperature, int humidity, int windSpeed, int uvIndex,
+               String description, long timestamp) throws IOException;
+
+    /**
+     * Writes the buffered rows and the end of the export, and flushes the stream without closing it.
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,16 @@
+package gr.unipi.weather_app.export;
+
+/**
+ * Thrown when the {@link WeatherDataExporter} cannot start an export because too many are already running.
+ */
+public class TooManyExportsException extends RuntimeException {
+
+    /**
+     * Constructs a new {@code TooManyExportsException}.
+     *
+     * @param maxConcurrent the number of exports allowed to run at once
+     */
+    public TooManyExportsException(int maxConcurrent) {
+        super("Too many exports running (limit " + maxConcurrent + ")");
+    }
+}
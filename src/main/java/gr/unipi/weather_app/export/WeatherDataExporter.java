@@ -0,0 +1,194 @@
+package gr.unipi.weather_app.export;
+
+import gr.unipi.weather_app.model.City;
+import gr.unipi.weather_app.repository.WeatherPartitions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Streams the stored weather readings out as CSV or in the columnar binary format.
+ * <p>
+ * The readings are read with a forward-only, read-only JDBC cursor fetching
+ * {@code fetch-size} rows at a time, bypassing JPA, so no entity is created and
+ * nothing is kept in a persistence context. Each row is handed straight to the
+ * {@link ExportFormat} writer, which only buffers a fixed number of rows, so an export
+ * runs in constant memory however many rows it holds. Only the monthly partitions
+ * overlapping the time range are read, as described in {@link WeatherPartitions}, and
+ * their rows are merged as they come out of each partition: every reading in id order,
+ * which follows the rows as stored, and filtered exports through the city and timestamp
+ * or the timestamp index, in timestamp order. The city names are joined from the "city"
+ * table, and a city filter matches any spelling the city was searched by.
+ * <p>
+ * Each export holds a connection of the read-only pool for its whole duration and reads
+ * the catalog and the partitions from one snapshot of the database, in a read-only
+ * transaction, which keeps the WAL from being checkpointed past it.
+ * At most {@code max-concurrent} exports run at once; further ones are rejected with a
+ * {@link TooManyExportsException} rather than queued.
+ */
+@Slf4j
+@Component
+public class WeatherDataExporter {
+
+    private static final String SELECT = "SELECT w.id AS id, c.name, w.temperature, w.humidity, w.wind_speed, " +
+            "w.uv_index, w.weather_description, w.timestamp AS timestamp FROM %s w JOIN city c ON c.id = w.city_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxConcurrent;
+    private final Semaphore exports;
+
+    /**
+     * Constructs a new {@code WeatherDataExporter}.
+     *
+     * @param dataSource    the read-only data source the readings are read from
+     * @param fetchSize     the number of rows the cursor fetches at a time
+     * @param maxConcurrent the maximum number of exports running at once
+     */
+    public WeatherDataExporter(@Qualifier("readDataSource") DataSource dataSource,
+                               @Value("${weather.export.fetch-size}") int fetchSize,
+                               @Value("${weather.export.max-concurrent}") int maxConcurrent) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.transactionTemplate.setReadOnly(true);
+        this.maxConcurrent = maxConcurrent;
+        this.exports = new Semaphore(maxConcurrent);
+    }
+
+    /**
+     * Writes the selected readings to a stream, which is flushed but left open.
+     *
+     * @param filter the readings to export
+     * @param format the format to write them in
+     * @param out    the stream to write to
+     * @return the number of readings written
+     * @throws IOException             if the stream cannot be written
+     * @throws TooManyExportsException if {@code max-concurrent} exports are already running
+     */
+    public long export(ExportFilter filter, ExportFormat format, OutputStream out) throws IOException {
+        if (!exports.tryAcquire()) {
+            throw new TooManyExportsException(maxConcurrent);
+        }
+        try {
+            return write(filter, format.open(out));
+        } finally {
+            exports.release();
+        }
+    }
+
+    /**
+     * Writes the selected readings to a file, in the format given by its extension.
+     * <p>
+     * The export is written to a temporary file next to it, which replaces the file
+     * only once complete, so a failed export never leaves a truncated file behind.
+     *
+     * @param filter the readings to export
+     * @param file   the file to write, ending with {@code .csv} or {@code .wdc}
+     * @return the number of readings written
+     * @throws IOException             if the file cannot be written
+     * @throws TooManyExportsException if {@code max-concurrent} exports are already running
+     */
+    public long export(ExportFilter filter, Path file) throws IOException {
+        ExportFormat format = ExportFormat.forFile(file);
+        Path target = file.toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            long rows;
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                rows = export(filter, format, out);
+            }
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Exported {} readings to {}", rows, target);
+            return rows;
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private long write(ExportFilter filter, RowWriter writer) throws IOException {
+        // Timestamps are stored as the milliseconds of the local date-time in the default time zone
+        TimeZone zone = TimeZone.getDefault();
+        long[] rows = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<String> tables = WeatherPartitions.tables(jdbcTemplate, filter.from(), filter.to());
+                jdbcTemplate.query(statement(filter, tables), (ResultSet result) -> {
+                    long stored = result.getLong(8);
+                    try {
+                        writer.write(result.getLong(1), result.getString(2), result.getInt(3), result.getInt(4),
+                                result.getInt(5), result.getInt(6), result.getString(7), stored + zone.getOffset(stored));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    rows[0]++;
+                });
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+        return rows[0];
+    }
+
+    private static PreparedStatementCreator statement(ExportFilter filter, List<String> tables) {
+        StringBuilder select = new StringBuilder(SELECT);
+        List<Object> parameters = new ArrayList<>();
+        List<String> conditions = new ArrayList<>();
+        if (filter.city() != null) {
+            conditions.add("w.city_id = (SELECT city_id FROM city_alias WHERE alias = ?)");
+            parameters.add(City.key(filter.city()));
+        }
+        if (filter.from() != null) {
+            conditions.add("w.timestamp >= ?");
+            parameters.add(millis(filter.from()));
+        }
+        if (filter.to() != null) {
+            conditions.add("w.timestamp < ?");
+            parameters.add(millis(filter.to()));
+        }
+        if (!conditions.isEmpty()) {
+            select.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        String sql = WeatherPartitions.unionAll(tables, select.toString()) +
+                (filter.isFiltered() ? " ORDER BY timestamp" : " ORDER BY id");
+        Object[] repeated = WeatherPartitions.repeat(tables.size(), parameters);
+
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            for (int i = 0; i < repeated.length; i++) {
+                statement.setObject(i + 1, repeated[i]);
+            }
+            return statement;
+        };
+    }
+
+    /**
+     * Converts a bound of the time range the way the JDBC driver stores timestamps.
+     */
+    private static long millis(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime).getTime();
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * This package contains the bulk export of the stored weather readings.
+ * <p>
+ * The export package streams the whole {@code weather_data} history, or the readings of one
+ * city or time range, out of the database in constant memory. Currently, it includes the
+ * {@link gr.unipi.weather_app.export.WeatherDataExporter} class, which reads the readings
+ * through a forward-only JDBC cursor and writes them to a stream or a file in one of the
+ * {@link gr.unipi.weather_app.export.ExportFormat} formats, CSV or a compact columnar binary
+ * format, and the {@link gr.unipi.weather_app.export.ColumnarWeatherDataReader} class,
+ * which reads the columnar exports back.
+ */
+package gr.unipi.weather_app.export;
@@ -0,0 +1,172 @@
+package gr.unipi.weather_app.metrics;
+
+import io.micrometer.core.instrument.LongTaskTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Times every call of the intercepted methods and counts the calls in progress.
+ * <p>
+ * Each method gets a {@link Timer} named after the component, e.g. {@code weather.service},
+ * tagged with the class, the method and the outcome of the call, {@code success},
+ * {@code error} or {@code cancelled}, and a {@link LongTaskTimer} with the {@code .active}
+ * suffix, whose gauge is the number of calls in flight. Methods returning a {@link Mono}
+ * or a {@link Flux} are timed from each subscription until the result completes, since
+ * the call only describes the work; other methods are timed until they return. Only those
+ * reactive results can end {@code cancelled}. Overloaded methods are told apart by their
+ * parameter types, e.g. {@code getWeather(Collection)}.
+ */
+public class MeteredMethodInterceptor implements MethodInterceptor {
+
+    private final Supplier<MeterRegistry> registry;
+    private final String name;
+    private final String className;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new {@code MeteredMethodInterceptor}.
+     *
+     * @param registry  supplies the registry the meters are registered with, on the first call
+     * @param name      the name of the timers, e.g. {@code weather.service}
+     * @param className the value of the {@code class} tag, or {@code null} to use the class of the target
+     */
+    public MeteredMethodInterceptor(Supplier<MeterRegistry> registry, String name, String className) {
+        this.registry = registry;
+        this.name = name;
+        this.className = className;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        if (method.getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        Meters meters = this.meters.computeIfAbsent(method, m -> register(m, invocation.getThis()));
+
+        Class<?> returnType = method.getReturnType();
+        if (Mono.class.isAssignableFrom(returnType)) {
+            Mono<?> mono = (Mono<?>) invocation.proceed();
+            return mono == null ? null : Mono.defer(() -> {
+                Call call = meters.start();
+                return mono.doOnSuccess(value -> call.stop(SignalType.ON_COMPLETE))
+                        .doOnError(e -> call.stop(SignalType.ON_ERROR))
+                        .doOnCancel(() -> call.stop(SignalType.CANCEL));
+            });
+        }
+        if (Flux.class.isAssignableFrom(returnType)) {
+            Flux<?> flux = (Flux<?>) invocation.proceed();
+            return flux == null ? null : Flux.defer(() -> {
+                Call call = meters.start();
+                return flux.doOnComplete(() -> call.stop(SignalType.ON_COMPLETE))
+                        .doOnError(e -> call.stop(SignalType.ON_ERROR))
+                        .doOnCancel(() -> call.stop(SignalType.CANCEL));
+            });
+        }
+
+        Call call = meters.start();
+        try {
+            Object result = invocation.proceed();
+            call.stop(SignalType.ON_COMPLETE);
+            return result;
+        } catch (Throwable e) {
+            call.stop(SignalType.ON_ERROR);
+            throw e;
+        }
+    }
+
+    private Meters register(Method method, Object target) {
+        MeterRegistry registry = this.registry.get();
+        String type = className != null ? className : ClassUtils.getUserClass(target).getSimpleName();
+        String methodName = methodName(method);
+        boolean reactive = Mono.class.isAssignableFrom(method.getReturnType())
+                || Flux.class.isAssignableFrom(method.getReturnType());
+
+        LongTaskTimer active = LongTaskTimer.builder(name + ".active")
+                .description("Calls in progress")
+                .tag("class", type)
+                .tag("method", methodName)
+                .register(registry);
+        return new Meters(active,
+                timer(registry, type, methodName, "success"),
+                timer(registry, type, methodName, "error"),
+                reactive ? timer(registry, type, methodName, "cancelled") : null);
+    }
+
+    /**
+     * Returns the name of a method, followed by its parameter types if the name is overloaded.
+     */
+    private static String methodName(Method method) {
+        boolean overloaded = Arrays.stream(method.getDeclaringClass().getMethods())
+                .anyMatch(other -> other.getName().equals(method.getName()) && !other.equals(method));
+        if (!overloaded) {
+            return method.getName();
+        }
+        return Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", method.getName() + "(", ")"));
+    }
+
+    private Timer timer(MeterRegistry registry, String type, String method, String outcome) {
+        return Timer.builder(name)
+                .description("Duration of completed calls")
+                .tag("class", type)
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * The meters of one method; {@code cancelled} is {@code null} unless the method returns a reactive type.
+     */
+    private record Meters(LongTaskTimer active, Timer success, Timer error, Timer cancelled) {
+
+        Call start() {
+            return new Call(this, active.start());
+        }
+    }
+
+    /**
+     * A call in progress, stopped by the first signal that ends it before the signal reaches the caller.
+     */
+    private static final class Call extends AtomicBoolean {
+
+        private final Meters meters;
+        private final LongTaskTimer.Sample active;
+        private final long startedAt = System.nanoTime();
+
+        Call(Meters meters, LongTaskTimer.Sample active) {
+            this.meters = meters;
+            this.active = active;
+        }
+
+        void stop(SignalType signal) {
+            long duration = System.nanoTime() - startedAt;
+            if (!compareAndSet(false, true)) {
+                return;
+            }
+            active.stop();
+            Timer timer = switch (signal) {
+                case ON_ERROR -> meters.error();
+                case CANCEL -> meters.cancelled();
+                default -> meters.success();
+            };
+            timer.record(duration, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package gr.unipi.weather_app.metrics;
+
+import gr.unipi.weather_app.resilience.CircuitBreaker;
+import gr.unipi.weather_app.resilience.WeatherApiRateLimiter;
+import gr.unipi.weather_app.resilience.WeatherApiResilience;
+import gr.unipi.weather_app.service.HotCityRefresher;
+import gr.unipi.weather_app.service.RecentWeatherStore;
+import gr.unipi.weather_app.service.SearchCounter;
+import gr.unipi.weather_app.service.WeatherCache;
+import gr.unipi.weather_app.service.WeatherDataWriter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exposes the counters the weather components keep for themselves as meters.
+ * <p>
+ * The cache lookups, the rate limiter queues and permits, the write-behind queue, the
+ * search counts and the state of the circuit breaker are read from the components whenever the meters
+ * are scraped, so they add no work to the calls being counted. The hot city refresh
+ * and the memory held by the recent readings store are included when they are enabled.
+ */
+@Component
+public class WeatherMetrics implements MeterBinder {
+
+    private final WeatherCache cache;
+    private final WeatherApiRateLimiter rateLimiter;
+    private final WeatherDataWriter writer;
+    private final WeatherApiResilience resilience;
+    private final SearchCounter searchCounter;
+    private final ObjectProvider<HotCityRefresher> refresher;
+    private final ObjectProvider<RecentWeatherStore> recentStore;
+
+    /**
+     * Constructs a new {@code WeatherMetrics}.
+     *
+     * @param cache         the cache of the latest weather data per city
+     * @param rateLimiter   the rate limiter of the weather API calls
+     * @param writer        the write-behind buffer of new readings
+     * @param resilience    the retries and circuit breaker around the weather API calls
+     * @param searchCounter the counter of the searches of each city
+     * @param refresher     the background refresh of the most searched cities, if enabled
+     * @param recentStore   the in-memory store of the recent readings, if enabled
+     */
+    public WeatherMetrics(WeatherCache cache, WeatherApiRateLimiter rateLimiter, WeatherDataWriter writer,
+                          WeatherApiResilience resilience, SearchCounter searchCounter,
+                          ObjectProvider<HotCityRefresher> refresher, ObjectProvider<RecentWeatherStore> recentStore) {
+        this.cache = cache;
+        this.rateLimiter = rateLimiter;
+        this.writer = writer;
+        this.resilience = resilience;
+        this.searchCounter = searchCounter;
+        this.refresher = refresher;
+        this.recentStore = recentStore;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        cacheLookups(registry, "hit", WeatherCache.CacheStats::hits);
+        cacheLookups(registry, "stale", WeatherCache.CacheStats::staleHits);
+        cacheLookups(registry, "miss", WeatherCache.CacheStats::misses);
+        FunctionCounter.builder("weather.cache.evictions", cache, c -> c.stats().evictions())
+                .description("Entries removed because the cache was full")
+                .register(registry);
+        Gauge.builder("weather.cache.size", cache, c -> c.stats().size())
+                .description("Entries currently cached")
+                .register(registry);
+
+        Gauge.builder("weather.api.rate.limiter.queued", rateLimiter, l -> l.stats().queuedInteractive())
+                .description("Calls waiting for a permit")
+                .tag("priority", "interactive")
+                .register(registry);
+        Gauge.builder("weather.api.rate.limiter.queued", rateLimiter, l -> l.stats().queuedBulk())
+                .description("Calls waiting for a permit")
+                .tag("priority", "bulk")
+                .register(registry);
+        rateLimiterCalls(registry, "granted", WeatherApiRateLimiter.RateLimiterStats::granted);
+        rateLimiterCalls(registry, "rejected", WeatherApiRateLimiter.RateLimiterStats::rejected);
+        FunctionCounter.builder("weather.api.rate.limiter.throttled", rateLimiter, l -> l.stats().throttled())
+                .description("Pauses after a 429 response of the weather API")
+                .register(registry);
+        TimeGauge.builder("weather.api.rate.limiter.wait.max", rateLimiter, TimeUnit.NANOSECONDS,
+                        l -> l.stats().maxWait().toNanos())
+                .description("Longest time a call waited for its permit")
+                .register(registry);
+
+        for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+            Gauge.builder("weather.api.circuit.breaker.state", resilience,
+                            r -> r.circuitBreakerState() == state ? 1 : 0)
+                    .description("1 for the current state of the circuit breaker, 0 for the others")
+                    .tag("state", state.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+
+        Gauge.builder("weather.writer.pending", writer, WeatherDataWriter::pending)
+                .description("Readings waiting to be written by the write-behind buffer")
+                .register(registry);
+        FunctionCounter.builder("weather.writer.dropped", writer, WeatherDataWriter::dropped)
+                .description("Readings dropped because their batch could not be written")
+                .register(registry);
+
+        FunctionCounter.builder("weather.search.recorded", searchCounter, c -> c.stats().recorded())
+                .description("Searches counted by the search counter")
+                .register(registry);
+        Gauge.builder("weather.search.pending", searchCounter, c -> c.stats().pending())
+                .description("Cities with searches not yet written to the database")
+                .register(registry);
+
+        refresher.ifAvailable(r -> bindRefresher(registry, r));
+        recentStore.ifAvailable(store -> Gauge.builder("weather.recent.memory", store, RecentWeatherStore::footprint)
+                .description("Memory held by the columns of the recent readings store")
+                .baseUnit("bytes")
+                .register(registry));
+    }
+
+    private void bindRefresher(MeterRegistry registry, HotCityRefresher refresher) {
+        Gauge.builder("weather.refresh.leader", refresher, r -> r.stats().leader() ? 1 : 0)
+                .description("1 if this node holds the hot city refresh lease, 0 otherwise")
+                .register(registry);
+        Gauge.builder("weather.refresh.cities", refresher, r -> r.stats().cities())
+                .description("Hot cities kept refreshed by this node")
+                .register(registry);
+        FunctionCounter.builder("weather.refresh.calls", refresher, r -> r.stats().refreshed())
+                .description("Background refreshes of hot cities")
+                .tag("result", "success")
+                .register(registry);
+        FunctionCounter.builder("weather.refresh.calls", refresher, r -> r.stats().failed())
+                .description("Background refreshes of hot cities")
+                .tag("result", "error")
+                .register(registry);
+    }
+
+    private void cacheLookups(MeterRegistry registry, String result, ToDoubleFunction<WeatherCache.CacheStats> count) {
+        FunctionCounter.builder("weather.cache.lookups", cache, c -> count.applyAsDouble(c.stats()))
+                .description("Lookups of the weather cache")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private void rateLimiterCalls(MeterRegistry registry, String result,
+                                  ToDoubleFunction<WeatherApiRateLimiter.RateLimiterStats> count) {
+        FunctionCounter.builder("weather.api.rate.limiter.calls", rateLimiter, l -> count.applyAsDouble(l.stats()))
+                .description("Calls granted a permit or rejected because the queues were full")
+                .tag("result", result)
+                .register(registry);
+    }
+}
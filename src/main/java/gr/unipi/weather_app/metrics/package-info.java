@@ -0,0 +1,12 @@
+/**
+ * This package contains the classes that measure the Weather App.
+ * <p>
+ * The metrics package is responsible for turning the work of the service into Micrometer
+ * meters, exported in Prometheus format through the Actuator {@code /actuator/prometheus}
+ * endpoint. Currently, it includes the
+ * {@link gr.unipi.weather_app.metrics.MeteredMethodInterceptor} class, which times the calls
+ * of the service, the repositories and the weather providers by outcome and counts those in
+ * flight, and the {@link gr.unipi.weather_app.metrics.WeatherMetrics} class, which exposes the
+ * counters of the cache, the rate limiter, the circuit breaker and the write-behind buffer.
+ */
+package gr.unipi.weather_app.metrics;
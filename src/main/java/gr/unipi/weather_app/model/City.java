@@ -0,0 +1,127 @@
+package gr.unipi.weather_app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A city weather readings are stored for, under its canonical name.
+ * <p>
+ * Readings refer to their city by its integer id rather than by name. The ways a city was
+ * searched for more than once are recorded as aliases in the "city_alias" table, each under its
+ * {@link #key(String) key}, so that every spelling of a city resolves to the same id.
+ *
+ * This class is mapped to the "city" table in the "public" schema using JPA annotations.
+ */
+@Entity
+@Table(name = "city", schema = "public")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class City {
+
+    /**
+     * The maximum length of a city name, which the per-city tables are keyed by as well.
+     */
+    public static final int MAX_NAME_LENGTH = 50;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+", Pattern.UNICODE_CHARACTER_CLASS);
+
+    /**
+     * The unique identifier of the city, stored in the "city_id" column of the readings.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id", nullable = false, updatable = false)
+    private int id;
+
+    /**
+     * The canonical name of the city, as reported by the weather API.
+     */
+    @Column(name = "name", nullable = false, unique = true, length = MAX_NAME_LENGTH)
+    private String name;
+
+    /**
+     * The country of the city, or {@code null} if the weather API did not report one.
+     */
+    @Column(name = "country", length = 100)
+    private String country;
+
+    /**
+     * Normalizes a city name as entered into the form it is displayed and searched with.
+     * <p>
+     * Compatibility characters such as full-width letters or non-breaking spaces are replaced
+     * by their plain form (NFKC), and the whitespace is trimmed and collapsed.
+     *
+     * @param name the city name as entered
+     * @return the normalized city name
+     */
+    public static String normalize(String name) {
+        String normalized = Normalizer.normalize(name, Normalizer.Form.NFKC).strip();
+        return WHITESPACE.matcher(normalized).replaceAll(" ");
+    }
+
+    /**
+     * Normalizes a city name into the key it is looked up by.
+     * <p>
+     * The {@link #normalize(String) normalized} name is case folded, by upper-casing then
+     * lower-casing it, so that "ß" matches "SS" and a final sigma matches a medial one.
+     *
+     * @param name the city name as entered
+     * @return the case folded, normalized city name
+     */
+    public static String key(String name) {
+        return normalize(name).toUpperCase(Locale.ROOT).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Shortens a normalized city name to at most {@link #MAX_NAME_LENGTH} characters.
+     *
+     * @param name the normalized city name
+     * @return the name, cut short if it is too long
+     */
+    public static String shorten(String name) {
+        return shorten(name, MAX_NAME_LENGTH);
+    }
+
+    /**
+     * Names a city after an area and its country, to tell it apart from a city of another
+     * country named like the area.
+     * <p>
+     * If "Area, Country" is longer than {@link #MAX_NAME_LENGTH}, the country is cut to half
+     * the length and the area to what remains.
+     *
+     * @param area    the normalized name of the area
+     * @param country the normalized name of the country
+     * @return the qualified name, of at most {@link #MAX_NAME_LENGTH} characters
+     */
+    public static String qualify(String area, String country) {
+        String qualified = area + ", " + country;
+        if (qualified.length() <= MAX_NAME_LENGTH) {
+            return qualified;
+        }
+        String suffix = ", " + shorten(country, MAX_NAME_LENGTH / 2 - 2);
+        return shorten(area, MAX_NAME_LENGTH - suffix.length()) + suffix;
+    }
+
+    private static String shorten(String name, int length) {
+        if (name.length() <= length) {
+            return name;
+        }
+        // Never split a surrogate pair
+        int end = Character.isHighSurrogate(name.charAt(length - 1)) ? length - 1 : length;
+        return name.substring(0, end).strip();
+    }
+}
@@ -0,0 +1,38 @@
+package gr.unipi.weather_app.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The number of times the weather of a city was looked up.
+ * <p>
+ * Searches are counted in memory and added to this table in batches, so recording a
+ * search never writes a row of its own, and the most searched cities are read from
+ * the index on the counts.
+ *
+ * This class is mapped to the "city_search_count" table in the "public" schema using JPA annotations.
+ */
+@Entity
+@Table(name = "city_search_count", schema = "public", indexes = {
+        @Index(name = "idx_city_search_count_searches", columnList = "searches")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class CitySearchCount {
+
+    /**
+     * The name of the city as it was searched.
+     */
+    @Id
+    @Column(name = "city", nullable = false, length = 50)
+    private String city;
+
+    /**
+     * The number of searches of the city.
+     */
+    @Column(name = "searches", nullable = false)
+    private long searches;
+}
@@ -0,0 +1,189 @@
+package gr.unipi.weather_app.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Running totals of the weather readings stored for a city.
+ * <p>
+ * One row is kept per city and updated together with every insert into "weather_data",
+ * so per-city averages are read from a single row instead of being recomputed over
+ * the whole history. The totals outlive the raw readings, which are downsampled once they
+ * expire, so they also hold the record temperatures of each city, indexed for the hottest
+ * and coldest city queries.
+ *
+ * This class is mapped to the "city_stats" table in the "public" schema using JPA annotations.
+ */
+@Entity
+@Table(name = "city_stats", schema = "public", indexes = {
+        @Index(name = "idx_city_stats_temperature_max", columnList = "temperature_max, city"),
+        @Index(name = "idx_city_stats_temperature_min", columnList = "temperature_min, city")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+public class CityStats {
+
+    /**
+     * The name of the city the totals belong to.
+     */
+    @Id
+    @Column(name = "city", nullable = false, length = 50)
+    private String city;
+
+    /**
+     * The number of readings stored for the city.
+     */
+    @Column(name = "readings", nullable = false)
+    private long readings;
+
+    /**
+     * The sum of all recorded temperatures.
+     */
+    @Column(name = "temperature_sum", nullable = false)
+    private long temperatureSum;
+
+    /**
+     * The sum of all recorded humidity percentages.
+     */
+    @Column(name = "humidity_sum", nullable = false)
+    private long humiditySum;
+
+    /**
+     * The sum of all recorded wind speeds.
+     */
+    @Column(name = "wind_speed_sum", nullable = false)
+    private long windSpeedSum;
+
+    /**
+     * The sum of all recorded UV indexes.
+     */
+    @Column(name = "uv_index_sum", nullable = false)
+    private long uvIndexSum;
+
+    /**
+     * The lowest recorded temperature.
+     */
+    @Column(name = "temperature_min", nullable = false)
+    private int temperatureMin;
+
+    /**
+     * The highest recorded temperature.
+     */
+    @Column(name = "temperature_max", nullable = false)
+    private int temperatureMax;
+
+    /**
+     * The lowest recorded humidity percentage.
+     */
+    @Column(name = "humidity_min", nullable = false)
+    private int humidityMin;
+
+    /**
+     * The highest recorded humidity percentage.
+     */
+    @Column(name = "humidity_max", nullable = false)
+    private int humidityMax;
+
+    /**
+     * The lowest recorded wind speed.
+     */
+    @Column(name = "wind_speed_min", nullable = false)
+    private int windSpeedMin;
+
+    /**
+     * The highest recorded wind speed.
+     */
+    @Column(name = "wind_speed_max", nullable = false)
+    private int windSpeedMax;
+
+    /**
+     * The lowest recorded UV index.
+     */
+    @Column(name = "uv_index_min", nullable = false)
+    private int uvIndexMin;
+
+    /**
+     * The highest recorded UV index.
+     */
+    @Column(name = "uv_index_max", nullable = false)
+    private int uvIndexMax;
+
+    /**
+     * Creates empty totals for a city.
+     *
+     * @param city the name of the city
+     */
+    public CityStats(String city) {
+        this.city = city;
+    }
+
+    /**
+     * Adds a weather reading to the totals.
+     *
+     * @param data the weather reading of this city
+     */
+    public void add(WeatherData data) {
+        add(data.getTemperature(), data.getHumidity(), data.getWindSpeed(), data.getUvIndex());
+    }
+
+    /**
+     * Adds a weather reading to the totals.
+     *
+     * @param temperature the temperature in degrees Celsius
+     * @param humidity    the humidity percentage
+     * @param windSpeed   the wind speed in kilometers per hour
+     * @param uvIndex     the UV index
+     */
+    public void add(int temperature, int humidity, int windSpeed, int uvIndex) {
+        boolean first = readings == 0;
+        readings++;
+        temperatureSum += temperature;
+        humiditySum += humidity;
+        windSpeedSum += windSpeed;
+        uvIndexSum += uvIndex;
+        temperatureMin = first ? temperature : Math.min(temperatureMin, temperature);
+        temperatureMax = first ? temperature : Math.max(temperatureMax, temperature);
+        humidityMin = first ? humidity : Math.min(humidityMin, humidity);
+        humidityMax = first ? humidity : Math.max(humidityMax, humidity);
+        windSpeedMin = first ? windSpeed : Math.min(windSpeedMin, windSpeed);
+        windSpeedMax = first ? windSpeed : Math.max(windSpeedMax, windSpeed);
+        uvIndexMin = first ? uvIndex : Math.min(uvIndexMin, uvIndex);
+        uvIndexMax = first ? uvIndex : Math.max(uvIndexMax, uvIndex);
+    }
+
+    /**
+     * Adds the totals of readings that were downsampled into time buckets.
+     * <p>
+     * The buckets keep no lowest and highest humidity, wind speed and UV index,
+     * so the averages of the downsampled readings stand in for them.
+     *
+     * @param totals         the count and sums of the downsampled readings
+     * @param temperatureMin the lowest temperature among them
+     * @param temperatureMax the highest temperature among them
+     */
+    public void addDownsampled(WeatherTotals totals, int temperatureMin, int temperatureMax) {
+        if (totals.readings() == 0) {
+            return;
+        }
+        int humidity = (int) Math.round(totals.averageHumidity());
+        int windSpeed = (int) Math.round(totals.averageWindSpeed());
+        int uvIndex = (int) Math.round(totals.averageUvIndex());
+        boolean first = readings == 0;
+        readings += totals.readings();
+        temperatureSum += totals.temperatureSum();
+        humiditySum += totals.humiditySum();
+        windSpeedSum += totals.windSpeedSum();
+        uvIndexSum += totals.uvIndexSum();
+        this.temperatureMin = first ? temperatureMin : Math.min(this.temperatureMin, temperatureMin);
+        this.temperatureMax = first ? temperatureMax : Math.max(this.temperatureMax, temperatureMax);
+        humidityMin = first ? humidity : Math.min(humidityMin, humidity);
+        humidityMax = first ? humidity : Math.max(humidityMax, humidity);
+        windSpeedMin = first ? windSpeed : Math.min(windSpeedMin, windSpeed);
+        windSpeedMax = first ? windSpeed : Math.max(windSpeedMax, windSpeed);
+        uvIndexMin = first ? uvIndex : Math.min(uvIndexMin, uvIndex);
+        uvIndexMax = first ? uvIndex : Math.max(uvIndexMax, uvIndex);
+    }
+}
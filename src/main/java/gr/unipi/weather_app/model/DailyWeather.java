@@ -0,0 +1,33 @@
+package gr.unipi.weather_app.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The totals of the weather readings of one city within one day.
+ *
+ * This class is mapped to the "weather_daily" table in the "public" schema using JPA annotations.
+ */
+@Entity
+@IdClass(WeatherBucket.Key.class)
+@Table(name = "weather_daily", schema = "public", indexes = {
+        @Index(name = "idx_weather_daily_bucket_start", columnList = "bucket_start")
+})
+@NoArgsConstructor
+public class DailyWeather extends WeatherBucket {
+
+    /**
+     * Creates an empty daily bucket.
+     *
+     * @param city        the name of the city
+     * @param bucketStart the start of the day
+     */
+    public DailyWeather(String city, LocalDateTime bucketStart) {
+        super(city, bucketStart);
+    }
+}
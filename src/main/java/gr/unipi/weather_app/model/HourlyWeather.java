@@ -0,0 +1,33 @@
+package gr.unipi.weather_app.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The totals of the weather readings of one city within one hour.
+ *
+ * This class is mapped to the "weather_hourly" table in the "public" schema using JPA annotations.
+ */
+@Entity
+@IdClass(WeatherBucket.Key.class)
+@Table(name = "weather_hourly", schema = "public", indexes = {
+        @Index(name = "idx_weather_hourly_bucket_start", columnList = "bucket_start")
+})
+@NoArgsConstructor
+public class HourlyWeather extends WeatherBucket {
+
+    /**
+     * Creates an empty hourly bucket.
+     *
+     * @param city        the name of the city
+     * @param bucketStart the start of the hour
+     */
+    public HourlyWeather(String city, LocalDateTime bucketStart) {
+        super(city, bucketStart);
+    }
+}
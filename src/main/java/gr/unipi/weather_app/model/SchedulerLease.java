@@ -0,0 +1,45 @@
+package gr.unipi.weather_app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A time-limited lease on a background job, held by one application node at a time.
+ * <p>
+ * Nodes sharing the database take over a lease only once it has expired, so a job
+ * such as the hot city refresh runs on a single node and moves to another one when
+ * its holder stops renewing it.
+ *
+ * This class is mapped to the "scheduler_lease" table in the "public" schema using JPA annotations.
+ */
+@Entity
+@Table(name = "scheduler_lease", schema = "public")
+@Getter
+@Setter
+@NoArgsConstructor
+public class SchedulerLease {
+
+    /**
+     * The name of the job the lease is for.
+     */
+    @Id
+    @Column(name = "name", nullable = false, length = 50)
+    private String name;
+
+    /**
+     * The identifier of the node holding the lease.
+     */
+    @Column(name = "owner", nullable = false, length = 100)
+    private String owner;
+
+    /**
+     * The time the lease expires unless renewed, in milliseconds since the epoch.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+}
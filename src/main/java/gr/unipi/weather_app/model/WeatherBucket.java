@@ -0,0 +1,124 @@
+package gr.unipi.weather_app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * The totals of the weather readings of one city within a fixed time bucket.
+ * <p>
+ * Subclasses map the bucket to a table of a given granularity, such as
+ * {@link HourlyWeather} and {@link DailyWeather}.
+ */
+@MappedSuperclass
+@Getter
+@Setter
+@NoArgsConstructor
+public abstract class WeatherBucket {
+
+    /**
+     * The name of the city the totals belong to.
+     */
+    @Id
+    @Column(name = "city", nullable = false, length = 50)
+    private String city;
+
+    /**
+     * The start of the bucket; the bucket covers one unit of its granularity from here.
+     */
+    @Id
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    /**
+     * The number of readings in the bucket.
+     */
+    @Column(name = "readings", nullable = false)
+    private long readings;
+
+    /**
+     * The sum of the temperatures in the bucket.
+     */
+    @Column(name = "temperature_sum", nullable = false)
+    private long temperatureSum;
+
+    /**
+     * The sum of the humidity percentages in the bucket.
+     */
+    @Column(name = "humidity_sum", nullable = false)
+    private long humiditySum;
+
+    /**
+     * The sum of the wind speeds in the bucket.
+     */
+    @Column(name = "wind_speed_sum", nullable = false)
+    private long windSpeedSum;
+
+    /**
+     * The sum of the UV indexes in the bucket.
+     */
+    @Column(name = "uv_index_sum", nullable = false)
+    private long uvIndexSum;
+
+    /**
+     * The lowest temperature in the bucket.
+     */
+    @Column(name = "temperature_min", nullable = false)
+    private int temperatureMin;
+
+    /**
+     * The highest temperature in the bucket.
+     */
+    @Column(name = "temperature_max", nullable = false)
+    private int temperatureMax;
+
+    /**
+     * Creates an empty bucket.
+     *
+     * @param city        the name of the city
+     * @param bucketStart the start of the bucket
+     */
+    protected WeatherBucket(String city, LocalDateTime bucketStart) {
+        this.city = city;
+        this.bucketStart = bucketStart;
+    }
+
+    /**
+     * Adds a weather reading to the bucket.
+     *
+     * @param temperature the temperature in degrees Celsius
+     * @param humidity    the humidity percentage
+     * @param windSpeed   the wind speed in kilometers per hour
+     * @param uvIndex     the UV index
+     */
+    public void add(int temperature, int humidity, int windSpeed, int uvIndex) {
+        temperatureMin = readings == 0 ? temperature : Math.min(temperatureMin, temperature);
+        temperatureMax = readings == 0 ? temperature : Math.max(temperatureMax, temperature);
+        readings++;
+        temperatureSum += temperature;
+        humiditySum += humidity;
+        windSpeedSum += windSpeed;
+        uvIndexSum += uvIndex;
+    }
+
+    /**
+     * The composite identifier of a bucket.
+     */
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String city;
+        private LocalDateTime bucketStart;
+    }
+}
@@ -1,10 +1,12 @@
 package gr.unipi.weather_app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Formula;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -14,10 +16,17 @@ import java.time.format.DateTimeFormatter;
  * wind speed, UV index, weather description, and a timestamp.
  *
  * This class is mapped to the "weather_data" table in the "public" schema using JPA annotations.
+ * Each reading refers to its {@link City} by id rather than repeating its name.
+ * The table is indexed by city and timestamp for per-city and time-range queries.
+ * It only holds the readings of the current month; older ones are moved into the
+ * monthly archives described in {@link gr.unipi.weather_app.repository.WeatherPartitions}.
  * Lombok is used to reduce boilerplate code for getters, setters, and constructors.
  */
 @Entity
-@Table(name = "weather_data", schema = "public")
+@Table(name = "weather_data", schema = "public", indexes = {
+        @Index(name = "idx_weather_data_city_timestamp", columnList = "city_id, timestamp"),
+        @Index(name = "idx_weather_data_timestamp", columnList = "timestamp")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -27,17 +36,28 @@ public class WeatherData {
     /**
      * The unique identifier for the weather data record.
      * It is auto-generated and cannot be modified after creation.
+     * Ids are reserved in blocks from the "weather_data_seq" table so that
+     * Hibernate can batch inserts, which it cannot do with identity columns.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weather_data_seq")
+    @SequenceGenerator(name = "weather_data_seq", sequenceName = "weather_data_seq", allocationSize = 50)
     @Column(name = "id", unique = true, nullable = false, updatable = false)
     private int id;
 
     /**
-     * The name of the city for which the weather data is recorded.
-     * It cannot be null and has a maximum length of 50 characters.
+     * The id of the {@link City} for which the weather data is recorded.
      */
-    @Column(name = "city", nullable = false, length = 50)
+    @JsonIgnore
+    @Column(name = "city_id", nullable = false)
+    private int cityId;
+
+    /**
+     * The canonical name of the city for which the weather data is recorded.
+     * It is read from the "city" table and never written; new readings carry it from the
+     * {@link City} they were recorded for.
+     */
+    @Formula("(SELECT c.name FROM city c WHERE c.id = city_id)")
     private String city;
 
     /**
@@ -0,0 +1,49 @@
+package gr.unipi.weather_app.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * An archived month of weather readings, moved out of "weather_data" into a table of its own.
+ * <p>
+ * Every reading in the table was recorded within the month, so queries over a time range
+ * only read the tables whose month overlaps it. See
+ * {@link gr.unipi.weather_app.repository.WeatherPartitions} for how the readings are partitioned.
+ *
+ * This class is mapped to the "weather_partition" table in the "public" schema using JPA annotations.
+ */
+@Entity
+@Table(name = "weather_partition", schema = "public")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeatherPartition {
+
+    /**
+     * The name of the table holding the readings of the month, e.g. "weather_data_2025_03".
+     */
+    @Id
+    @Column(name = "name", nullable = false, length = 50)
+    private String name;
+
+    /**
+     * The start of the month, inclusive.
+     */
+    @Column(name = "range_start", nullable = false)
+    private LocalDateTime rangeStart;
+
+    /**
+     * The start of the next month, exclusive.
+     */
+    @Column(name = "range_end", nullable = false)
+    private LocalDateTime rangeEnd;
+}
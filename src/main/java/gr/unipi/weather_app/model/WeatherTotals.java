@@ -0,0 +1,63 @@
+package gr.unipi.weather_app.model;
+
+/**
+ * The count and sums of a set of weather readings, from which their averages follow.
+ * <p>
+ * Totals of disjoint sets of readings can be added together, which lets a range be
+ * answered from several pre-aggregated pieces with the same result as a raw scan.
+ *
+ * @param readings       the number of readings
+ * @param temperatureSum the sum of the temperatures
+ * @param humiditySum    the sum of the humidity percentages
+ * @param windSpeedSum   the sum of the wind speeds
+ * @param uvIndexSum     the sum of the UV indexes
+ */
+public record WeatherTotals(long readings, long temperatureSum, long humiditySum, long windSpeedSum, long uvIndexSum) {
+
+    /**
+     * Totals of no readings at all.
+     */
+    public static final WeatherTotals EMPTY = new WeatherTotals(0, 0, 0, 0, 0);
+
+    /**
+     * Adds the totals of another, disjoint set of readings.
+     *
+     * @param other the totals to add, or {@code null} for none
+     * @return the combined totals
+     */
+    public WeatherTotals plus(WeatherTotals other) {
+        if (other == null) {
+            return this;
+        }
+        return new WeatherTotals(readings + other.readings, temperatureSum + other.temperatureSum,
+                humiditySum + other.humiditySum, windSpeedSum + other.windSpeedSum, uvIndexSum + other.uvIndexSum);
+    }
+
+    /**
+     * @return the average temperature in degrees Celsius
+     */
+    public double averageTemperature() {
+        return (double) temperatureSum / readings;
+    }
+
+    /**
+     * @return the average humidity percentage
+     */
+    public double averageHumidity() {
+        return (double) humiditySum / readings;
+    }
+
+    /**
+     * @return the average wind speed in kilometers per hour
+     */
+    public double averageWindSpeed() {
+        return (double) windSpeedSum / readings;
+    }
+
+    /**
+     * @return the average UV index
+     */
+    public double averageUvIndex() {
+        return (double) uvIndexSum / readings;
+    }
+}
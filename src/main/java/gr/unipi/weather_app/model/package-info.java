@@ -3,7 +3,17 @@
  * <p>
  * The model package is responsible for defining the entities that represent
  * the application's data structure. Currently, it contains the {@link gr.unipi.weather_app.model.WeatherData}
- * class, which represents weather data such as temperature, humidity, wind speed, and more.
+ * class, which represents weather data such as temperature, humidity, wind speed, and more,
+ * and the {@link gr.unipi.weather_app.model.CityStats} class, which holds the running totals
+ * of the weather data stored for each city. The {@link gr.unipi.weather_app.model.HourlyWeather}
+ * and {@link gr.unipi.weather_app.model.DailyWeather} classes hold the same totals per city and
+ * hour or day, and {@link gr.unipi.weather_app.model.WeatherTotals} combines them into averages.
+ * The {@link gr.unipi.weather_app.model.CitySearchCount} class holds the number of searches
+ * of each city, and the {@link gr.unipi.weather_app.model.SchedulerLease} class records which node runs a
+ * background job. The {@link gr.unipi.weather_app.model.WeatherPartition} class records each
+ * month of weather data moved out of "weather_data" into an archive table of its own, and the
+ * {@link gr.unipi.weather_app.model.City} class holds the canonical name and id of each city
+ * the readings refer to.
  * <p>
  * The entities in this package are annotated with JPA annotations to enable persistence
  * in a relational database.
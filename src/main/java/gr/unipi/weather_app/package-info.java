@@ -3,6 +3,7 @@
  * <p>
  * This package contains the main application entry point and configuration.
  * The {@link gr.unipi.weather_app.WeatherAppApplication} class initializes the Spring Boot
- * application and provides a command-line interface (CLI) for interacting with weather services.
+ * application. The weather services are used over HTTP through the controllers and, optionally,
+ * through the command-line interface (CLI) in the {@code cli} package.
  */
 package gr.unipi.weather_app;
\ No newline at end of file
@@ -0,0 +1,16 @@
+package gr.unipi.weather_app.provider;
+
+/**
+ * The current weather conditions of a city as reported by the weather API.
+ *
+ * @param temperature the temperature in degrees Celsius
+ * @param humidity    the humidity percentage
+ * @param windSpeed   the wind speed in kilometers per hour
+ * @param uvIndex     the UV index
+ * @param description a brief textual description of the weather conditions
+ * @param area        the name of the area the weather API resolved the city to, or {@code null} if not reported
+ * @param country     the country of that area, or {@code null} if not reported
+ */
+public record CurrentCondition(int temperature, int humidity, int windSpeed, int uvIndex, String description,
+                               String area, String country) {
+}
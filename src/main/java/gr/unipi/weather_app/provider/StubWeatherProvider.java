@@ -0,0 +1,163 @@
+package gr.unipi.weather_app.provider;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process {@link WeatherProvider} answering with made-up weather after a simulated delay.
+ * <p>
+ * It is meant for load tests and benchmarks of the whole service on a machine without
+ * internet access. Every city gets stable conditions derived from its name, varied by a
+ * few degrees per call. No nearest area is reported, so each city keeps the name it was
+ * first searched by. Each call waits for a latency drawn from the configured
+ * {@link LatencyDistribution}, without holding a thread, and then fails with a
+ * {@code 503} or a {@code 429} response at the configured rates.
+ * <p>
+ * Results are deterministic: the n-th call made since startup always draws the same
+ * latency, outcome and variation for a given seed, so runs can be repeated and compared.
+ * Enabled with {@code weather.provider.type=stub}.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.provider.type", havingValue = "stub")
+public class StubWeatherProvider implements WeatherProvider {
+
+    /**
+     * The shapes of simulated latency.
+     */
+    public enum LatencyDistribution {
+        /** Every call takes the median latency. */
+        FIXED,
+        /** Latencies are spread evenly around the median, starting at the minimum. */
+        UNIFORM,
+        /** Latencies follow a log-normal curve through the median and the p99, with a long tail. */
+        LOG_NORMAL
+    }
+
+    /**
+     * The standard normal quantile of the 99th percentile.
+     */
+    private static final double Z_99 = 2.3263478740408408;
+
+    /**
+     * Keeps the random streams of consecutive calls far apart.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static final List<String> DESCRIPTIONS = List.of(
+            "Sunny", "Clear", "Partly cloudy", "Cloudy", "Overcast", "Mist",
+            "Light rain", "Moderate rain", "Heavy rain", "Light snow", "Thundery outbreaks");
+
+    private final long seed;
+    private final LatencyDistribution distribution;
+    private final long minNanos;
+    private final long medianNanos;
+    private final double mu;
+    private final double sigma;
+    private final double errorRate;
+    private final double throttleRate;
+    private final AtomicLong calls = new AtomicLong();
+
+    /**
+     * Constructs a new {@code StubWeatherProvider}.
+     *
+     * @param seed          the seed of all random draws
+     * @param distribution  the shape of the simulated latency
+     * @param minLatency    the lowest latency of a call
+     * @param medianLatency the median latency of a call
+     * @param p99Latency    the 99th percentile of the latency, used by {@link LatencyDistribution#LOG_NORMAL}
+     * @param errorRate     the share of calls failing with {@code 503 Service Unavailable}, between {@code 0} and {@code 1}
+     * @param throttleRate  the share of calls failing with {@code 429 Too Many Requests}, between {@code 0} and {@code 1}
+     */
+    public StubWeatherProvider(@Value("${weather.provider.stub.seed}") long seed,
+                               @Value("${weather.provider.stub.latency.distribution}") LatencyDistribution distribution,
+                               @Value("${weather.provider.stub.latency.min}") Duration minLatency,
+                               @Value("${weather.provider.stub.latency.median}") Duration medianLatency,
+                               @Value("${weather.provider.stub.latency.p99}") Duration p99Latency,
+                               @Value("${weather.provider.stub.error-rate}") double errorRate,
+                               @Value("${weather.provider.stub.throttle-rate}") double throttleRate) {
+        this.seed = seed;
+        this.minNanos = minLatency.toNanos();
+        this.medianNanos = Math.max(medianLatency.toNanos(), minNanos);
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+
+        long spread = medianNanos - minNanos;
+        long tail = p99Latency.toNanos() - minNanos;
+        if (distribution == LatencyDistribution.LOG_NORMAL && (spread == 0 || tail <= spread)) {
+            // Without a tail beyond the median, the curve degenerates into a fixed latency
+            distribution = LatencyDistribution.FIXED;
+        }
+        this.distribution = distribution;
+        this.mu = spread > 0 ? Math.log(spread) : 0;
+        this.sigma = tail > spread && spread > 0 ? Math.log((double) tail / spread) / Z_99 : 0;
+    }
+
+    @Override
+    public Mono<CurrentCondition> fetch(String city) {
+        return Mono.defer(() -> {
+            SplittableRandom random = new SplittableRandom(seed + calls.getAndIncrement() * GOLDEN_GAMMA);
+            Duration latency = Duration.ofNanos(latencyNanos(random));
+            double outcome = random.nextDouble();
+
+            Mono<CurrentCondition> result;
+            if (outcome < errorRate) {
+                result = Mono.error(failure(HttpStatus.SERVICE_UNAVAILABLE, HttpHeaders.EMPTY));
+            } else if (outcome < errorRate + throttleRate) {
+                HttpHeaders headers = new HttpHeaders();
+                headers.set(HttpHeaders.RETRY_AFTER, "1");
+                result = Mono.error(failure(HttpStatus.TOO_MANY_REQUESTS, headers));
+            } else {
+                result = Mono.just(condition(city, random));
+            }
+            return Mono.delay(latency).then(result);
+        });
+    }
+
+    /**
+     * Draws the latency of a call from the configured distribution.
+     */
+    private long latencyNanos(SplittableRandom random) {
+        return switch (distribution) {
+            case FIXED -> medianNanos;
+            case UNIFORM -> minNanos + (long) (random.nextDouble() * 2 * (medianNanos - minNanos));
+            case LOG_NORMAL -> minNanos + (long) Math.exp(mu + sigma * gaussian(random));
+        };
+    }
+
+    /**
+     * Makes up the conditions of a city: stable per city, with a small variation per call.
+     */
+    private static CurrentCondition condition(String city, SplittableRandom random) {
+        SplittableRandom base = new SplittableRandom(city.trim().toLowerCase(Locale.ROOT).hashCode());
+        int temperature = base.nextInt(-10, 36) + random.nextInt(-2, 3);
+        int humidity = Math.clamp(base.nextInt(20, 101) + random.nextInt(-5, 6), 0, 100);
+        int windSpeed = Math.max(0, base.nextInt(0, 41) + random.nextInt(-3, 4));
+        int uvIndex = base.nextInt(0, 12);
+        String description = DESCRIPTIONS.get(base.nextInt(DESCRIPTIONS.size()));
+        return new CurrentCondition(temperature, humidity, windSpeed, uvIndex, description, null, null);
+    }
+
+    /**
+     * Draws a standard normal value with the Box-Muller transform.
+     */
+    private static double gaussian(SplittableRandom random) {
+        double u = 1 - random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static WebClientResponseException failure(HttpStatus status, HttpHeaders headers) {
+        return WebClientResponseException.create(status.value(), status.getReasonPhrase(), headers,
+                new byte[0], null);
+    }
+}
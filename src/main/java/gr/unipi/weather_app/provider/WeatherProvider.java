@@ -0,0 +1,29 @@
+package gr.unipi.weather_app.provider;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A source of current weather conditions, such as an external weather API.
+ * <p>
+ * The service depends only on this interface, so the weather API can be swapped for
+ * another one, or for a local stub, through the {@code weather.provider.type} property.
+ * Implementations report failures of the source the way {@code WebClient} does, with
+ * {@link org.springframework.web.reactive.function.client.WebClientResponseException}
+ * for error responses and
+ * {@link org.springframework.web.reactive.function.client.WebClientRequestException}
+ * for failed requests, so that retries, the circuit breaker and the rate limiter
+ * treat every provider alike.
+ */
+public interface WeatherProvider {
+
+    /**
+     * Fetches the current weather conditions of a city.
+     * <p>
+     * The returned {@link Mono} must be cold and perform a new request on every
+     * subscription, since retries and hedged requests subscribe to it again.
+     *
+     * @param city the name of the city
+     * @return a {@link Mono} emitting the {@link CurrentCondition} of the city
+     */
+    Mono<CurrentCondition> fetch(String city);
+}
@@ -0,0 +1,200 @@
+package gr.unipi.weather_app.provider;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming decoder for the {@code format=j1} JSON document returned by wttr.in.
+ * <p>
+ * Only {@code current_condition[0]} and the area name and country of {@code nearest_area[0]}
+ * are read, token by token, into a {@link CurrentCondition}. Every other field of those
+ * objects is skipped, and decoding stops as soon as both are complete; wttr.in sends them
+ * ahead of the hourly forecast, which is therefore never decoded. A document without a
+ * nearest area is decoded with no area.
+ */
+@Component
+public class WttrResponseParser {
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    /**
+     * Decodes the current weather conditions from a wttr.in JSON document.
+     *
+     * @param body the JSON document
+     * @return the decoded {@link CurrentCondition}
+     * @throws IOException if the document is malformed or has no current condition
+     */
+    public CurrentCondition parse(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return parse(parser);
+        }
+    }
+
+    /**
+     * Decodes the current weather conditions from a wttr.in JSON document.
+     *
+     * @param body the JSON document
+     * @return the decoded {@link CurrentCondition}
+     * @throws IOException if the document is malformed or has no current condition
+     */
+    public CurrentCondition parse(byte[] body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return parse(parser);
+        }
+    }
+
+    private CurrentCondition parse(JsonParser parser) throws IOException {
+        expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+        CurrentCondition condition = null;
+        Area area = null;
+
+        while ((condition == null || area == null) && parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if ("current_condition".equals(field) && condition == null) {
+                expect(parser, value, JsonToken.START_ARRAY);
+                expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+                condition = readCondition(parser);
+                skipRemainingElements(parser);
+            } else if ("nearest_area".equals(field) && area == null) {
+                expect(parser, value, JsonToken.START_ARRAY);
+                area = readArea(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (condition == null) {
+            throw new JsonParseException(parser, "No current_condition in weather API response");
+        }
+        return area == null ? condition : new CurrentCondition(condition.temperature(), condition.humidity(),
+                condition.windSpeed(), condition.uvIndex(), condition.description(), area.name(), area.country());
+    }
+
+    private CurrentCondition readCondition(JsonParser parser) throws IOException {
+        Integer temperature = null;
+        Integer humidity = null;
+        Integer windSpeed = null;
+        Integer uvIndex = null;
+        String description = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "temp_C" -> temperature = readInt(parser);
+                case "humidity" -> humidity = readInt(parser);
+                case "windspeedKmph" -> windSpeed = readInt(parser);
+                case "uvIndex" -> uvIndex = readInt(parser);
+                case "weatherDesc" -> description = readFirstValue(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (temperature == null || humidity == null || windSpeed == null || uvIndex == null || description == null) {
+            throw new JsonParseException(parser, "Incomplete current_condition in weather API response");
+        }
+        return new CurrentCondition(temperature, humidity, windSpeed, uvIndex, description, null, null);
+    }
+
+    /**
+     * Reads the area name and country of the first element of {@code nearest_area}, skipping the rest of the array.
+     */
+    private Area readArea(JsonParser parser) throws IOException {
+        String name = null;
+        String country = null;
+
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+
+                switch (field) {
+                    case "areaName" -> name = readFirstValue(parser);
+                    case "country" -> country = readFirstValue(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+        if (token != JsonToken.END_ARRAY) {
+            skipRemainingElements(parser);
+        }
+        return new Area(name, country);
+    }
+
+    /**
+     * Reads an integer that wttr.in may encode either as a number or as a numeric string.
+     */
+    private int readInt(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getIntValue();
+        }
+        expect(parser, parser.currentToken(), JsonToken.VALUE_STRING);
+        try {
+            return Integer.parseInt(parser.getText().trim());
+        } catch (NumberFormatException e) {
+            throw new JsonParseException(parser, "Invalid number in weather API response", e);
+        }
+    }
+
+    /**
+     * Reads the {@code value} of the first element of an array such as {@code [{"value": "Sunny"}]}.
+     */
+    private String readFirstValue(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_ARRAY);
+        String value = null;
+
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_OBJECT) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("value".equals(field) && value == null) {
+                    value = parser.getValueAsString();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } else {
+            parser.skipChildren();
+        }
+        if (token != JsonToken.END_ARRAY) {
+            skipRemainingElements(parser);
+        }
+        return value;
+    }
+
+    /**
+     * Skips the elements of an array after the one just read, up to the end of the array.
+     */
+    private static void skipRemainingElements(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        while (token != null && token != JsonToken.END_ARRAY) {
+            parser.skipChildren();
+            token = parser.nextToken();
+        }
+    }
+
+    /**
+     * The area the weather API resolved the requested city to.
+     */
+    private record Area(String name, String country) {
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but found " + actual + " in weather API response");
+        }
+    }
+}
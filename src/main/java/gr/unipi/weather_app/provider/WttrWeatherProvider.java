@@ -0,0 +1,77 @@
+package gr.unipi.weather_app.provider;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * {@link WeatherProvider} fetching the current weather conditions from wttr.in.
+ * <p>
+ * This is the default provider. Each fetch requests the {@code format=j1} JSON document
+ * of the city through the configured {@link WebClient} and decodes it with the
+ * {@link WttrResponseParser}, straight from the response buffers.
+ */
+@Component
+@ConditionalOnProperty(name = "weather.provider.type", havingValue = "wttr", matchIfMissing = true)
+public class WttrWeatherProvider implements WeatherProvider {
+
+    private final WebClient webClient;
+    private final WttrResponseParser responseParser;
+
+    /**
+     * The URL extension for the weather API.
+     * <p>
+     * The `%s` placeholder in the URL represents the city name,
+     * and `j1` indicates the JSON format.
+     */
+    @Value("${weather.api.url-params}")
+    private String urlParams;
+
+    /**
+     * Constructs a new {@code WttrWeatherProvider}.
+     *
+     * @param webClient      the WebClient used to call wttr.in
+     * @param responseParser the decoder for the responses of wttr.in
+     */
+    public WttrWeatherProvider(WebClient webClient, WttrResponseParser responseParser) {
+        this.webClient = webClient;
+        this.responseParser = responseParser;
+    }
+
+    @Override
+    public Mono<CurrentCondition> fetch(String city) {
+        String url = String.format(urlParams, city);
+
+        Flux<DataBuffer> body = webClient.get()
+                .uri(url)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class);
+
+        return DataBufferUtils.join(body)
+                .switchIfEmpty(Mono.error(() -> new RuntimeException("No response from weather API")))
+                .map(this::decode);
+    }
+
+    /**
+     * Decodes the current weather conditions from the body of a weather API response.
+     *
+     * @param buffer the response body, released once it has been read
+     * @return the decoded {@link CurrentCondition}
+     */
+    private CurrentCondition decode(DataBuffer buffer) {
+        try (InputStream in = buffer.asInputStream(true)) {
+            return responseParser.parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * This package contains the classes used to talk to the external weather API.
+ * <p>
+ * The provider package is responsible for fetching the current weather conditions of
+ * a city as typed values. The service depends only on the
+ * {@link gr.unipi.weather_app.provider.WeatherProvider} interface, whose implementation
+ * is selected with the {@code weather.provider.type} property.
+ * <p>
+ * Currently, it includes the {@link gr.unipi.weather_app.provider.WttrWeatherProvider}
+ * class, which calls wttr.in, the {@link gr.unipi.weather_app.provider.WttrResponseParser}
+ * class, which decodes the current conditions of a wttr.in response into a
+ * {@link gr.unipi.weather_app.provider.CurrentCondition} without building the whole document,
+ * and the {@link gr.unipi.weather_app.provider.StubWeatherProvider} class, which answers
+ * in-process with deterministic made-up weather, latency and errors for load tests.
+ */
+package gr.unipi.weather_app.provider;
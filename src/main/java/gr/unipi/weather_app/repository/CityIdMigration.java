@@ -0,0 +1,201 @@
+package gr.unipi.weather_app.repository;
+
+import gr.unipi.weather_app.model.City;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The Flyway migration replacing the city names of the raw readings by the ids of a "city" table.
+ * <p>
+ * Readings used to repeat the city name exactly as it was searched, so "athens", "Athens "
+ * and "ATHENS" were stored, counted and ranked as three cities. The names found in the
+ * partitions, the per-city totals and the search counts are grouped by their
+ * {@link City#key(String) key}, and each group becomes one city, named after the spelling
+ * with the most readings, with its key as the first alias. Every partition is then rebuilt
+ * with a "city_id" column in place of the name, and the rows the per-city totals, the
+ * hourly and daily buckets and the search counts held under the other spellings are added
+ * to the ones of the city name.
+ * <p>
+ * A database of a release before the searches were counted holds no search counts, and no
+ * per-city totals either until they are rebuilt, so its ranking is started here from the
+ * readings of each city: every stored reading used to record one search.
+ * <p>
+ * Spring Boot hands this bean to Flyway along with the SQL migrations in {@code db/migration}.
+ */
+@Slf4j
+@Component
+public class CityIdMigration implements JavaMigration {
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("2");
+    }
+
+    @Override
+    public String getDescription() {
+        return "city ids";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        jdbc.execute("CREATE TABLE city (id integer, name varchar(50) not null, country varchar(100), primary key (id))");
+        jdbc.execute("CREATE UNIQUE INDEX uk_city_name ON city (name)");
+        jdbc.execute("CREATE TABLE city_alias (alias varchar(100) not null, city_id integer not null, primary key (alias))");
+
+        List<String> tables = WeatherPartitions.tables(jdbc, null, null);
+        Map<String, Long> readings = readings(jdbc, tables);
+        int cities = createCities(jdbc, readings);
+        for (String table : tables) {
+            replaceCityNames(jdbc, table);
+        }
+        mergeRollups(jdbc);
+        importSearchCounts(jdbc);
+        jdbc.execute("DROP TABLE city_migration_name");
+        log.info("Moved the readings of {} partitions to the ids of {} cities", tables.size(), cities);
+    }
+
+    /**
+     * Counts the readings stored under each name, in the partitions or, once downsampled, in the per-city totals.
+     */
+    private static Map<String, Long> readings(JdbcTemplate jdbc, List<String> tables) {
+        Map<String, Long> readings = new HashMap<>();
+        for (String table : tables) {
+            jdbc.query("SELECT city, COUNT(*) FROM " + table + " GROUP BY city",
+                    result -> { readings.merge(result.getString(1), result.getLong(2), Long::sum); });
+        }
+        jdbc.query("SELECT city, readings FROM city_stats",
+                result -> { readings.merge(result.getString(1), result.getLong(2), Math::max); });
+        jdbc.query("SELECT city FROM city_search_count",
+                result -> { readings.merge(result.getString(1), 0L, Math::max); });
+        return readings;
+    }
+
+    /**
+     * Creates a city for each key of the stored names, and maps every stored name to its city in a temporary table.
+     */
+    private static int createCities(JdbcTemplate jdbc, Map<String, Long> readings) {
+        Map<String, List<String>> namesByKey = new TreeMap<>();
+        readings.keySet().forEach(name -> namesByKey.computeIfAbsent(City.key(name), key -> new ArrayList<>()).add(name));
+
+        jdbc.execute("CREATE TEMP TABLE city_migration_name (name varchar(50) not null, city_id integer not null, " +
+                "readings bigint not null, primary key (name))");
+        List<Object[]> cities = new ArrayList<>();
+        List<Object[]> names = new ArrayList<>();
+        namesByKey.forEach((key, spellings) -> {
+            int id = cities.size() + 1;
+            // The most read spelling, and of equally read ones the first, which is capitalized if any is
+            String name = spellings.stream()
+                    .min(Comparator.comparing((String spelling) -> -readings.get(spelling)).thenComparing(spelling -> spelling))
+                    .orElseThrow();
+            cities.add(new Object[]{id, City.normalize(name), key});
+            spellings.forEach(spelling -> names.add(new Object[]{spelling, id, readings.get(spelling)}));
+        });
+        jdbc.batchUpdate("INSERT INTO city (id, name) VALUES (?, ?)",
+                cities.stream().map(city -> new Object[]{city[0], city[1]}).toList());
+        jdbc.batchUpdate("INSERT INTO city_alias (alias, city_id) VALUES (?, ?)",
+                cities.stream().map(city -> new Object[]{city[2], city[0]}).toList());
+        jdbc.batchUpdate("INSERT INTO city_migration_name (name, city_id, readings) VALUES (?, ?, ?)", names);
+        return cities.size();
+    }
+
+    /**
+     * Rebuilds a partition with the ids of the cities in place of their names.
+     */
+    private static void replaceCityNames(JdbcTemplate jdbc, String table) {
+        jdbc.execute("DROP INDEX IF EXISTS idx_" + table + "_city_timestamp");
+        jdbc.execute("DROP INDEX IF EXISTS idx_" + table + "_timestamp");
+        jdbc.execute("ALTER TABLE " + table + " RENAME TO city_migration_readings");
+        WeatherPartitions.createTable(jdbc, table);
+        jdbc.update("INSERT INTO " + table + " (" + WeatherPartitions.COLUMNS + ") " +
+                "SELECT r.id, n.city_id, r.temperature, r.humidity, r.wind_speed, r.uv_index, r.weather_description, " +
+                "r.timestamp FROM city_migration_readings r JOIN city_migration_name n ON n.name = r.city ORDER BY r.id");
+        jdbc.execute("DROP TABLE city_migration_readings");
+    }
+
+    /**
+     * Starts the search counts from the readings of each city, unless searches were already counted.
+     */
+    private static void importSearchCounts(JdbcTemplate jdbc) {
+        jdbc.update("INSERT INTO city_search_count (city, searches) " +
+                "SELECT c.name, SUM(n.readings) FROM city_migration_name n JOIN city c ON c.id = n.city_id " +
+                "WHERE NOT EXISTS (SELECT 1 FROM city_search_count) GROUP BY c.name HAVING SUM(n.readings) > 0");
+    }
+
+    /**
+     * Adds the rows of the per-city tables held under other spellings of a city to the rows of its name.
+     */
+    private static void mergeRollups(JdbcTemplate jdbc) {
+        String respelled = " FROM %s t JOIN city_migration_name n ON n.name = t.city JOIN city c ON c.id = n.city_id " +
+                "WHERE t.city <> c.name";
+
+        jdbc.update("INSERT INTO city_stats (city, readings, temperature_sum, humidity_sum, wind_speed_sum, uv_index_sum, " +
+                "temperature_min, temperature_max, humidity_min, humidity_max, wind_speed_min, wind_speed_max, " +
+                "uv_index_min, uv_index_max) " +
+                "SELECT c.name, SUM(t.readings), SUM(t.temperature_sum), SUM(t.humidity_sum), SUM(t.wind_speed_sum), " +
+                "SUM(t.uv_index_sum), MIN(t.temperature_min), MAX(t.temperature_max), MIN(t.humidity_min), " +
+                "MAX(t.humidity_max), MIN(t.wind_speed_min), MAX(t.wind_speed_max), MIN(t.uv_index_min), " +
+                "MAX(t.uv_index_max)" + respelled.formatted("city_stats") + " GROUP BY c.name " +
+                "ON CONFLICT (city) DO UPDATE SET " +
+                "readings = readings + excluded.readings, " +
+                "temperature_sum = temperature_sum + excluded.temperature_sum, " +
+                "humidity_sum = humidity_sum + excluded.humidity_sum, " +
+                "wind_speed_sum = wind_speed_sum + excluded.wind_speed_sum, " +
+                "uv_index_sum = uv_index_sum + excluded.uv_index_sum, " +
+                "temperature_min = MIN(temperature_min, excluded.temperature_min), " +
+                "temperature_max = MAX(temperature_max, excluded.temperature_max), " +
+                "humidity_min = MIN(humidity_min, excluded.humidity_min), " +
+                "humidity_max = MAX(humidity_max, excluded.humidity_max), " +
+                "wind_speed_min = MIN(wind_speed_min, excluded.wind_speed_min), " +
+                "wind_speed_max = MAX(wind_speed_max, excluded.wind_speed_max), " +
+                "uv_index_min = MIN(uv_index_min, excluded.uv_index_min), " +
+                "uv_index_max = MAX(uv_index_max, excluded.uv_index_max)");
+
+        for (String buckets : List.of("weather_hourly", "weather_daily")) {
+            jdbc.update("INSERT INTO " + buckets + " (city, bucket_start, readings, temperature_sum, humidity_sum, " +
+                    "wind_speed_sum, uv_index_sum, temperature_min, temperature_max) " +
+                    "SELECT c.name, t.bucket_start, SUM(t.readings), SUM(t.temperature_sum), SUM(t.humidity_sum), " +
+                    "SUM(t.wind_speed_sum), SUM(t.uv_index_sum), MIN(t.temperature_min), MAX(t.temperature_max)" +
+                    respelled.formatted(buckets) + " GROUP BY c.name, t.bucket_start " +
+                    "ON CONFLICT (bucket_start, city) DO UPDATE SET " +
+                    "readings = readings + excluded.readings, " +
+                    "temperature_sum = temperature_sum + excluded.temperature_sum, " +
+                    "humidity_sum = humidity_sum + excluded.humidity_sum, " +
+                    "wind_speed_sum = wind_speed_sum + excluded.wind_speed_sum, " +
+                    "uv_index_sum = uv_index_sum + excluded.uv_index_sum, " +
+                    "temperature_min = MIN(temperature_min, excluded.temperature_min), " +
+                    "temperature_max = MAX(temperature_max, excluded.temperature_max)");
+        }
+
+        jdbc.update("INSERT INTO city_search_count (city, searches) SELECT c.name, SUM(t.searches)" +
+                respelled.formatted("city_search_count") + " GROUP BY c.name " +
+                "ON CONFLICT (city) DO UPDATE SET searches = searches + excluded.searches");
+
+        for (String table : List.of("city_stats", "weather_hourly", "weather_daily", "city_search_count")) {
+            jdbc.update("DELETE FROM " + table + " WHERE city IN (SELECT n.name FROM city_migration_name n " +
+                    "JOIN city c ON c.id = n.city_id WHERE n.name <> c.name)");
+        }
+    }
+}
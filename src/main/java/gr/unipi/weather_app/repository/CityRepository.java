@@ -0,0 +1,51 @@
+package gr.unipi.weather_app.repository;
+
+import gr.unipi.weather_app.model.City;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for managing {@link City} entities and their aliases.
+ * <p>
+ * Each alias in the "city_alias" table maps a {@link City#key(String) key} a city was
+ * searched for by, including the key of its own name, to the id of the city.
+ */
+@Repository
+public interface CityRepository extends JpaRepository<City, Integer> {
+
+    /**
+     * Finds the city an alias resolves to.
+     *
+     * @param alias the key the city was searched for by
+     * @return the city, if the alias is known
+     */
+    @Query(value = "SELECT c.* FROM city_alias a JOIN city c ON c.id = a.city_id WHERE a.alias = :alias",
+            nativeQuery = true)
+    Optional<City> findByAlias(@Param("alias") String alias);
+
+    /**
+     * Retrieves every alias with the id of its city.
+     *
+     * @return a list of Object arrays, where each array contains an alias and a city id
+     */
+    @Query(value = "SELECT alias, city_id FROM city_alias", nativeQuery = true)
+    List<Object[]> findAllAliases();
+
+    /**
+     * Records an alias of a city, unless the alias is already taken.
+     *
+     * @param alias  the key the city was searched for by
+     * @param cityId the id of the city
+     */
+    @Modifying
+    @Query(value = "INSERT INTO city_alias (alias, city_id) VALUES (:alias, :cityId) ON CONFLICT (alias) DO NOTHING",
+            nativeQuery = true)
+    void addAlias(@Param("alias") String alias, @Param("cityId") int cityId);
+
+}
@@ -0,0 +1,54 @@
+package gr.unipi.weather_app.repository;
+
+import gr.unipi.weather_app.model.CitySearchCount;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for managing {@link CitySearchCount} entities.
+ * <p>
+ * Counts are only ever increased through atomic upserts, so nodes sharing the
+ * database add their searches without losing each other's.
+ */
+@Repository
+public interface CitySearchCountRepository extends JpaRepository<CitySearchCount, String> {
+
+    /**
+     * Adds a number of searches to the count of a city, creating the row for a city searched for the first time.
+     *
+     * @param city     the name of the city
+     * @param searches the number of new searches
+     */
+    @Modifying
+    @Query(value = "INSERT INTO city_search_count (city, searches) VALUES (:city, :searches) " +
+            "ON CONFLICT (city) DO UPDATE SET searches = searches + excluded.searches", nativeQuery = true)
+    void add(@Param("city") String city, @Param("searches") long searches);
+
+    /**
+     * Retrieves the most searched cities, following the index on the counts.
+     *
+     * @param limit the maximum number of cities to return
+     * @return the counts of the most searched cities, highest first
+     */
+    List<CitySearchCount> findByOrderBySearchesDesc(Limit limit);
+
+    /**
+     * Starts the counts from the readings stored per city, if no search was counted yet.
+     * <p>
+     * Every stored reading used to record one search, so databases created before the
+     * searches were counted separately keep their ranking.
+     *
+     * @return the number of cities imported
+     */
+    @Modifying
+    @Query(value = "INSERT INTO city_search_count (city, searches) SELECT city, readings FROM city_stats " +
+            "WHERE NOT EXISTS (SELECT 1 FROM city_search_count)", nativeQuery = true)
+    int importFromCityStats();
+
+}
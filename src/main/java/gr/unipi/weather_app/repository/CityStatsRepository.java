@@ -0,0 +1,48 @@
+package gr.unipi.weather_app.repository;
+
+import gr.unipi.weather_app.model.CityStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing {@link CityStats} entities.
+ * <p>
+ * The totals are only ever changed through atomic upserts and full rebuilds,
+ * so concurrent batches never lose each other's updates.
+ */
+@Repository
+public interface CityStatsRepository extends JpaRepository<CityStats, String> {
+
+    /**
+     * Adds the totals of a batch of readings to the stored totals of their city,
+     * creating the row for a city seen for the first time.
+     *
+     * @param stats the totals of the new readings of one city
+     */
+    @Modifying
+    @Query(value = "INSERT INTO city_stats (city, readings, temperature_sum, humidity_sum, wind_speed_sum, uv_index_sum, " +
+            "temperature_min, temperature_max, humidity_min, humidity_max, wind_speed_min, wind_speed_max, uv_index_min, uv_index_max) " +
+            "VALUES (:#{#stats.city}, :#{#stats.readings}, :#{#stats.temperatureSum}, :#{#stats.humiditySum}, " +
+            ":#{#stats.windSpeedSum}, :#{#stats.uvIndexSum}, :#{#stats.temperatureMin}, :#{#stats.temperatureMax}, " +
+            ":#{#stats.humidityMin}, :#{#stats.humidityMax}, :#{#stats.windSpeedMin}, :#{#stats.windSpeedMax}, " +
+            ":#{#stats.uvIndexMin}, :#{#stats.uvIndexMax}) " +
+            "ON CONFLICT (city) DO UPDATE SET " +
+            "readings = readings + excluded.readings, " +
+            "temperature_sum = temperature_sum + excluded.temperature_sum, " +
+            "humidity_sum = humidity_sum + excluded.humidity_sum, " +
+            "wind_speed_sum = wind_speed_sum + excluded.wind_speed_sum, " +
+            "uv_index_sum = uv_index_sum + excluded.uv_index_sum, " +
+            "temperature_min = MIN(temperature_min, excluded.temperature_min), " +
+            "temperature_max = MAX(temperature_max, excluded.temperature_max), " +
+            "humidity_min = MIN(humidity_min, excluded.humidity_min), " +
+            "humidity_max = MAX(humidity_max, excluded.humidity_max), " +
+            "wind_speed_min = MIN(wind_speed_min, excluded.wind_speed_min), " +
+            "wind_speed_max = MAX(wind_speed_max, excluded.wind_speed_max), " +
+            "uv_index_min = MIN(uv_index_min, excluded.uv_index_min), " +
+            "uv_index_max = MAX(uv_index_max, excluded.uv_index_max)", nativeQuery = true)
+    void add(@Param("stats") CityStats stats);
+
+}
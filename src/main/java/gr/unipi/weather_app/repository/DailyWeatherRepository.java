@@ -0,0 +1,32 @@
+package gr.unipi.weather_app.repository;
+
+import gr.unipi.weather_app.model.DailyWeather;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for managing {@link DailyWeather} buckets.
+ */
+@Repository
+public interface DailyWeatherRepository extends WeatherBucketRepository<DailyWeather> {
+
+    @Override
+    @Modifying
+    @Query(value = "INSERT INTO weather_daily (city, bucket_start, readings, temperature_sum, humidity_sum, " +
+            "wind_speed_sum, uv_index_sum, temperature_min, temperature_max) " +
+            "VALUES (:#{#bucket.city}, :#{#bucket.bucketStart}, :#{#bucket.readings}, :#{#bucket.temperatureSum}, " +
+            ":#{#bucket.humiditySum}, :#{#bucket.windSpeedSum}, :#{#bucket.uvIndexSum}, " +
+            ":#{#bucket.temperatureMin}, :#{#bucket.temperatureMax}) " +
+            "ON CONFLICT (city, bucket_start) DO UPDATE SET " +
+            "readings = readings + excluded.readings, " +
+            "temperature_sum = temperature_sum + excluded.temperature_sum, " +
+            "humidity_sum = humidity_sum + excluded.humidity_sum, " +
+            "wind_speed_sum = wind_speed_sum + excluded.wind_speed_sum, " +
+            "uv_index_sum = uv_index_sum + excluded.uv_index_sum, " +
+            "temperature_min = MIN(temperature_min, excluded.temperature_min), " +
+            "temperature_max = MAX(temperature_max, excluded.temperature_max)", nativeQuery = true)
+    void add(@Param("bucket") DailyWeather bucket);
+
+}
@@ -0,0 +1,65 @@
+package gr.unipi.weather_app.repository;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.model.WeatherTotals;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Queries over the raw weather readings, which are spread over the monthly partitions
+ * described in {@link WeatherPartitions}.
+ * <p>
+ * Each query reads the catalog and only the partitions overlapping its time range, in one
+ * read-only transaction. {@link WeatherRepository} extends this interface, so the queries
+ * are called on the repository like its own.
+ */
+@Transactional(readOnly = true)
+public interface PartitionedWeatherQueries {
+
+    /**
+     * Finds the latest stored reading of a city, following the city and timestamp index of
+     * the hot partition and, if needed, of the archives from the newest one back.
+     *
+     * @param city the canonical name of the city.
+     * @return the latest {@link WeatherData} of the city, if any.
+     */
+    Optional<WeatherData> findLatestByCity(String city);
+
+    /**
+     * Retrieves the totals of the temperature, humidity, wind speed, and UV index
+     * for weather data recorded within a given time range.
+     * <p>
+     * Only meant for ranges shorter than an hour, which the hourly buckets do not cover;
+     * the rows are found through the timestamp index of each partition overlapping the range.
+     *
+     * @param from the inclusive start of the range.
+     * @param to   the exclusive end of the range.
+     * @return the combined {@link WeatherTotals} of all cities.
+     */
+    WeatherTotals getTotalsBetween(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Streams the readings recorded from a given time on, in the order they were recorded.
+     * <p>
+     * Used to rebuild the time-bucketed totals. The partitions are merged through their
+     * timestamp indexes, so nothing is sorted. The stream must be consumed inside a transaction.
+     *
+     * @param from the inclusive start of the readings.
+     * @return a stream of Object arrays, where each array contains a city name, temperature,
+     *         humidity, wind speed, UV index and timestamp.
+     */
+    Stream<Object[]> streamByTimestamp(LocalDateTime from);
+
+    /**
+     * Finds the time of the oldest stored raw reading.
+     * <p>
+     * Readings older than it have been downsampled into the hourly and daily buckets, if any.
+     *
+     * @return the timestamp of the oldest reading, or empty if no reading is stored.
+     */
+    Optional<LocalDateTime> findOldestTimestamp();
+
+}
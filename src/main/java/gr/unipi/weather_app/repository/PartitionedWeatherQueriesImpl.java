@@ -0,0 +1,106 @@
+package gr.unipi.weather_app.repository;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.model.WeatherPartition;
+import gr.unipi.weather_app.model.WeatherTotals;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * The JDBC implementation of the {@link PartitionedWeatherQueries}.
+ * <p>
+ * The queries run through a {@link JdbcTemplate} on the data source of the persistence
+ * unit, so they take part in the transaction of the repository call and read the catalog
+ * and the partitions on the same connection.
+ */
+public class PartitionedWeatherQueriesImpl implements PartitionedWeatherQueries {
+
+    /**
+     * The number of rows a stream fetches at a time.
+     */
+    private static final int FETCH_SIZE = 256;
+
+    /**
+     * The readings of a partition with the names of their cities, with {@code %s} in place of the table name.
+     */
+    private static final String SELECT_WITH_CITY = "SELECT w.id, w.city_id, c.name, w.temperature, w.humidity, " +
+            "w.wind_speed, w.uv_index, w.weather_description, w.timestamp FROM %s w JOIN city c ON c.id = w.city_id";
+
+    private static final RowMapper<WeatherData> WEATHER_DATA = (result, row) -> new WeatherData(result.getInt(1),
+            result.getInt(2), result.getString(3), result.getInt(4), result.getInt(5), result.getInt(6),
+            result.getInt(7), result.getString(8), result.getTimestamp(9).toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Constructs a new {@code PartitionedWeatherQueriesImpl}.
+     *
+     * @param dataSource the data source of the persistence unit
+     */
+    public PartitionedWeatherQueriesImpl(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @Override
+    public Optional<WeatherData> findLatestByCity(String city) {
+        WeatherData latest = latest(WeatherPartitions.HOT, city);
+        List<WeatherPartition> archives = WeatherPartitions.archives(jdbcTemplate, null, null);
+        for (int i = archives.size() - 1; i >= 0; i--) {
+            WeatherPartition archive = archives.get(i);
+            // Readings of later months are all newer than the ones of this archive
+            if (latest != null && !latest.getTimestamp().isBefore(archive.getRangeEnd())) {
+                break;
+            }
+            WeatherData candidate = latest(archive.getName(), city);
+            if (candidate != null && (latest == null || candidate.getTimestamp().isAfter(latest.getTimestamp()))) {
+                latest = candidate;
+            }
+        }
+        return Optional.ofNullable(latest);
+    }
+
+    private WeatherData latest(String table, String city) {
+        List<WeatherData> latest = jdbcTemplate.query(SELECT_WITH_CITY.formatted(table) +
+                " WHERE w.city_id = (SELECT id FROM city WHERE name = ?) ORDER BY w.timestamp DESC LIMIT 1",
+                WEATHER_DATA, city);
+        return latest.isEmpty() ? null : latest.getFirst();
+    }
+
+    @Override
+    public WeatherTotals getTotalsBetween(LocalDateTime from, LocalDateTime to) {
+        WeatherTotals totals = WeatherTotals.EMPTY;
+        for (String table : WeatherPartitions.tables(jdbcTemplate, from, to)) {
+            totals = totals.plus(jdbcTemplate.queryForObject("SELECT COUNT(*), COALESCE(SUM(temperature), 0), " +
+                            "COALESCE(SUM(humidity), 0), COALESCE(SUM(wind_speed), 0), COALESCE(SUM(uv_index), 0) " +
+                            "FROM " + table + " WHERE timestamp >= ? AND timestamp < ?",
+                    (result, row) -> new WeatherTotals(result.getLong(1), result.getLong(2), result.getLong(3),
+                            result.getLong(4), result.getLong(5)),
+                    Timestamp.valueOf(from), Timestamp.valueOf(to)));
+        }
+        return totals;
+    }
+
+    @Override
+    public Stream<Object[]> streamByTimestamp(LocalDateTime from) {
+        List<String> tables = WeatherPartitions.tables(jdbcTemplate, from, null);
+        String sql = WeatherPartitions.unionAll(tables, "SELECT c.name, w.temperature, w.humidity, w.wind_speed, " +
+                "w.uv_index, w.timestamp AS timestamp FROM %s w JOIN city c ON c.id = w.city_id WHERE w.timestamp >= ?") +
+                " ORDER BY timestamp";
+        return jdbcTemplate.queryForStream(sql, (result, row) -> new Object[]{result.getString(1), result.getInt(2),
+                        result.getInt(3), result.getInt(4), result.getInt(5), result.getTimestamp(6).toLocalDateTime()},
+                WeatherPartitions.repeat(tables.size(), List.of(Timestamp.valueOf(from))));
+    }
+
+    @Override
+    public Optional<LocalDateTime> findOldestTimestamp() {
+        return Optional.ofNullable(WeatherPartitions.oldest(jdbcTemplate, WeatherPartitions.tables(jdbcTemplate, null, null)));
+    }
+}
@@ -0,0 +1,52 @@
+package gr.unipi.weather_app.repository;
+
+import gr.unipi.weather_app.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Repository interface for managing {@link SchedulerLease} entities.
+ * <p>
+ * Leases are taken and renewed with a single conditional upsert, so two nodes
+ * can never both succeed for the same unexpired lease.
+ */
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    /**
+     * Takes or renews a lease for a node.
+     * <p>
+     * The lease is created if it does not exist, and updated if the node already holds it
+     * or it has expired. A lease held by another node is left unchanged.
+     *
+     * @param name      the name of the job
+     * @param owner     the identifier of the node
+     * @param now       the current time, in milliseconds since the epoch
+     * @param expiresAt the new expiry time of the lease, in milliseconds since the epoch
+     * @return {@code 1} if the node holds the lease afterwards, {@code 0} otherwise
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO scheduler_lease (name, owner, expires_at) VALUES (:name, :owner, :expiresAt) " +
+            "ON CONFLICT (name) DO UPDATE SET owner = excluded.owner, expires_at = excluded.expires_at " +
+            "WHERE scheduler_lease.owner = excluded.owner OR scheduler_lease.expires_at < :now", nativeQuery = true)
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("now") long now,
+                @Param("expiresAt") long expiresAt);
+
+    /**
+     * Gives up a lease held by a node, so that another node can take it over at once.
+     *
+     * @param name  the name of the job
+     * @param owner the identifier of the node
+     * @return the number of released leases
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM SchedulerLease l WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+
+}
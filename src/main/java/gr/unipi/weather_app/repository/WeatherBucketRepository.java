@@ -0,0 +1,69 @@
+package gr.unipi.weather_app.repository;
+
+import gr.unipi.weather_app.model.WeatherBucket;
+import gr.unipi.weather_app.model.WeatherTotals;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Base repository interface for the time-bucketed weather totals.
+ * <p>
+ * Each granularity declares its own repository, providing the native upsert
+ * for its table.
+ *
+ * @param <T> the bucket entity type
+ */
+@NoRepositoryBean
+public interface WeatherBucketRepository<T extends WeatherBucket> extends JpaRepository<T, WeatherBucket.Key> {
+
+    /**
+     * Adds the totals of new readings to the stored bucket of their city,
+     * creating the bucket if it does not exist yet.
+     *
+     * @param bucket the totals of the new readings of one city within one bucket
+     */
+    void add(T bucket);
+
+    /**
+     * Retrieves the combined totals of all buckets starting within a time range.
+     *
+     * @param from the inclusive start of the range
+     * @param to   the exclusive end of the range
+     * @return the combined {@link WeatherTotals} of all cities
+     */
+    @Query("SELECT new gr.unipi.weather_app.model.WeatherTotals(COALESCE(SUM(b.readings), 0), " +
+            "COALESCE(SUM(b.temperatureSum), 0), COALESCE(SUM(b.humiditySum), 0), " +
+            "COALESCE(SUM(b.windSpeedSum), 0), COALESCE(SUM(b.uvIndexSum), 0)) " +
+            "FROM #{#entityName} b WHERE b.bucketStart >= :from AND b.bucketStart < :to")
+    WeatherTotals getTotalsBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * Retrieves the combined totals of each city over all buckets starting before a given time.
+     *
+     * @param before the exclusive end of the buckets
+     * @return a list of Object arrays, where each array contains a city name, the number of readings,
+     *         the sums of the temperatures, humidity percentages, wind speeds and UV indexes,
+     *         and the lowest and highest temperatures
+     */
+    @Query("SELECT b.city, SUM(b.readings), SUM(b.temperatureSum), SUM(b.humiditySum), SUM(b.windSpeedSum), " +
+            "SUM(b.uvIndexSum), MIN(b.temperatureMin), MAX(b.temperatureMax) " +
+            "FROM #{#entityName} b WHERE b.bucketStart < :before GROUP BY b.city")
+    List<Object[]> findTotalsByCityBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * Deletes the buckets starting at or after a given time.
+     *
+     * @param from the inclusive start of the deleted buckets
+     * @return the number of deleted buckets
+     */
+    @Modifying
+    @Query("DELETE FROM #{#entityName} b WHERE b.bucketStart >= :from")
+    int deleteFrom(@Param("from") LocalDateTime from);
+
+}
@@ -0,0 +1,183 @@
+package gr.unipi.weather_app.repository;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.model.WeatherPartition;
+import org.springframework.jdbc.core.JdbcOperations;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The tables the raw weather readings are partitioned into by month.
+ * <p>
+ * New readings are inserted into "weather_data", the hot partition mapped by {@link WeatherData}.
+ * Once a month is over, the partition maintenance moves its readings into an archive table
+ * named after it, such as "weather_data_2025_03", and records the month in the
+ * "weather_partition" catalog mapped by {@link WeatherPartition}. Archives carry the same
+ * columns and the same city and timestamp and timestamp indexes as the hot partition. Readings
+ * refer to their city by the id of its row in the "city" table, which queries needing the
+ * names join.
+ * <p>
+ * A query over a time range reads the catalog and then only the archives whose month overlaps
+ * the range, together with the hot partition, which may still hold readings of past months
+ * waiting to be moved. Both must be read in the same transaction, so the query sees the
+ * catalog and the tables from the same snapshot while readings are moved or deleted.
+ * Table names only ever come from the catalog or from {@link #archiveName(YearMonth)}.
+ */
+public final class WeatherPartitions {
+
+    /**
+     * The table new readings are inserted into.
+     */
+    public static final String HOT = "weather_data";
+
+    /**
+     * The columns of every partition, in the order they are read and copied.
+     */
+    public static final String COLUMNS = "id, city_id, temperature, humidity, wind_speed, uv_index, weather_description, timestamp";
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private WeatherPartitions() {
+    }
+
+    /**
+     * Returns the name of the archive table of a month.
+     *
+     * @param month the month
+     * @return the table name, e.g. {@code weather_data_2025_03}
+     */
+    public static String archiveName(YearMonth month) {
+        return HOT + "_" + month.format(MONTH);
+    }
+
+    /**
+     * Creates a partition table with the schema of "weather_data" as of the {@link CityIdMigration}, unless it exists.
+     *
+     * @param jdbc  the JDBC operations of a write transaction
+     * @param table the name of the table
+     */
+    public static void createTable(JdbcOperations jdbc, String table) {
+        jdbc.execute("CREATE TABLE IF NOT EXISTS " + table + " (id integer not null, city_id integer not null, " +
+                "humidity integer not null, temperature integer not null, timestamp timestamp not null, " +
+                "uv_index integer not null, weather_description varchar(255) not null, " +
+                "wind_speed integer not null, primary key (id))");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_city_timestamp ON " + table + " (city_id, timestamp)");
+        jdbc.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_timestamp ON " + table + " (timestamp)");
+    }
+
+    /**
+     * Creates the archive table of a month and records it in the catalog, unless it exists.
+     *
+     * @param jdbc  the JDBC operations of a write transaction
+     * @param month the month
+     * @return the archived month
+     */
+    public static WeatherPartition createArchive(JdbcOperations jdbc, YearMonth month) {
+        WeatherPartition partition = new WeatherPartition(archiveName(month),
+                month.atDay(1).atStartOfDay(), month.plusMonths(1).atDay(1).atStartOfDay());
+        createTable(jdbc, partition.getName());
+        jdbc.update("INSERT OR IGNORE INTO weather_partition (name, range_start, range_end) VALUES (?, ?, ?)",
+                partition.getName(), Timestamp.valueOf(partition.getRangeStart()), Timestamp.valueOf(partition.getRangeEnd()));
+        return partition;
+    }
+
+    /**
+     * Drops the table of an archived month and removes it from the catalog.
+     * <p>
+     * The table should be emptied first, so that dropping it frees no pages and holds the writer briefly.
+     *
+     * @param jdbc the JDBC operations of a write transaction
+     * @param name the name of the archive table
+     */
+    public static void dropArchive(JdbcOperations jdbc, String name) {
+        jdbc.execute("DROP TABLE IF EXISTS " + name);
+        jdbc.update("DELETE FROM weather_partition WHERE name = ?", name);
+    }
+
+    /**
+     * Lists the archived months overlapping a time range, oldest first.
+     *
+     * @param jdbc the JDBC operations of the current transaction
+     * @param from the inclusive start of the range, or {@code null} for no start
+     * @param to   the exclusive end of the range, or {@code null} for no end
+     * @return the archived months holding readings that may fall within the range
+     */
+    public static List<WeatherPartition> archives(JdbcOperations jdbc, LocalDateTime from, LocalDateTime to) {
+        StringBuilder sql = new StringBuilder("SELECT name, range_start, range_end FROM weather_partition WHERE 1 = 1");
+        List<Object> parameters = new ArrayList<>();
+        if (from != null) {
+            sql.append(" AND range_end > ?");
+            parameters.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND range_start < ?");
+            parameters.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY range_start");
+        return jdbc.query(sql.toString(), (result, row) -> new WeatherPartition(result.getString(1),
+                result.getTimestamp(2).toLocalDateTime(), result.getTimestamp(3).toLocalDateTime()), parameters.toArray());
+    }
+
+    /**
+     * Lists the tables to read for a time range: the overlapping archives, oldest first, then the hot partition.
+     *
+     * @param jdbc the JDBC operations of the current transaction
+     * @param from the inclusive start of the range, or {@code null} for no start
+     * @param to   the exclusive end of the range, or {@code null} for no end
+     * @return the names of the tables that may hold readings within the range
+     */
+    public static List<String> tables(JdbcOperations jdbc, LocalDateTime from, LocalDateTime to) {
+        List<String> tables = new ArrayList<>();
+        archives(jdbc, from, to).forEach(partition -> tables.add(partition.getName()));
+        tables.add(HOT);
+        return tables;
+    }
+
+    /**
+     * Repeats a query over several tables and combines the results with {@code UNION ALL}.
+     * <p>
+     * An {@code ORDER BY} appended to the result sorts the combined rows. SQLite merges the
+     * rows of each table as they come out of its index, so the result is still streamed.
+     *
+     * @param tables the tables to query
+     * @param select the query, with {@code %s} in place of the table name
+     * @return the combined query
+     */
+    public static String unionAll(List<String> tables, String select) {
+        return tables.stream().map(select::formatted).collect(Collectors.joining(" UNION ALL "));
+    }
+
+    /**
+     * Repeats the parameters of a query for each table it is combined over by {@link #unionAll}.
+     *
+     * @param tables     the number of tables
+     * @param parameters the parameters of the query over one table
+     * @return the parameters of the combined query
+     */
+    public static Object[] repeat(int tables, List<Object> parameters) {
+        List<Object> repeated = new ArrayList<>(tables * parameters.size());
+        for (int i = 0; i < tables; i++) {
+            repeated.addAll(parameters);
+        }
+        return repeated.toArray();
+    }
+
+    /**
+     * Finds the time of the oldest reading in some partitions, through their timestamp indexes.
+     *
+     * @param jdbc   the JDBC operations of the current transaction
+     * @param tables the partitions to look into
+     * @return the timestamp of the oldest reading, or {@code null} if the partitions are empty
+     */
+    public static LocalDateTime oldest(JdbcOperations jdbc, List<String> tables) {
+        Timestamp oldest = jdbc.queryForObject("SELECT MIN(oldest) FROM (" +
+                unionAll(tables, "SELECT MIN(timestamp) AS oldest FROM %s") + ")", Timestamp.class);
+        return oldest == null ? null : oldest.toLocalDateTime();
+    }
+}
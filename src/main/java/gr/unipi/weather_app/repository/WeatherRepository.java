@@ -1,71 +1,103 @@
 package gr.unipi.weather_app.repository;
 
+import gr.unipi.weather_app.model.CityStats;
 import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.model.WeatherTotals;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Repository interface for managing {@link WeatherData} entities.
  * <p>
  * This interface provides methods for retrieving weather-related data,
- * including average weather statistics, hottest and coldest cities, and
+ * including the totals behind the average weather statistics, hottest and coldest cities, and
  * the most searched cities. It extends {@link JpaRepository}, enabling
  * basic CRUD operations and custom queries using Spring Data JPA.
+ * <p>
+ * The queries over the raw readings come from {@link PartitionedWeatherQueries}, since the
+ * readings of past months are moved out of "weather_data" into monthly archives.
+ * <p>
+ * The queries run in read-only transactions, so they are served by the read-only
+ * connection pool and never wait for a writer connection.
  */
 @Repository
-public interface WeatherRepository extends JpaRepository<WeatherData, Long> {
+@Transactional(readOnly = true)
+public interface WeatherRepository extends JpaRepository<WeatherData, Long>, PartitionedWeatherQueries {
 
     /**
-     * Retrieves the average temperature, humidity, wind speed, and UV index for a given city.
+     * Retrieves the totals of the temperature, humidity, wind speed, and UV index for a given city.
+     * <p>
+     * The totals are read from the running totals in {@link CityStats},
+     * so only a single row is read regardless of the city's history.
      *
-     * @param city the name of the city to retrieve weather averages for.
-     * @return an Object array containing the average temperature, humidity, wind speed, and UV index.
+     * @param city the name of the city to retrieve weather totals for.
+     * @return the {@link WeatherTotals} of the city, or {@code null} if it has no readings.
      */
-    @Query("SELECT AVG(w.temperature), AVG(w.humidity), AVG(w.windSpeed), AVG(w.uvIndex) " +
-            "FROM WeatherData w WHERE w.city = :city")
-    Object[] getAverageWeatherForCity(@Param("city") String city);
+    @Query("SELECT new gr.unipi.weather_app.model.WeatherTotals(s.readings, s.temperatureSum, " +
+            "s.humiditySum, s.windSpeedSum, s.uvIndexSum) FROM CityStats s WHERE s.city = :city")
+    WeatherTotals findTotalsByCity(@Param("city") String city);
 
     /**
-     * Retrieves the average temperature, humidity, wind speed, and UV index
-     * for weather data recorded within a given date range.
+     * Finds the cities with the highest recorded temperature.
+     * <p>
+     * The record of each city is kept in {@link CityStats}, so the result covers readings
+     * that have since been downsampled. The maximum is read from the highest temperature
+     * index, and every city sharing the record is returned.
      *
-     * @param startDate the start date from which weather data should be considered.
-     * @return an Object array containing the average temperature, humidity, wind speed, and UV index.
+     * @return a list of Object arrays, where each array contains a city name and the highest recorded temperature.
      */
-    @Query("SELECT AVG(w.temperature), AVG(w.humidity), AVG(w.windSpeed), AVG(w.uvIndex) " +
-            "FROM WeatherData w WHERE w.timestamp >= :startDate")
-    Object[] getAverageWeatherForLastDays(@Param("startDate")LocalDateTime startDate);
+    @Query("SELECT s.city, s.temperatureMax " +
+            "FROM CityStats s WHERE s.temperatureMax = (SELECT MAX(m.temperatureMax) FROM CityStats m) " +
+            "ORDER BY s.city")
+    List<Object[]> findHottestCities();
 
     /**
-     * Finds the city with the highest recorded temperature.
+     * Finds the cities with the lowest recorded temperature.
+     * <p>
+     * The record of each city is kept in {@link CityStats}, so the result covers readings
+     * that have since been downsampled. The minimum is read from the lowest temperature
+     * index, and every city sharing the record is returned.
      *
-     * @return an Object array containing the city name and the highest recorded temperature.
+     * @return a list of Object arrays, where each array contains a city name and the lowest recorded temperature.
      */
-    @Query("SELECT w.city, MAX(w.temperature) " +
-            "FROM WeatherData w")
-    Object[] findHottestCity();
+    @Query("SELECT s.city, s.temperatureMin " +
+            "FROM CityStats s WHERE s.temperatureMin = (SELECT MIN(m.temperatureMin) FROM CityStats m) " +
+            "ORDER BY s.city")
+    List<Object[]> findColdestCities();
 
     /**
-     * Finds the city with the lowest recorded temperature.
+     * Streams the cities from the highest to the lowest record temperature, following the
+     * highest temperature index of {@link CityStats}.
+     * <p>
+     * Callers read only as many rows as they need, so ranking the top cities does not
+     * sort or scan the whole table. The stream must be consumed inside a transaction.
      *
-     * @return an Object array containing the city name and the lowest recorded temperature.
+     * @return a stream of Object arrays, where each array contains a city name and its highest recorded temperature.
      */
-    @Query("SELECT w.city, MIN(w.temperature) " +
-            "FROM WeatherData w")
-    Object[] findColdestCity();
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    @Query("SELECT s.city, s.temperatureMax FROM CityStats s ORDER BY s.temperatureMax DESC")
+    Stream<Object[]> streamByTemperatureDesc();
 
     /**
-     * Retrieves a list of cities ordered by the number of times they have been searched.
+     * Streams the cities from the lowest to the highest record temperature, following the
+     * lowest temperature index of {@link CityStats}.
+     * <p>
+     * Callers read only as many rows as they need, so ranking the top cities does not
+     * sort or scan the whole table. The stream must be consumed inside a transaction.
      *
-     * @return a list of Object arrays, where each array contains a city name and the corresponding search count.
+     * @return a stream of Object arrays, where each array contains a city name and its lowest recorded temperature.
      */
-    @Query("SELECT w.city, COUNT(w.city) " +
-            "FROM WeatherData w GROUP BY w.city ORDER BY COUNT(w.city) DESC")
-    List<Object[]> findMostSearchedCities();
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    @Query("SELECT s.city, s.temperatureMin FROM CityStats s ORDER BY s.temperatureMin ASC")
+    Stream<Object[]> streamByTemperatureAsc();
 
 }
@@ -5,6 +5,23 @@
  * interacting with the database using Spring Data JPA.
  * <p>
  * Currently, it includes the {@link gr.unipi.weather_app.repository.WeatherRepository}
- * interface, which provides custom queries for retrieving weather statistics.
+ * interface, which provides custom queries for retrieving weather statistics, including the
+ * {@link gr.unipi.weather_app.repository.PartitionedWeatherQueries} over the monthly partitions
+ * described in {@link gr.unipi.weather_app.repository.WeatherPartitions}, and the
+ * {@link gr.unipi.weather_app.repository.CityStatsRepository} interface, which maintains
+ * the per-city running totals those statistics are read from. The
+ * {@link gr.unipi.weather_app.repository.HourlyWeatherRepository} and
+ * {@link gr.unipi.weather_app.repository.DailyWeatherRepository} interfaces maintain the
+ * time-bucketed totals used for averages over a range of days. The
+ * {@link gr.unipi.weather_app.repository.CitySearchCountRepository} interface adds up the
+ * search counts of each city, the {@link gr.unipi.weather_app.repository.CityRepository}
+ * interface maps the spellings of each city to its id, and the
+ * {@link gr.unipi.weather_app.repository.SchedulerLeaseRepository} interface hands the
+ * background jobs to a single node.
+ * <p>
+ * The tables are created and upgraded by the Flyway migrations in {@code db/migration};
+ * Hibernate only validates the entities against them. The
+ * {@link gr.unipi.weather_app.repository.CityIdMigration} is written in Java, as it groups
+ * the stored city names by their normalized key.
  */
 package gr.unipi.weather_app.repository;
\ No newline at end of file
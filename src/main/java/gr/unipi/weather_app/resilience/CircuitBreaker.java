@@ -0,0 +1,172 @@
+package gr.unipi.weather_app.resilience;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * A count-based circuit breaker protecting calls to an unreliable service.
+ * <p>
+ * While {@link State#CLOSED closed}, the outcomes of the last calls are kept in a
+ * sliding window. Once the window holds enough calls and the share of failures reaches
+ * the threshold, the breaker {@link State#OPEN opens} and rejects every call for the
+ * open duration. After that, it lets a few trial calls through while
+ * {@link State#HALF_OPEN half-open}: it closes again once all of them succeed and
+ * reopens on the first failure.
+ * <p>
+ * Every permitted call must end in exactly one of {@link #onSuccess()},
+ * {@link #onFailure()} or {@link #release()}.
+ */
+public class CircuitBreaker {
+
+    /**
+     * The states of a circuit breaker.
+     */
+    public enum State {
+        /** Calls are permitted and their outcomes recorded. */
+        CLOSED,
+        /** Calls are rejected. */
+        OPEN,
+        /** A limited number of trial calls are permitted. */
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoTime;
+
+    private State state = State.CLOSED;
+    private int next;
+    private int recorded;
+    private int failures;
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    /**
+     * Constructs a new {@code CircuitBreaker}.
+     *
+     * @param name                 the name of the protected service, used in error messages
+     * @param windowSize           the number of most recent calls whose outcomes are considered
+     * @param minimumCalls         the number of calls needed before the failure rate is evaluated
+     * @param failureRateThreshold the percentage of failed calls that opens the breaker
+     * @param openDuration         how long the breaker stays open before trial calls are permitted
+     * @param halfOpenCalls        the number of successful trial calls that close the breaker again
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold,
+                          Duration openDuration, int halfOpenCalls) {
+        this(name, windowSize, minimumCalls, failureRateThreshold, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold,
+                   Duration openDuration, int halfOpenCalls, LongSupplier nanoTime) {
+        this.name = name;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Asks for permission to make a call.
+     *
+     * @throws CircuitBreakerOpenException if the breaker rejects the call
+     */
+    public synchronized void acquire() {
+        if (state == State.OPEN) {
+            if (nanoTime.getAsLong() - openedAt < openNanos) {
+                throw new CircuitBreakerOpenException(name);
+            }
+            state = State.HALF_OPEN;
+            trialsStarted = 0;
+            trialsSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsStarted >= halfOpenCalls) {
+                throw new CircuitBreakerOpenException(name);
+            }
+            trialsStarted++;
+        }
+    }
+
+    /**
+     * Records that a permitted call succeeded.
+     */
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++trialsSucceeded >= halfOpenCalls) {
+                close();
+            }
+            return;
+        }
+        record(false);
+    }
+
+    /**
+     * Records that a permitted call failed.
+     */
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        record(true);
+        if (recorded >= minimumCalls && failures * 100 >= failureRateThreshold * recorded) {
+            open();
+        }
+    }
+
+    /**
+     * Returns the permission of a call that ended without an outcome, e.g. because it was cancelled.
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && trialsStarted > trialsSucceeded) {
+            trialsStarted--;
+        }
+    }
+
+    /**
+     * @return the current state of the breaker
+     */
+    public synchronized State state() {
+        if (state == State.OPEN && nanoTime.getAsLong() - openedAt >= openNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private void record(boolean failed) {
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (recorded == window.length) {
+            if (window[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        window[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoTime.getAsLong();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,16 @@
+package gr.unipi.weather_app.resilience;
+
+/**
+ * Thrown when a {@link CircuitBreaker} rejects a call because the protected service keeps failing.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    /**
+     * Constructs a new {@code CircuitBreakerOpenException}.
+     *
+     * @param name the name of the protected service
+     */
+    public CircuitBreakerOpenException(String name) {
+        super("Circuit breaker for " + name + " is open");
+    }
+}
@@ -0,0 +1,17 @@
+package gr.unipi.weather_app.resilience;
+
+/**
+ * The priority of a call waiting for the {@link WeatherApiRateLimiter}.
+ */
+public enum RequestPriority {
+
+    /**
+     * A lookup a user is waiting for.
+     */
+    INTERACTIVE,
+
+    /**
+     * A bulk fetch or background refresh, which may wait behind interactive lookups.
+     */
+    BULK
+}
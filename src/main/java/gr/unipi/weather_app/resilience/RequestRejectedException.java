@@ -0,0 +1,16 @@
+package gr.unipi.weather_app.resilience;
+
+/**
+ * Thrown when the {@link WeatherApiRateLimiter} cannot queue a call because too many are already waiting.
+ */
+public class RequestRejectedException extends RuntimeException {
+
+    /**
+     * Constructs a new {@code RequestRejectedException}.
+     *
+     * @param maxQueueSize the number of calls allowed to wait
+     */
+    public RequestRejectedException(int maxQueueSize) {
+        super("Too many requests waiting for the weather API (limit " + maxQueueSize + ")");
+    }
+}
@@ -0,0 +1,273 @@
+package gr.unipi.weather_app.resilience;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limits the rate of calls to the weather API and decides which waiting call goes next.
+ * <p>
+ * Permits come from a token bucket refilled at a fixed rate, which allows short bursts
+ * up to its capacity. Calls that find the bucket empty wait in one queue per
+ * {@link RequestPriority}. Waiting calls are served by weighted round-robin: up to
+ * {@code interactive-weight} interactive calls go ahead of each bulk call, so user
+ * lookups are not stuck behind a bulk refresh while bulk work still progresses.
+ * <p>
+ * A {@code 429 Too Many Requests} response empties the bucket and pauses all calls for
+ * the time given by its {@code Retry-After} header.
+ */
+@Component
+public class WeatherApiRateLimiter {
+
+    private final double permitsPerNano;
+    private final double burst;
+    private final int maxQueueSize;
+    private final int interactiveWeight;
+    private final Duration defaultRetryAfter;
+    private final Scheduler timer = Schedulers.parallel();
+
+    private final Object lock = new Object();
+    private final Map<RequestPriority, ArrayDeque<Waiter>> queues = new EnumMap<>(RequestPriority.class);
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private long pausedUntil = refilledAt;
+    private int interactiveStreak;
+    private int queued;
+    private boolean drainScheduled;
+
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder waited = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Constructs a new {@code WeatherApiRateLimiter}.
+     *
+     * @param permitsPerSecond  the sustained number of calls per second
+     * @param burst             the number of calls that may be made at once after a quiet period
+     * @param maxQueueSize      the maximum number of waiting calls; further calls are rejected
+     * @param interactiveWeight the number of interactive calls served before a waiting bulk call
+     * @param defaultRetryAfter the pause after a 429 response without a usable {@code Retry-After} header
+     */
+    public WeatherApiRateLimiter(@Value("${weather.api.rate-limit.permits-per-second}") double permitsPerSecond,
+                                 @Value("${weather.api.rate-limit.burst}") int burst,
+                                 @Value("${weather.api.rate-limit.max-queue-size}") int maxQueueSize,
+                                 @Value("${weather.api.rate-limit.interactive-weight}") int interactiveWeight,
+                                 @Value("${weather.api.rate-limit.default-retry-after}") Duration defaultRetryAfter) {
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.tokens = burst;
+        this.maxQueueSize = maxQueueSize;
+        this.interactiveWeight = interactiveWeight;
+        this.defaultRetryAfter = defaultRetryAfter;
+        for (RequestPriority priority : RequestPriority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Delays a call until it gets a permit.
+     * <p>
+     * The call is subscribed to once the permit is granted; a {@code 429} response
+     * to it pauses all calls as given by its {@code Retry-After} header.
+     *
+     * @param priority the priority of the call
+     * @param call     the call to the weather API
+     * @param <T>      the type of the response
+     * @return a {@link Mono} running the call once permitted; a {@link RequestRejectedException}
+     *         if too many calls are waiting
+     */
+    public <T> Mono<T> schedule(RequestPriority priority, Mono<T> call) {
+        return Mono.<Void>create(sink -> acquire(priority, sink))
+                .then(call)
+                .doOnError(WebClientResponseException.class, e -> {
+                    if (e.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+                        pause(retryAfter(e.getHeaders(), defaultRetryAfter));
+                    }
+                });
+    }
+
+    /**
+     * Stops granting permits for a while, e.g. because the weather API asked to slow down.
+     *
+     * @param duration how long no calls should be made
+     */
+    public void pause(Duration duration) {
+        throttled.increment();
+        synchronized (lock) {
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + duration.toNanos());
+            tokens = 0;
+        }
+    }
+
+    /**
+     * Returns a snapshot of the queues and counters of the rate limiter.
+     *
+     * @return the current {@link RateLimiterStats}
+     */
+    public RateLimiterStats stats() {
+        int interactive;
+        int bulk;
+        synchronized (lock) {
+            interactive = queues.get(RequestPriority.INTERACTIVE).size();
+            bulk = queues.get(RequestPriority.BULK).size();
+        }
+        long count = waited.sum();
+        return new RateLimiterStats(interactive, bulk, granted.sum(), rejected.sum(), throttled.sum(),
+                Duration.ofNanos(count == 0 ? 0 : waitNanos.sum() / count), Duration.ofNanos(maxWaitNanos.get()));
+    }
+
+    private void acquire(RequestPriority priority, MonoSink<Void> sink) {
+        Waiter waiter = new Waiter(sink, System.nanoTime());
+        synchronized (lock) {
+            if (queued >= maxQueueSize) {
+                rejected.increment();
+                sink.error(new RequestRejectedException(maxQueueSize));
+                return;
+            }
+            queues.get(priority).add(waiter);
+            queued++;
+        }
+        sink.onCancel(() -> waiter.cancelled = true);
+        drain();
+    }
+
+    /**
+     * Grants the available permits to waiting calls and schedules the next round if calls remain.
+     */
+    private void drain() {
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (lock) {
+            long now = System.nanoTime();
+            if (now >= pausedUntil) {
+                tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+                refilledAt = now;
+                Waiter waiter;
+                while (tokens >= 1 && (waiter = next()) != null) {
+                    tokens--;
+                    ready.add(waiter);
+                }
+            } else {
+                refilledAt = now;
+            }
+
+            if (queued > 0 && !drainScheduled) {
+                long delay = now < pausedUntil
+                        ? pausedUntil - now
+                        : (long) Math.ceil((1 - tokens) / permitsPerNano);
+                drainScheduled = true;
+                timer.schedule(this::scheduledDrain, Math.max(delay, 1), TimeUnit.NANOSECONDS);
+            }
+        }
+
+        long now = System.nanoTime();
+        for (Waiter waiter : ready) {
+            long wait = now - waiter.enqueuedAt;
+            granted.increment();
+            waited.increment();
+            waitNanos.add(wait);
+            maxWaitNanos.accumulate(wait);
+            waiter.sink.success();
+        }
+    }
+
+    private void scheduledDrain() {
+        synchronized (lock) {
+            drainScheduled = false;
+        }
+        drain();
+    }
+
+    /**
+     * Takes the next waiting call by weighted round-robin, skipping cancelled ones.
+     */
+    private Waiter next() {
+        ArrayDeque<Waiter> interactive = queues.get(RequestPriority.INTERACTIVE);
+        ArrayDeque<Waiter> bulk = queues.get(RequestPriority.BULK);
+        while (queued > 0) {
+            Waiter waiter;
+            if (!interactive.isEmpty() && (bulk.isEmpty() || interactiveStreak < interactiveWeight)) {
+                waiter = interactive.poll();
+                interactiveStreak++;
+            } else {
+                waiter = bulk.poll();
+                interactiveStreak = 0;
+            }
+            queued--;
+            if (!waiter.cancelled) {
+                return waiter;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads how long to wait from a {@code Retry-After} header, given in seconds or as an HTTP date.
+     *
+     * @param headers  the headers of a {@code 429} response
+     * @param fallback the wait to use if the header is missing or invalid
+     * @return the time to wait before the next call
+     */
+    static Duration retryAfter(HttpHeaders headers, Duration fallback) {
+        String value = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            // Not delta-seconds, so it should be an HTTP date
+        }
+        try {
+            Duration wait = Duration.between(ZonedDateTime.now(), headers.getFirstZonedDateTime(HttpHeaders.RETRY_AFTER));
+            return wait.isNegative() ? Duration.ZERO : wait;
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Counters describing how much the rate limiter delays calls.
+     *
+     * @param queuedInteractive the number of interactive calls currently waiting
+     * @param queuedBulk        the number of bulk calls currently waiting
+     * @param granted           the number of calls granted a permit
+     * @param rejected          the number of calls rejected because the queues were full
+     * @param throttled         the number of times calls were paused after a {@code 429} response
+     * @param averageWait       the average time a call waited for its permit
+     * @param maxWait           the longest time a call waited for its permit
+     */
+    public record RateLimiterStats(int queuedInteractive, int queuedBulk, long granted, long rejected,
+                                   long throttled, Duration averageWait, Duration maxWait) {
+    }
+
+    private static final class Waiter {
+        private final MonoSink<Void> sink;
+        private final long enqueuedAt;
+        private volatile boolean cancelled;
+
+        private Waiter(MonoSink<Void> sink, long enqueuedAt) {
+            this.sink = sink;
+            this.enqueuedAt = enqueuedAt;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package gr.unipi.weather_app.resilience;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.PrematureCloseException;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Protects the calls to the weather API with retries, a circuit breaker and hedged requests.
+ * <p>
+ * Each attempt first asks the {@link CircuitBreaker} for permission. Attempts failing
+ * because of the weather API, such as connection errors, timeouts, 5xx and 429
+ * responses, are retried with exponential backoff and jitter, and count against the
+ * breaker. Other errors, such as an unknown city, are neither retried nor counted as
+ * failures, since the weather API did answer.
+ * <p>
+ * When hedging is enabled, an attempt still running after the recent p95 latency
+ * sends a second, identical request, and the first response wins.
+ */
+@Component
+public class WeatherApiResilience {
+
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyTracker latencyTracker;
+    private final Retry retry;
+    private final boolean hedgingEnabled;
+    private final double hedgingPercentile;
+    private final int hedgingMinSamples;
+    private final Duration hedgingMinDelay;
+
+    /**
+     * Constructs a new {@code WeatherApiResilience}.
+     *
+     * @param maxAttempts          the maximum number of attempts of a call, including the first one
+     * @param initialBackoff       the delay before the first retry, doubled for every later retry
+     * @param maxBackoff           the maximum delay between retries
+     * @param jitter               the random share of each delay, between {@code 0} and {@code 1}
+     * @param windowSize           the number of most recent attempts the breaker considers
+     * @param minimumCalls         the number of attempts needed before the breaker may open
+     * @param failureRateThreshold the percentage of failed attempts that opens the breaker
+     * @param openDuration         how long the breaker rejects calls once open
+     * @param halfOpenCalls        the number of successful trial calls that close the breaker
+     * @param hedgingEnabled       whether slow attempts are hedged with a second request
+     * @param hedgingPercentile    the latency percentile after which an attempt is hedged
+     * @param hedgingMinSamples    the number of recorded latencies needed before hedging starts
+     * @param hedgingMinDelay      the minimum delay before an attempt is hedged
+     */
+    public WeatherApiResilience(@Value("${weather.api.resilience.retry.max-attempts}") int maxAttempts,
+                                @Value("${weather.api.resilience.retry.initial-backoff}") Duration initialBackoff,
+                                @Value("${weather.api.resilience.retry.max-backoff}") Duration maxBackoff,
+                                @Value("${weather.api.resilience.retry.jitter}") double jitter,
+                                @Value("${weather.api.resilience.circuit-breaker.window-size}") int windowSize,
+                                @Value("${weather.api.resilience.circuit-breaker.minimum-calls}") int minimumCalls,
+                                @Value("${weather.api.resilience.circuit-breaker.failure-rate-threshold}") int failureRateThreshold,
+                                @Value("${weather.api.resilience.circuit-breaker.open-duration}") Duration openDuration,
+                                @Value("${weather.api.resilience.circuit-breaker.half-open-calls}") int halfOpenCalls,
+                                @Value("${weather.api.resilience.hedging.enabled}") boolean hedgingEnabled,
+                                @Value("${weather.api.resilience.hedging.percentile}") double hedgingPercentile,
+                                @Value("${weather.api.resilience.hedging.min-samples}") int hedgingMinSamples,
+                                @Value("${weather.api.resilience.hedging.min-delay}") Duration hedgingMinDelay) {
+        this.circuitBreaker = new CircuitBreaker("weather API", windowSize, minimumCalls, failureRateThreshold,
+                openDuration, halfOpenCalls);
+        this.latencyTracker = new LatencyTracker(256);
+        this.retry = Retry.backoff(maxAttempts - 1, initialBackoff)
+                .maxBackoff(maxBackoff)
+                .jitter(jitter)
+                .filter(WeatherApiResilience::isUpstreamFailure)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+        this.hedgingEnabled = hedgingEnabled;
+        this.hedgingPercentile = hedgingPercentile;
+        this.hedgingMinSamples = hedgingMinSamples;
+        this.hedgingMinDelay = hedgingMinDelay;
+    }
+
+    /**
+     * Applies the retries, the circuit breaker and hedging to a call.
+     * <p>
+     * The call is subscribed to once per attempt and once more per hedged request,
+     * so it must be a cold {@link Mono} that performs the request on every subscription.
+     *
+     * @param call the call to the weather API
+     * @param <T>  the type of the response
+     * @return a {@link Mono} emitting the first successful response, or the last error;
+     *         a {@link CircuitBreakerOpenException} if the breaker rejected the call
+     */
+    public <T> Mono<T> decorate(Mono<T> call) {
+        return attempt(call).retryWhen(retry);
+    }
+
+    /**
+     * @return the current state of the circuit breaker
+     */
+    public CircuitBreaker.State circuitBreakerState() {
+        return circuitBreaker.state();
+    }
+
+    private <T> Mono<T> attempt(Mono<T> call) {
+        return Mono.defer(() -> {
+            circuitBreaker.acquire();
+            long start = System.nanoTime();
+            return hedge(call)
+                    .doOnSuccess(response -> {
+                        latencyTracker.record(System.nanoTime() - start);
+                        circuitBreaker.onSuccess();
+                    })
+                    .doOnError(e -> {
+                        if (isUpstreamFailure(e)) {
+                            circuitBreaker.onFailure();
+                        } else {
+                            circuitBreaker.onSuccess();
+                        }
+                    })
+                    .doOnCancel(circuitBreaker::release);
+        });
+    }
+
+    private <T> Mono<T> hedge(Mono<T> call) {
+        if (!hedgingEnabled || latencyTracker.count() < hedgingMinSamples) {
+            return call;
+        }
+        Duration delay = latencyTracker.percentile(hedgingPercentile);
+        if (delay.compareTo(hedgingMinDelay) < 0) {
+            delay = hedgingMinDelay;
+        }
+        return Mono.firstWithValue(call, Mono.delay(delay).then(call))
+                .onErrorMap(NoSuchElementException.class, WeatherApiResilience::firstError);
+    }
+
+    /**
+     * Unwraps the error of the first request when both hedged requests failed.
+     */
+    private static Throwable firstError(NoSuchElementException e) {
+        List<Throwable> errors = Exceptions.unwrapMultiple(e.getCause());
+        return errors.isEmpty() || errors.get(0) == null ? e : errors.get(0);
+    }
+
+    /**
+     * Tells whether an error was caused by the weather API being unreachable, slow or overloaded.
+     *
+     * @param e the error of an attempt
+     * @return {@code true} if retrying may help
+     */
+    static boolean isUpstreamFailure(Throwable e) {
+        if (e instanceof WebClientResponseException response) {
+            return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+        }
+        return e instanceof WebClientRequestException
+                || e instanceof PrematureCloseException
+                || e instanceof TimeoutException
+                || e instanceof io.netty.handler.timeout.TimeoutException;
+    }
+}
@@ -0,0 +1,12 @@
+/**
+ * This package contains the resilience layer of the Weather App.
+ * <p>
+ * The resilience package is responsible for keeping failures of the external weather API
+ * from piling up in the application. It includes the
+ * {@link gr.unipi.weather_app.resilience.WeatherApiResilience} component, which applies
+ * bounded retries with backoff and jitter, a {@link gr.unipi.weather_app.resilience.CircuitBreaker}
+ * and hedged requests to the calls made by the service layer, and the
+ * {@link gr.unipi.weather_app.resilience.WeatherApiRateLimiter} component, which paces those
+ * calls with a token bucket and serves interactive lookups ahead of bulk refreshes.
+ */
+package gr.unipi.weather_app.resilience;
@@ -0,0 +1,41 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherTotals;
+
+/**
+ * The average weather conditions of a set of stored readings.
+ * <p>
+ * When no readings match, {@code readings} is zero and the averages are {@code null}.
+ *
+ * @param location    the city or period the readings belong to
+ * @param readings    the number of readings averaged
+ * @param temperature the average temperature in degrees Celsius
+ * @param humidity    the average humidity percentage
+ * @param windSpeed   the average wind speed in kilometers per hour
+ * @param uvIndex     the average UV index
+ */
+public record AverageWeather(String location, long readings, Double temperature, Double humidity,
+                             Double windSpeed, Double uvIndex) {
+
+    /**
+     * Averages the totals of a set of readings.
+     *
+     * @param location the city or period the readings belong to
+     * @param totals   the totals of the readings, or {@code null} for none
+     * @return the {@code AverageWeather} of the readings
+     */
+    public static AverageWeather of(String location, WeatherTotals totals) {
+        if (totals == null || totals.readings() == 0) {
+            return new AverageWeather(location, 0, null, null, null, null);
+        }
+        return new AverageWeather(location, totals.readings(), totals.averageTemperature(),
+                totals.averageHumidity(), totals.averageWindSpeed(), totals.averageUvIndex());
+    }
+
+    /**
+     * @return whether any readings were averaged
+     */
+    public boolean hasData() {
+        return readings > 0;
+    }
+}
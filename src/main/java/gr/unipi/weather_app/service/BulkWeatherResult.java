@@ -0,0 +1,19 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherData;
+
+import java.util.Map;
+
+/**
+ * The outcome of fetching weather data for several cities at once.
+ * <p>
+ * A failure for one city does not affect the others, so successes and failures
+ * are reported separately, both keyed by the city name as it was requested. Names
+ * spelling the same city share its single reading or failure.
+ *
+ * @param successes the saved {@link WeatherData} of each city that was fetched successfully,
+ *                  which holds the canonical name of the city
+ * @param failures  the error message of each city that could not be fetched
+ */
+public record BulkWeatherResult(Map<String, WeatherData> successes, Map<String, String> failures) {
+}
@@ -0,0 +1,235 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.City;
+import gr.unipi.weather_app.repository.CityRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the city names entered by users to the canonical {@link City} they stand for.
+ * <p>
+ * Names are looked up by their {@link City#key(String) key}, so spellings differing only in
+ * case, whitespace or Unicode form resolve to the same city. A name searched for the first
+ * time is {@link #register registered} with the area the weather API resolved it to: it
+ * becomes an alias of the city of that name, so "Athina" and "Athens" share their id once
+ * the weather API has reported both as Athens. An area named like a known city of another
+ * country becomes a city of its own, named after both, shortened to fit
+ * {@link City#MAX_NAME_LENGTH}.
+ * <p>
+ * A spelling only becomes an alias once it is registered a second time, so names entered once
+ * never grow the "city_alias" table. Every city is held in memory, loaded at startup, along with
+ * the most recently used aliases up to {@code weather.cities.max-aliases}, so lookups never query
+ * the database; a spelling seen once or evicted resolves like an unknown name until it is
+ * registered again, which finds it in the database.
+ * <p>
+ * New cities and aliases are written in turn with the batches of readings, and only added to
+ * memory once committed; the database is checked again before a city is created, so a name
+ * registered meanwhile by another node, or by a concurrent call, is not created twice.
+ */
+@Slf4j
+@Component
+public class CityDictionary {
+
+    private final CityRepository repository;
+    private final WeatherIngestService ingestService;
+
+    /**
+     * Every city by the key of its name.
+     */
+    private final Map<String, Entry> cities = new ConcurrentHashMap<>();
+
+    /**
+     * The city of the most recently used aliases, in access order.
+     */
+    private final Map<String, Entry> aliases;
+
+    /**
+     * The spellings registered once, which become aliases when registered again.
+     */
+    private final Map<String, Boolean> sightings;
+
+    /**
+     * Constructs a new {@code CityDictionary}.
+     *
+     * @param repository    the repository holding the cities and their aliases
+     * @param ingestService the service running the write transactions
+     * @param maxAliases    the maximum number of aliases, and of spellings registered once, kept in memory
+     */
+    public CityDictionary(CityRepository repository, WeatherIngestService ingestService,
+                          @Value("${weather.cities.max-aliases}") int maxAliases) {
+        this.repository = repository;
+        this.ingestService = ingestService;
+        this.aliases = bounded(maxAliases);
+        this.sightings = bounded(maxAliases);
+    }
+
+    private static <V> Map<String, V> bounded(int maxSize) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    /**
+     * Loads every city and, up to the limit, its aliases from the database.
+     */
+    @PostConstruct
+    void load() {
+        Map<Integer, Entry> byId = new HashMap<>();
+        for (City city : repository.findAll()) {
+            Entry entry = new Entry(city, City.key(city.getName()));
+            byId.put(city.getId(), entry);
+            cities.put(entry.key(), entry);
+        }
+        List<Object[]> stored = repository.findAllAliases();
+        for (Object[] alias : stored) {
+            Entry entry = byId.get(((Number) alias[1]).intValue());
+            if (entry != null && !entry.key().equals(alias[0])) {
+                remember((String) alias[0], entry);
+            }
+        }
+        log.info("Loaded {} cities with {} aliases", byId.size(), stored.size());
+    }
+
+    /**
+     * Finds the city a name resolves to, without querying the database.
+     *
+     * @param city the city name as entered
+     * @return the city, or {@code null} if the name was never registered
+     */
+    public City find(String city) {
+        Entry entry = lookup(City.key(city));
+        return entry != null ? entry.city() : null;
+    }
+
+    /**
+     * Returns the key of the city a name resolves to, which the weather of the city is cached under.
+     *
+     * @param city the city name as entered
+     * @return the key of the canonical name of the city, or the key of the name itself if it was never registered
+     */
+    public String key(String city) {
+        String key = City.key(city);
+        Entry entry = lookup(key);
+        return entry != null ? entry.key() : key;
+    }
+
+    /**
+     * Returns the canonical name of the city a name resolves to, which its weather is fetched and reported by.
+     *
+     * @param city the city name as entered
+     * @return the name of the city, or the {@link City#normalize(String) normalized} name if it was never registered
+     */
+    public String name(String city) {
+        City found = find(city);
+        return found != null ? found.getName() : City.normalize(city);
+    }
+
+    /**
+     * Resolves a name to its city, registering the name and, if needed, the city.
+     * <p>
+     * Blocks on the database when the name was never registered, so it must not be called on a
+     * thread performing HTTP I/O.
+     *
+     * @param city    the city name as entered
+     * @param area    the name of the area the weather API resolved the city to, or {@code null} if not reported
+     * @param country the country of that area, or {@code null} if not reported
+     * @return the city the name resolves to
+     */
+    public City register(String city, String area, String country) {
+        String alias = City.key(city);
+        Entry known = lookup(alias);
+        if (known != null) {
+            return known.city();
+        }
+
+        boolean repeated;
+        synchronized (sightings) {
+            repeated = sightings.remove(alias) != null;
+        }
+        String name = City.shorten(City.normalize(area != null && !area.isBlank() ? area : city));
+        Registration registered = ingestService.write(status -> {
+            City found = repository.findByAlias(alias).orElse(null);
+            if (found != null) {
+                return new Registration(new Entry(found, City.key(found.getName())), true);
+            }
+            found = repository.findByAlias(City.key(name)).orElse(null);
+            if (found != null && found.getCountry() != null && country != null && !found.getCountry().equals(country)) {
+                String qualified = City.qualify(name, City.normalize(country));
+                found = repository.findByAlias(City.key(qualified)).orElse(null);
+                if (found == null) {
+                    found = create(qualified, country);
+                }
+            } else if (found == null) {
+                found = create(name, country);
+            }
+            Entry entry = new Entry(found, City.key(found.getName()));
+            if (repeated && !entry.key().equals(alias)) {
+                repository.addAlias(alias, found.getId());
+            }
+            return new Registration(entry, repeated || entry.key().equals(alias));
+        });
+
+        Entry entry = registered.entry();
+        cities.put(entry.key(), entry);
+        if (entry.key().equals(alias)) {
+            return entry.city();
+        }
+        if (registered.stored()) {
+            remember(alias, entry);
+        } else {
+            synchronized (sightings) {
+                sightings.put(alias, Boolean.TRUE);
+            }
+        }
+        return entry.city();
+    }
+
+    /**
+     * Finds the city of a key, whether the key of its name or an alias, without querying the database.
+     */
+    private Entry lookup(String key) {
+        Entry entry = cities.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        synchronized (aliases) {
+            return aliases.get(key);
+        }
+    }
+
+    private void remember(String alias, Entry entry) {
+        synchronized (aliases) {
+            aliases.put(alias, entry);
+        }
+    }
+
+    private City create(String name, String country) {
+        City city = repository.save(new City(0, name, country));
+        repository.addAlias(City.key(name), city.getId());
+        log.info("Registered the city {} of {}", name, country != null ? country : "an unknown country");
+        return city;
+    }
+
+    /**
+     * A city together with the key of its name.
+     */
+    private record Entry(City city, String key) {
+    }
+
+    /**
+     * The city a name was registered to, and whether the name is stored as its alias.
+     */
+    private record Registration(Entry entry, boolean stored) {
+    }
+}
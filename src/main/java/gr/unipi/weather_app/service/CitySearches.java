@@ -0,0 +1,10 @@
+package gr.unipi.weather_app.service;
+
+/**
+ * A city together with the number of times its weather was looked up.
+ *
+ * @param city     the name of the city
+ * @param searches the number of stored lookups of the city
+ */
+public record CitySearches(String city, long searches) {
+}
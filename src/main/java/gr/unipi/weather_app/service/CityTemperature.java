@@ -0,0 +1,20 @@
+package gr.unipi.weather_app.service;
+
+/**
+ * A city together with its record temperature, as listed in the hottest and coldest city rankings.
+ *
+ * @param city        the name of the city
+ * @param temperature the highest or lowest temperature recorded for the city, in degrees Celsius
+ */
+public record CityTemperature(String city, int temperature) {
+
+    /**
+     * Reads a city and temperature pair returned by a repository query.
+     *
+     * @param row an array holding the city name and the temperature
+     * @return the {@code CityTemperature} of the row
+     */
+    static CityTemperature of(Object[] row) {
+        return new CityTemperature(String.valueOf(row[0]), ((Number) row[1]).intValue());
+    }
+}
@@ -0,0 +1,309 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.repository.SchedulerLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the weather of the most searched cities cached ahead of their lookups.
+ * <p>
+ * Every {@code plan-interval}, the {@code top-cities} most searched cities are taken from
+ * the {@link SearchCounter}, and every {@code tick} the cities that are due are refreshed through
+ * {@link WeatherService#refreshWeather}, with at most {@code max-concurrency} refreshes in
+ * flight. The refresh interval of each city shrinks from {@code max-interval} towards
+ * {@code min-interval} as it is looked up more often and as its readings change faster:
+ * <pre>
+ * interval = max-interval / ((1 + lookups per minute / demand-reference) * (1 + change per hour / change-reference))
+ * </pre>
+ * The change of a reading is the temperature difference in degrees, plus a tenth of the
+ * humidity and wind speed differences, the UV index difference and one for a new description.
+ * Both rates are smoothed over successive plans and refreshes. Each interval is randomized by
+ * {@code jitter}, and cities that become hot are first refreshed spread over {@code min-interval},
+ * so refreshes do not arrive at the weather API in bursts.
+ * <p>
+ * Only the node holding the {@value #LEASE} lease in the shared database refreshes cities,
+ * so several nodes never repeat each other's work. The lease is renewed by every plan and
+ * taken over by another node once it has not been renewed for {@code lease-duration}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "weather.refresh.enabled", havingValue = "true")
+public class HotCityRefresher {
+
+    /**
+     * The name of the lease held by the refreshing node.
+     */
+    static final String LEASE = "hot-city-refresh";
+
+    /**
+     * The weight of the newest value in the smoothed demand and change rates.
+     */
+    private static final double SMOOTHING = 0.5;
+
+    private final WeatherService weatherService;
+    private final SearchCounter searchCounter;
+    private final SchedulerLeaseRepository leaseRepository;
+    private final WeatherCache cache;
+    private final int topCities;
+    private final long minIntervalNanos;
+    private final long maxIntervalNanos;
+    private final double demandReference;
+    private final double changeReference;
+    private final double jitter;
+    private final int maxConcurrency;
+    private final Duration leaseDuration;
+    private final long leaseValidityNanos;
+    private final String nodeId;
+
+    /**
+     * The hot cities keyed by normalized city name, most searched first.
+     */
+    private final Map<String, HotCity> hotCities = new LinkedHashMap<>();
+    private long leaseValidUntil;
+    private boolean leader;
+    private long lastPlanAt;
+    private int inFlight;
+
+    private final LongAdder refreshed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Constructs a new {@code HotCityRefresher}.
+     *
+     * @param weatherService  the service fetching the weather into the cache
+     * @param searchCounter   the counter ranking the most searched cities
+     * @param leaseRepository the repository of the leases shared by all nodes
+     * @param cache           the cache counting the lookups of each city
+     * @param topCities       the number of most searched cities kept refreshed, at most the leaderboard size
+     * @param planInterval    how often the hot cities are chosen and the lease is renewed
+     * @param minInterval     the shortest refresh interval of a city
+     * @param maxInterval     the longest refresh interval of a city
+     * @param demandReference the lookups per minute that halve the refresh interval
+     * @param changeReference the change of the readings per hour that halves the refresh interval
+     * @param jitter          the fraction by which each interval is randomly shortened or lengthened
+     * @param maxConcurrency  the maximum number of refreshes in flight
+     * @param leaseDuration   how long the lease lasts without being renewed, at least twice the plan interval
+     * @param nodeId          the identifier of this node, or blank to use the process name
+     */
+    public HotCityRefresher(WeatherService weatherService, SearchCounter searchCounter,
+                            SchedulerLeaseRepository leaseRepository, WeatherCache cache,
+                            @Value("${weather.refresh.top-cities}") int topCities,
+                            @Value("${weather.refresh.plan-interval}") Duration planInterval,
+                            @Value("${weather.refresh.min-interval}") Duration minInterval,
+                            @Value("${weather.refresh.max-interval}") Duration maxInterval,
+                            @Value("${weather.refresh.demand-reference}") double demandReference,
+                            @Value("${weather.refresh.change-reference}") double changeReference,
+                            @Value("${weather.refresh.jitter}") double jitter,
+                            @Value("${weather.refresh.max-concurrency}") int maxConcurrency,
+                            @Value("${weather.refresh.lease-duration}") Duration leaseDuration,
+                            @Value("${weather.refresh.node-id:}") String nodeId) {
+        if (leaseDuration.compareTo(planInterval.multipliedBy(2)) < 0) {
+            throw new IllegalArgumentException("weather.refresh.lease-duration must be at least twice the plan interval");
+        }
+        this.weatherService = weatherService;
+        this.searchCounter = searchCounter;
+        this.leaseRepository = leaseRepository;
+        this.cache = cache;
+        this.topCities = topCities;
+        this.minIntervalNanos = minInterval.toNanos();
+        this.maxIntervalNanos = maxInterval.toNanos();
+        this.demandReference = demandReference;
+        this.changeReference = changeReference;
+        this.jitter = jitter;
+        this.maxConcurrency = maxConcurrency;
+        this.leaseDuration = leaseDuration;
+        // Stop refreshing well before another node may take the lease over
+        this.leaseValidityNanos = leaseDuration.minus(planInterval).toNanos();
+        this.nodeId = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+    }
+
+    /**
+     * Renews the lease and chooses the hot cities from the current search counts.
+     * <p>
+     * The lookups of each city since the previous plan update its demand. Without the
+     * lease, the hot cities are forgotten, so a node that later takes the lease over
+     * starts from the current counts.
+     */
+    @Scheduled(fixedDelayString = "${weather.refresh.plan-interval}")
+    public void plan() {
+        long now = System.nanoTime();
+        long wallClock = System.currentTimeMillis();
+        boolean acquired = leaseRepository.acquire(LEASE, nodeId, wallClock, wallClock + leaseDuration.toMillis()) == 1;
+
+        synchronized (this) {
+            if (acquired != leader) {
+                log.info(acquired ? "Took over the {} lease as {}" : "Lost the {} lease of {}", LEASE, nodeId);
+                leader = acquired;
+            }
+            if (!acquired) {
+                hotCities.clear();
+                lastPlanAt = 0;
+                return;
+            }
+            leaseValidUntil = now + leaseValidityNanos;
+        }
+
+        List<CitySearches> mostSearched = searchCounter.mostSearched(topCities);
+
+        synchronized (this) {
+            double minutes = lastPlanAt == 0 ? 0 : (now - lastPlanAt) / 60e9;
+            lastPlanAt = now;
+
+            Map<String, HotCity> previous = new HashMap<>(hotCities);
+            hotCities.clear();
+            for (int i = 0; i < mostSearched.size(); i++) {
+                String city = mostSearched.get(i).city();
+                String key = WeatherCache.key(city);
+                HotCity hotCity = previous.get(key);
+                if (hotCity == null) {
+                    hotCity = new HotCity(city);
+                    hotCity.nextRefreshAt = now + minIntervalNanos * i / mostSearched.size();
+                }
+                long lookups = cache.takeLookups(key);
+                if (minutes > 0) {
+                    hotCity.demand = smooth(hotCity.demand, lookups / minutes);
+                }
+                hotCities.putIfAbsent(key, hotCity);
+            }
+        }
+    }
+
+    /**
+     * Starts the refresh of every hot city that is due, most searched first.
+     */
+    @Scheduled(fixedDelayString = "${weather.refresh.tick}")
+    public void refreshDueCities() {
+        List<HotCity> due = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (!leader || now - leaseValidUntil >= 0) {
+                return;
+            }
+            for (HotCity hotCity : hotCities.values()) {
+                if (inFlight >= maxConcurrency) {
+                    break;
+                }
+                if (!hotCity.refreshing && now - hotCity.nextRefreshAt >= 0) {
+                    hotCity.refreshing = true;
+                    inFlight++;
+                    due.add(hotCity);
+                }
+            }
+        }
+
+        for (HotCity hotCity : due) {
+            weatherService.refreshWeather(hotCity.city)
+                    .doOnNext(data -> updated(hotCity, data))
+                    .doOnError(e -> failed.increment())
+                    .doFinally(signal -> rescheduled(hotCity))
+                    .subscribe(data -> { }, e -> log.debug("Refresh of {} failed", hotCity.city, e));
+        }
+    }
+
+    /**
+     * Gives the lease up on shutdown, so that another node takes over without waiting for it to expire.
+     */
+    @PreDestroy
+    public void releaseLease() {
+        synchronized (this) {
+            if (!leader) {
+                return;
+            }
+            leader = false;
+        }
+        leaseRepository.release(LEASE, nodeId);
+    }
+
+    /**
+     * Returns whether this node holds the lease, the number of hot cities and the refresh counters.
+     *
+     * @return the current {@link RefreshStats}
+     */
+    public synchronized RefreshStats stats() {
+        return new RefreshStats(leader, hotCities.size(), refreshed.sum(), failed.sum());
+    }
+
+    /**
+     * Updates the change rate of a city from a new reading.
+     */
+    private synchronized void updated(HotCity hotCity, WeatherData data) {
+        long now = System.nanoTime();
+        if (hotCity.last != null) {
+            double hours = Math.max(now - hotCity.lastRefreshedAt, 1) / 3.6e12;
+            hotCity.change = smooth(hotCity.change, change(hotCity.last, data) / hours);
+        }
+        hotCity.last = data;
+        hotCity.lastRefreshedAt = now;
+        refreshed.increment();
+    }
+
+    /**
+     * Schedules the next refresh of a city after a successful or failed one.
+     */
+    private synchronized void rescheduled(HotCity hotCity) {
+        double factor = (1 + hotCity.demand / demandReference) * (1 + hotCity.change / changeReference);
+        long interval = Math.clamp((long) (maxIntervalNanos / factor), minIntervalNanos, maxIntervalNanos);
+        double spread = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        hotCity.nextRefreshAt = System.nanoTime() + (long) (interval * spread);
+        hotCity.refreshing = false;
+        inFlight--;
+    }
+
+    /**
+     * Scores how much the weather changed between two readings.
+     */
+    static double change(WeatherData previous, WeatherData current) {
+        return Math.abs(current.getTemperature() - previous.getTemperature())
+                + Math.abs(current.getHumidity() - previous.getHumidity()) / 10.0
+                + Math.abs(current.getWindSpeed() - previous.getWindSpeed()) / 10.0
+                + Math.abs(current.getUvIndex() - previous.getUvIndex())
+                + (current.getWeather_description().equals(previous.getWeather_description()) ? 0 : 1);
+    }
+
+    private static double smooth(double average, double value) {
+        return average + SMOOTHING * (value - average);
+    }
+
+    /**
+     * Whether this node refreshes the hot cities, how many there are, and the refreshes so far.
+     *
+     * @param leader    {@code true} if this node holds the lease
+     * @param cities    the number of hot cities kept refreshed
+     * @param refreshed the refreshes that fetched a new reading
+     * @param failed    the refreshes that failed
+     */
+    public record RefreshStats(boolean leader, int cities, long refreshed, long failed) {
+    }
+
+    /**
+     * The refresh state of one hot city, guarded by the refresher.
+     */
+    private static final class HotCity {
+        private final String city;
+        private double demand;
+        private double change;
+        private long nextRefreshAt;
+        private long lastRefreshedAt;
+        private boolean refreshing;
+        private WeatherData last;
+
+        private HotCity(String city) {
+            this.city = city;
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.CityStats;
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.model.WeatherTotals;
+import gr.unipi.weather_app.repository.CityStatsRepository;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the recent weather readings of every city in memory, as primitive columns.
+ * <p>
+ * Each city is interned to an id on its first reading, which indexes its {@link Series}: the
+ * readings of the last {@code window} held in a ring buffer of {@code int} columns for the
+ * temperature, humidity, wind speed and UV index and a {@code long} column for the
+ * timestamp, together with the running totals and temperature records of all its readings.
+ * The totals are seeded from {@link CityStats} at startup, so they also count the readings
+ * older than the window or already downsampled, and the ring buffers from the readings of
+ * the window. Every batch saved by the {@link WeatherIngestService} is then added once it
+ * is committed.
+ * <p>
+ * The averages of a city and the hottest and coldest cities are answered from the totals,
+ * and the averages of the last days by scanning the columns of every city back from its
+ * newest reading, without creating any object but the result. The store only covers the time since the start of
+ * the window, or since the oldest raw reading if it was downsampled; earlier ranges are
+ * left to the database. It only sees the readings saved by this node, so it is meant for
+ * deployments where a single node writes to the database.
+ * <p>
+ * Readers share a {@link StampedLock}, so queries run in parallel and only wait while a
+ * batch is added.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "weather.recent.enabled", havingValue = "true")
+public class RecentWeatherStore {
+
+    /**
+     * The number of readings a city's ring buffer is allocated for on its first reading of the window.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int[] NO_INTS = new int[0];
+    private static final long[] NO_LONGS = new long[0];
+
+    private final WeatherRepository repository;
+    private final CityStatsRepository cityStatsRepository;
+    private final TransactionTemplate readOnly;
+    private final long windowMillis;
+    private final StampedLock lock = new StampedLock();
+
+    private Map<String, Integer> ids = new HashMap<>();
+    private Series[] series = new Series[0];
+    private int cities;
+
+    /**
+     * The epoch milliseconds from which every stored reading is held, or {@link Long#MAX_VALUE} before loading.
+     */
+    private long coveredFrom = Long.MAX_VALUE;
+
+    /**
+     * Constructs a new {@code RecentWeatherStore}.
+     *
+     * @param repository          the repository of the raw readings the ring buffers are loaded from
+     * @param cityStatsRepository the repository of the per-city totals the totals are seeded from
+     * @param transactionManager  the transaction manager running the loading transaction
+     * @param window              how long readings are held for the averages of the last days
+     */
+    public RecentWeatherStore(WeatherRepository repository, CityStatsRepository cityStatsRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${weather.recent.window}") Duration window) {
+        this.repository = repository;
+        this.cityStatsRepository = cityStatsRepository;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.windowMillis = window.toMillis();
+    }
+
+    /**
+     * Loads the per-city totals and the readings of the window from the database, replacing the held ones.
+     * <p>
+     * Must not run concurrently with {@link #add(List)}, which the {@link WeatherIngestService} ensures.
+     */
+    @PostConstruct
+    public void load() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime from = now.minus(Duration.ofMillis(windowMillis));
+        Map<String, Integer> loadedIds = new HashMap<>();
+        List<Series> loaded = new ArrayList<>();
+        long[] held = {0};
+
+        LocalDateTime oldest = readOnly.execute(status -> {
+            for (CityStats stats : cityStatsRepository.findAll()) {
+                series(loadedIds, loaded, stats.getCity()).seed(stats);
+            }
+            try (Stream<Object[]> readings = repository.streamByTimestamp(from)) {
+                readings.forEach(row -> {
+                    series(loadedIds, loaded, (String) row[0]).hold((Integer) row[1], (Integer) row[2],
+                            (Integer) row[3], (Integer) row[4], millis((LocalDateTime) row[5]), windowMillis);
+                    held[0]++;
+                });
+            }
+            return repository.findOldestTimestamp().orElse(now);
+        });
+
+        long stamp = lock.writeLock();
+        try {
+            ids = loadedIds;
+            series = loaded.toArray(Series[]::new);
+            cities = series.length;
+            // Readings of the days before the oldest raw reading, if any, are only left in the buckets
+            coveredFrom = Math.max(millis(from), millis(oldest.truncatedTo(ChronoUnit.DAYS)));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("Loaded {} recent readings of {} cities into memory ({} KiB)", held[0], loaded.size(),
+                footprint() / 1024);
+    }
+
+    private Series series(Map<String, Integer> ids, List<Series> series, String city) {
+        Integer id = ids.get(city);
+        if (id == null) {
+            ids.put(city, series.size());
+            series.add(new Series(city));
+            return series.getLast();
+        }
+        return series.get(id);
+    }
+
+    /**
+     * Adds a batch of committed readings.
+     *
+     * @param batch the saved weather readings
+     */
+    public void add(List<WeatherData> batch) {
+        long stamp = lock.writeLock();
+        try {
+            for (WeatherData data : batch) {
+                Integer id = ids.get(data.getCity());
+                if (id == null) {
+                    id = cities;
+                    ids.put(data.getCity(), id);
+                    if (cities == series.length) {
+                        series = Arrays.copyOf(series, Math.max(INITIAL_CAPACITY, cities * 2));
+                    }
+                    series[cities++] = new Series(data.getCity());
+                }
+                long evicted = series[id].add(data.getTemperature(), data.getHumidity(), data.getWindSpeed(),
+                        data.getUvIndex(), millis(data.getTimestamp()), windowMillis);
+                if (evicted != Long.MIN_VALUE) {
+                    coveredFrom = Math.max(coveredFrom, evicted + 1);
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns whether every reading recorded from a given time on is held.
+     *
+     * @param from the start of a time range
+     * @return {@code true} if {@link #getTotalsSince(LocalDateTime)} can answer the range
+     */
+    public boolean covers(LocalDateTime from) {
+        long stamp = lock.readLock();
+        try {
+            return millis(from) >= coveredFrom;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the totals of every reading of a city, including the ones older than the window.
+     *
+     * @param city the name of the city
+     * @return the {@link WeatherTotals} of the city, empty if it has no readings
+     */
+    public WeatherTotals getTotalsOfCity(String city) {
+        long stamp = lock.readLock();
+        try {
+            Integer id = ids.get(city);
+            if (id == null) {
+                return WeatherTotals.EMPTY;
+            }
+            Series s = series[id];
+            return new WeatherTotals(s.readings, s.temperatureSum, s.humiditySum, s.windSpeedSum, s.uvIndexSum);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Adds up the held readings recorded from a given time on, scanning the columns of every
+     * city back from its newest reading.
+     *
+     * @param from the inclusive start of the range, which the store must {@link #covers(LocalDateTime) cover}
+     * @return the combined {@link WeatherTotals} of all cities
+     */
+    public WeatherTotals getTotalsSince(LocalDateTime from) {
+        long fromMillis = millis(from);
+        long readings = 0, temperature = 0, humidity = 0, windSpeed = 0, uvIndex = 0;
+        long stamp = lock.readLock();
+        try {
+            for (int id = 0; id < cities; id++) {
+                Series s = series[id];
+                // Newest first, until the first reading before the range
+                for (int i = s.size - 1; i >= 0; i--) {
+                    int slot = s.slot(i);
+                    if (s.timestamp[slot] < fromMillis) {
+                        break;
+                    }
+                    readings++;
+                    temperature += s.temperature[slot];
+                    humidity += s.humidity[slot];
+                    windSpeed += s.windSpeed[slot];
+                    uvIndex += s.uvIndex[slot];
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return new WeatherTotals(readings, temperature, humidity, windSpeed, uvIndex);
+    }
+
+    /**
+     * Finds the cities with the highest recorded temperature.
+     *
+     * @return the hottest cities by name, more than one if tied, or an empty list if nothing is stored
+     */
+    public List<CityTemperature> findHottestCity() {
+        return findRecordCities(true);
+    }
+
+    /**
+     * Finds the cities with the lowest recorded temperature.
+     *
+     * @return the coldest cities by name, more than one if tied, or an empty list if nothing is stored
+     */
+    public List<CityTemperature> findColdestCity() {
+        return findRecordCities(false);
+    }
+
+    private List<CityTemperature> findRecordCities(boolean hottest) {
+        List<CityTemperature> found = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            int record = 0;
+            for (int id = 0; id < cities; id++) {
+                Series s = series[id];
+                if (s.readings == 0) {
+                    continue;
+                }
+                int temperature = hottest ? s.temperatureMax : s.temperatureMin;
+                if (found.isEmpty() || (hottest ? temperature > record : temperature < record)) {
+                    found.clear();
+                    record = temperature;
+                }
+                if (temperature == record) {
+                    found.add(new CityTemperature(s.city, temperature));
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        found.sort((a, b) -> a.city().compareTo(b.city()));
+        return found;
+    }
+
+    /**
+     * Ranks the cities by their highest recorded temperature.
+     *
+     * @param count the number of cities to return; cities tied with the last one are also returned
+     * @return the hottest cities with their highest temperatures, in ranking order
+     */
+    public List<CityTemperature> findHottestCities(int count) {
+        return rankCities(count, true);
+    }
+
+    /**
+     * Ranks the cities by their lowest recorded temperature.
+     *
+     * @param count the number of cities to return; cities tied with the last one are also returned
+     * @return the coldest cities with their lowest temperatures, in ranking order
+     */
+    public List<CityTemperature> findColdestCities(int count) {
+        return rankCities(count, false);
+    }
+
+    /**
+     * Sorts the cities by one packed {@code long} each, holding the temperature above the city id.
+     */
+    private List<CityTemperature> rankCities(int count, boolean hottest) {
+        List<CityTemperature> ranking = new ArrayList<>();
+        long stamp = lock.readLock();
+        try {
+            long[] keys = new long[cities];
+            int ranked = 0;
+            for (int id = 0; id < cities; id++) {
+                Series s = series[id];
+                if (s.readings > 0) {
+                    long temperature = hottest ? -(long) s.temperatureMax : s.temperatureMin;
+                    keys[ranked++] = temperature << 32 | id;
+                }
+            }
+            Arrays.sort(keys, 0, ranked);
+            for (int i = 0; i < ranked; i++) {
+                Series s = series[(int) keys[i]];
+                int temperature = hottest ? s.temperatureMax : s.temperatureMin;
+                if (ranking.size() >= count && temperature != ranking.getLast().temperature()) {
+                    break;
+                }
+                ranking.add(new CityTemperature(s.city, temperature));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        return ranking;
+    }
+
+    /**
+     * Estimates the memory held by the columns of the ring buffers, in bytes.
+     *
+     * @return the bytes of the allocated columns, excluding the city names and object headers
+     */
+    public long footprint() {
+        long stamp = lock.readLock();
+        try {
+            long bytes = 0;
+            for (int id = 0; id < cities; id++) {
+                bytes += (long) series[id].timestamp.length * (4 * Integer.BYTES + Long.BYTES);
+            }
+            return bytes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Converts a time the way the JDBC driver stores timestamps.
+     */
+    private static long millis(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime).getTime();
+    }
+
+    /**
+     * The readings of one city: its totals, and its readings of the window in a ring buffer
+     * of columns, in timestamp order from {@code head}.
+     */
+    private static final class Series {
+
+        private final String city;
+
+        private long readings;
+        private long temperatureSum;
+        private long humiditySum;
+        private long windSpeedSum;
+        private long uvIndexSum;
+        private int temperatureMin;
+        private int temperatureMax;
+
+        private int[] temperature = NO_INTS;
+        private int[] humidity = NO_INTS;
+        private int[] windSpeed = NO_INTS;
+        private int[] uvIndex = NO_INTS;
+        private long[] timestamp = NO_LONGS;
+        private int head;
+        private int size;
+
+        private Series(String city) {
+            this.city = city;
+        }
+
+        private void seed(CityStats stats) {
+            readings = stats.getReadings();
+            temperatureSum = stats.getTemperatureSum();
+            humiditySum = stats.getHumiditySum();
+            windSpeedSum = stats.getWindSpeedSum();
+            uvIndexSum = stats.getUvIndexSum();
+            temperatureMin = stats.getTemperatureMin();
+            temperatureMax = stats.getTemperatureMax();
+        }
+
+        /**
+         * Adds a new reading to the totals and the ring buffer.
+         *
+         * @return the timestamp of the newest reading evicted from the window, or {@link Long#MIN_VALUE} if none
+         */
+        private long add(int temperature, int humidity, int windSpeed, int uvIndex, long timestamp, long window) {
+            temperatureMin = readings == 0 ? temperature : Math.min(temperatureMin, temperature);
+            temperatureMax = readings == 0 ? temperature : Math.max(temperatureMax, temperature);
+            readings++;
+            temperatureSum += temperature;
+            humiditySum += humidity;
+            windSpeedSum += windSpeed;
+            uvIndexSum += uvIndex;
+            return hold(temperature, humidity, windSpeed, uvIndex, timestamp, window);
+        }
+
+        /**
+         * Adds a reading to the ring buffer only, evicting the readings that left the window.
+         *
+         * @return the timestamp of the newest evicted reading, or {@link Long#MIN_VALUE} if none
+         */
+        private long hold(int temperature, int humidity, int windSpeed, int uvIndex, long timestamp, long window) {
+            long evicted = Long.MIN_VALUE;
+            while (size > 0 && this.timestamp[head] < timestamp - window) {
+                evicted = this.timestamp[head];
+                head = head + 1 == this.timestamp.length ? 0 : head + 1;
+                size--;
+            }
+            if (size == this.timestamp.length) {
+                grow();
+            }
+            // Readings arrive almost in order, so a late one only moves a few newer ones up
+            int position = size;
+            while (position > 0 && this.timestamp[slot(position - 1)] > timestamp) {
+                move(slot(position - 1), slot(position));
+                position--;
+            }
+            int slot = slot(position);
+            this.temperature[slot] = temperature;
+            this.humidity[slot] = humidity;
+            this.windSpeed[slot] = windSpeed;
+            this.uvIndex[slot] = uvIndex;
+            this.timestamp[slot] = timestamp;
+            size++;
+            return evicted;
+        }
+
+        /**
+         * Returns the slot of the reading at a position of the ring buffer, counted from the oldest.
+         */
+        private int slot(int position) {
+            int slot = head + position;
+            return slot < timestamp.length ? slot : slot - timestamp.length;
+        }
+
+        private void move(int from, int to) {
+            temperature[to] = temperature[from];
+            humidity[to] = humidity[from];
+            windSpeed[to] = windSpeed[from];
+            uvIndex[to] = uvIndex[from];
+            timestamp[to] = timestamp[from];
+        }
+
+        /**
+         * Doubles the capacity of the ring buffer, moving the readings to the start of the new columns.
+         */
+        private void grow() {
+            int capacity = Math.max(INITIAL_CAPACITY, timestamp.length * 2);
+            temperature = unwrap(temperature, capacity);
+            humidity = unwrap(humidity, capacity);
+            windSpeed = unwrap(windSpeed, capacity);
+            uvIndex = unwrap(uvIndex, capacity);
+            long[] timestamps = new long[capacity];
+            System.arraycopy(timestamp, head, timestamps, 0, timestamp.length - head);
+            System.arraycopy(timestamp, 0, timestamps, timestamp.length - head, head);
+            timestamp = timestamps;
+            head = 0;
+        }
+
+        private int[] unwrap(int[] column, int capacity) {
+            int[] grown = new int[capacity];
+            System.arraycopy(column, head, grown, 0, column.length - head);
+            System.arraycopy(column, 0, grown, column.length - head, head);
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package gr.unipi.weather_app.service;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rebuilds the pre-aggregated weather tables from the stored history when the application
+ * is started with the {@code --rebuild-rollups} option.
+ * <p>
+ * The rebuild is one long write transaction over the whole history, so it runs in the
+ * first lifecycle phase: before the web server, the {@link WeatherDataWriter} and the
+ * scheduled jobs start, none of which could otherwise write until it ends. It runs through
+ * {@link WeatherIngestService#write} all the same, in turn with any other write.
+ */
+@Component
+public class RollupRebuild implements SmartLifecycle {
+
+    /**
+     * The command-line option requesting the rebuild.
+     */
+    public static final String OPTION = "rebuild-rollups";
+
+    private final ApplicationArguments arguments;
+    private final WeatherRollupService rollupService;
+    private final WeatherIngestService ingestService;
+
+    private volatile boolean running;
+
+    /**
+     * Constructs a new {@code RollupRebuild}.
+     *
+     * @param arguments     the command-line arguments of the application
+     * @param rollupService the service maintaining the pre-aggregated weather tables
+     * @param ingestService the service running the write transactions and reloading the recent readings
+     */
+    public RollupRebuild(ApplicationArguments arguments, WeatherRollupService rollupService,
+                         WeatherIngestService ingestService) {
+        this.arguments = arguments;
+        this.rollupService = rollupService;
+        this.ingestService = ingestService;
+    }
+
+    @Override
+    public void start() {
+        if (arguments.containsOption(OPTION)) {
+            System.out.println("Rebuilding weather statistics...");
+            Integer cities = ingestService.write(status -> rollupService.rebuild());
+            ingestService.reloadRecentReadings();
+            System.out.println("Rebuilt weather statistics for " + cities + " cities.");
+        }
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+}
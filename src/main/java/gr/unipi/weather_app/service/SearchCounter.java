@@ -0,0 +1,167 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.repository.CitySearchCountRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the searches of each city and keeps the most searched cities in memory.
+ * <p>
+ * A search only increments a {@link LongAdder} of its city, so concurrent searches never
+ * wait for each other or for the database. Every {@code flush-interval}, the new counts
+ * are added to the {@code city_search_count} table in one transaction, and the
+ * {@code leaderboard-size} most searched cities are read back into an immutable ranking
+ * that every leaderboard request is answered from. Because the counts are added rather
+ * than overwritten, the ranking includes the searches of every node sharing the database,
+ * and lags the searches by at most one flush interval.
+ */
+@Slf4j
+@Component
+public class SearchCounter {
+
+    private final CitySearchCountRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final int leaderboardSize;
+
+    /**
+     * The searches of each city since the last flush.
+     */
+    private final Map<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final LongAdder recorded = new LongAdder();
+
+    private volatile List<CitySearches> leaderboard = List.of();
+
+    /**
+     * Constructs a new {@code SearchCounter}.
+     *
+     * @param repository         the repository holding the search counts
+     * @param transactionManager the transaction manager running the flushes
+     * @param leaderboardSize    the number of most searched cities kept in memory
+     */
+    public SearchCounter(CitySearchCountRepository repository, PlatformTransactionManager transactionManager,
+                         @Value("${weather.search.leaderboard-size}") int leaderboardSize) {
+        this.repository = repository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.leaderboardSize = leaderboardSize;
+    }
+
+    /**
+     * Starts the counts of databases created before searches were counted, and loads the ranking.
+     */
+    @PostConstruct
+    void load() {
+        Integer imported = transactionTemplate.execute(status -> repository.importFromCityStats());
+        if (imported != null && imported > 0) {
+            log.info("Imported the search counts of {} cities from their stored readings", imported);
+        }
+        leaderboard = readLeaderboard();
+    }
+
+    /**
+     * Counts a search of a city.
+     *
+     * @param city the name of the city
+     */
+    public void record(String city) {
+        LongAdder searches = pending.get(city);
+        if (searches == null) {
+            searches = pending.computeIfAbsent(city, c -> new LongAdder());
+        }
+        searches.increment();
+        recorded.increment();
+    }
+
+    /**
+     * Returns the most searched cities.
+     *
+     * @param count the number of cities to return, at most {@code leaderboard-size}
+     * @return the cities with their search counts, most searched first
+     */
+    public List<CitySearches> mostSearched(int count) {
+        List<CitySearches> ranking = leaderboard;
+        return ranking.size() <= count ? ranking : ranking.subList(0, count);
+    }
+
+    /**
+     * Adds the searches counted since the last flush to the database and reloads the ranking.
+     * <p>
+     * If the counts cannot be written, they are kept for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${weather.search.flush-interval}")
+    public synchronized void flush() {
+        Map<String, Long> searches = takePending();
+        if (!searches.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> searches.forEach(repository::add));
+            } catch (RuntimeException e) {
+                searches.forEach((city, count) -> pending.computeIfAbsent(city, c -> new LongAdder()).add(count));
+                throw e;
+            }
+        }
+        leaderboard = readLeaderboard();
+    }
+
+    /**
+     * Writes the remaining searches before the database is closed.
+     */
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Returns the number of searches counted since startup and the number of cities waiting to be flushed.
+     *
+     * @return the current {@link SearchStats}
+     */
+    public SearchStats stats() {
+        int cities = (int) pending.values().stream().filter(searches -> searches.sum() > 0).count();
+        return new SearchStats(recorded.sum(), cities);
+    }
+
+    /**
+     * Takes the searches counted since the last flush, dropping the counters of cities not searched since.
+     */
+    private Map<String, Long> takePending() {
+        Map<String, Long> searches = new HashMap<>();
+        for (Map.Entry<String, LongAdder> entry : pending.entrySet()) {
+            long count = entry.getValue().sumThenReset();
+            if (count == 0 && pending.remove(entry.getKey(), entry.getValue())) {
+                // A search may have used the counter just before it was removed
+                count = entry.getValue().sumThenReset();
+            }
+            if (count > 0) {
+                searches.put(entry.getKey(), count);
+            }
+        }
+        return searches;
+    }
+
+    private List<CitySearches> readLeaderboard() {
+        return repository.findByOrderBySearchesDesc(Limit.of(leaderboardSize)).stream()
+                .map(count -> new CitySearches(count.getCity(), count.getSearches()))
+                .toList();
+    }
+
+    /**
+     * Counters describing the search counting.
+     *
+     * @param recorded the searches counted since startup
+     * @param pending  the cities with searches not yet written to the database
+     */
+    public record SearchStats(long recorded, int pending) {
+    }
+}
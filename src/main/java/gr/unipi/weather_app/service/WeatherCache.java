@@ -0,0 +1,213 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.City;
+import gr.unipi.weather_app.model.WeatherData;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory cache of the latest {@link WeatherData} per city.
+ * <p>
+ * Entries are keyed by the key of the canonical city name and go through three stages:
+ * fresh (younger than the TTL), stale (older than the TTL but still inside the
+ * stale window) and expired. Stale entries are still served to callers while a
+ * single background refresh is started for them. When the cache is full, the
+ * least recently used entry is evicted.
+ * <p>
+ * Each entry also counts the lookups of its city, which the {@link HotCityRefresher}
+ * reads to decide how often the city is worth refreshing.
+ */
+@Component
+public class WeatherCache {
+
+    private final long ttlNanos;
+    private final long staleNanos;
+    private final Map<String, Entry> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs a new {@code WeatherCache}.
+     *
+     * @param ttl         how long an entry is considered fresh
+     * @param staleWindow how long after the TTL an entry may still be served while it is refreshed
+     * @param maxSize     the maximum number of cities kept in memory
+     */
+    public WeatherCache(@Value("${weather.api.cache.ttl}") Duration ttl,
+                        @Value("${weather.api.cache.stale-window}") Duration staleWindow,
+                        @Value("${weather.api.cache.max-size}") int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.staleNanos = ttl.plus(staleWindow).toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Normalizes a city name into a cache key.
+     * <p>
+     * Readings are cached under the key of their canonical city name; the {@link CityDictionary}
+     * resolves the names entered by users, including aliases, to the same key.
+     *
+     * @param city the city name
+     * @return the {@link City#key(String) key} of the city name
+     */
+    public static String key(String city) {
+        return City.key(city);
+    }
+
+    /**
+     * Looks up the cached weather data for a key.
+     *
+     * @param key the normalized city key
+     * @return the cached weather data, or {@code null} if there is no usable entry
+     */
+    public CachedWeather get(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry != null) {
+            entry.lookups.increment();
+        }
+        long age = entry != null ? System.nanoTime() - entry.storedAt : Long.MAX_VALUE;
+        if (age >= staleNanos) {
+            misses.increment();
+            return null;
+        }
+        if (age >= ttlNanos) {
+            staleHits.increment();
+            return new CachedWeather(entry.data, true);
+        }
+        hits.increment();
+        return new CachedWeather(entry.data, false);
+    }
+
+    /**
+     * Stores the latest weather data for a key, replacing any previous entry.
+     *
+     * @param key  the normalized city key
+     * @param data the weather data to cache
+     */
+    public void put(String key, WeatherData data) {
+        Entry entry = new Entry(data, System.nanoTime());
+        synchronized (entries) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                entry.lookups.add(previous.lookups.sum());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of lookups of a key since the previous call and resets it.
+     * <p>
+     * Lookups are counted for as long as the key stays cached, including across updates.
+     *
+     * @param key the normalized city key
+     * @return the number of lookups since the previous call, or {@code 0} if the key is not cached
+     */
+    public long takeLookups(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        return entry != null ? entry.lookups.sumThenReset() : 0;
+    }
+
+    /**
+     * Marks the entry for a key as being refreshed.
+     * <p>
+     * Only the first caller gets {@code true}, so at most one background refresh
+     * runs per entry. A successful refresh replaces the entry through {@link #put};
+     * a failed one must call {@link #endRefresh} so that a later caller may retry.
+     *
+     * @param key the normalized city key
+     * @return {@code true} if the caller should perform the refresh
+     */
+    public boolean beginRefresh(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        return entry != null && entry.refreshing.compareAndSet(false, true);
+    }
+
+    /**
+     * Clears the refresh mark of an entry after a failed refresh.
+     *
+     * @param key the normalized city key
+     */
+    public void endRefresh(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache counters.
+     *
+     * @return the current {@link CacheStats}
+     */
+    public CacheStats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStats(hits.sum(), staleHits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    /**
+     * A cached weather reading together with its freshness.
+     *
+     * @param data  the cached weather data
+     * @param stale {@code true} if the entry is past its TTL and should be refreshed
+     */
+    public record CachedWeather(WeatherData data, boolean stale) {
+    }
+
+    /**
+     * Counters describing how effective the cache is.
+     *
+     * @param hits      lookups answered with a fresh entry
+     * @param staleHits lookups answered with a stale entry while it was refreshed
+     * @param misses    lookups that had to go to the weather API
+     * @param evictions entries removed because the cache was full
+     * @param size      the number of entries currently cached
+     */
+    public record CacheStats(long hits, long staleHits, long misses, long evictions, int size) {
+    }
+
+    private static final class Entry {
+        private final WeatherData data;
+        private final long storedAt;
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+        private final LongAdder lookups = new LongAdder();
+
+        private Entry(WeatherData data, long storedAt) {
+            this.data = data;
+            this.storedAt = storedAt;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherData;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind buffer for {@link WeatherData} rows.
+ * <p>
+ * Readings are queued by {@link #submit} and written by a single background thread
+ * in batches through {@link WeatherIngestService#ingest}. A batch is flushed as soon as
+ * it reaches {@code batch-size} rows or {@code flush-interval} after its first row,
+ * whichever comes first. When the queue is full, {@link #submit} blocks the caller
+ * until there is room. On shutdown, the queue is drained before the application
+ * context closes the database.
+ * <p>
+ * A batch that fails to be written, for example because the database stayed locked, is
+ * written again after a pause doubling with each attempt, while newer readings wait in the
+ * queue behind it. Its ids are cleared before each new attempt, so its readings are inserted
+ * rather than merged into rows the failed transaction never kept. It is dropped only once
+ * {@code retry-attempts} attempts have failed, and its readings are counted by {@link #dropped()}.
+ */
+@Slf4j
+@Component
+public class WeatherDataWriter implements SmartLifecycle {
+
+    private final WeatherIngestService ingestService;
+    private final BlockingQueue<WeatherData> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long submitTimeoutNanos;
+    private final int retryAttempts;
+    private final Duration retryBackoff;
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Held for reading while a reading is queued, and for writing while the writer starts or
+     * stops, so no reading is queued once the flusher may have seen the queue empty for the last time.
+     */
+    private final ReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread flusher;
+
+    /**
+     * Constructs a new {@code WeatherDataWriter}.
+     *
+     * @param ingestService the service writing each batch in a single transaction
+     * @param capacity      the maximum number of readings waiting to be written
+     * @param batchSize     the maximum number of readings written per batch
+     * @param flushInterval the maximum time a reading waits for its batch to fill up
+     * @param submitTimeout the maximum time {@link #submit} waits for room in a full queue
+     * @param retryAttempts the number of times a batch is written before it is dropped
+     * @param retryBackoff  the pause before the second attempt to write a batch, doubled before each further one
+     */
+    public WeatherDataWriter(WeatherIngestService ingestService,
+                             @Value("${weather.persistence.write-behind.capacity}") int capacity,
+                             @Value("${weather.persistence.write-behind.batch-size}") int batchSize,
+                             @Value("${weather.persistence.write-behind.flush-interval}") Duration flushInterval,
+                             @Value("${weather.persistence.write-behind.submit-timeout}") Duration submitTimeout,
+                             @Value("${weather.persistence.write-behind.retry-attempts}") int retryAttempts,
+                             @Value("${weather.persistence.write-behind.retry-backoff}") Duration retryBackoff) {
+        this.ingestService = ingestService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.submitTimeoutNanos = submitTimeout.toNanos();
+        this.retryAttempts = retryAttempts;
+        this.retryBackoff = retryBackoff;
+    }
+
+    /**
+     * Queues a weather reading to be written by the next batch.
+     *
+     * @param data the unsaved weather reading
+     * @throws IllegalStateException if the writer is stopped or the queue stayed full for too long
+     */
+    public void submit(WeatherData data) {
+        lifecycleLock.readLock().lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Weather data writer is not running");
+            }
+            if (!queue.offer(data, submitTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new IllegalStateException("Weather data write-behind queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing weather data", e);
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of readings waiting to be written.
+     *
+     * @return the current queue depth
+     */
+    public int pending() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of readings dropped because their batch could not be written.
+     *
+     * @return the total number of dropped readings
+     */
+    public long dropped() {
+        return dropped.get();
+    }
+
+    @Override
+    public void start() {
+        lifecycleLock.writeLock().lock();
+        try {
+            running = true;
+            flusher = Thread.ofPlatform().name("weather-data-writer").start(this::run);
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void stop() {
+        // Waits for the readings being queued, which the flusher then drains before it ends
+        lifecycleLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            lifecycleLock.writeLock().unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        List<WeatherData> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                WeatherData first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch, System.nanoTime() + flushIntervalNanos);
+            } catch (InterruptedException e) {
+                // Keep draining; the loop ends once stopped and empty
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds queued readings to the batch until it is full or the deadline has passed.
+     */
+    private void fill(List<WeatherData> batch, long deadline) throws InterruptedException {
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            WeatherData next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<WeatherData> batch) {
+        Duration backoff = retryBackoff;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                ingestService.ingest(batch);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= retryAttempts) {
+                    dropped.addAndGet(batch.size());
+                    log.error("Dropped {} weather readings after {} failed attempts to write them",
+                            batch.size(), attempt, e);
+                    return;
+                }
+                log.warn("Failed to write {} weather readings, retrying in {}", batch.size(), backoff, e);
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                // Retry at once; the loop ends once stopped and empty
+            }
+            backoff = backoff.multipliedBy(2);
+            // The failed attempt assigned ids the rolled back rows never kept, which would make them be merged
+            batch.forEach(data -> data.setId(0));
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Service class responsible for persisting batches of {@link WeatherData}.
+ * <p>
+ * Every batch is written in a single transaction. Combined with pooled ids and the
+ * Hibernate batch settings in {@code application.yaml}, the rows of a batch are sent
+ * to SQLite as JDBC batches and committed once.
+ * <p>
+ * SQLite accepts a single writer at a time, so batches are written one after the other.
+ * Waiting here instead of on the database lock also keeps concurrent batches from holding
+ * every writer connection while each needs another one to reserve ids.
+ * <p>
+ * Once a batch is committed, it is added to the {@link RecentWeatherStore}, if enabled,
+ * before the next batch is written, so the store holds the readings in commit order.
+ */
+@Service
+public class WeatherIngestService {
+
+    private final WeatherRepository repository;
+    private final WeatherRollupService rollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final RecentWeatherStore recentStore;
+    private final ReentrantLock writeLock = new ReentrantLock(true);
+
+    /**
+     * Constructs a new {@code WeatherIngestService}.
+     *
+     * @param repository         the repository used for weather data persistence
+     * @param rollupService      the service keeping the pre-aggregated tables up to date
+     * @param transactionManager the transaction manager running the batch transactions
+     * @param recentStore        the in-memory store of the recent readings, if enabled
+     */
+    public WeatherIngestService(WeatherRepository repository, WeatherRollupService rollupService,
+                                PlatformTransactionManager transactionManager,
+                                ObjectProvider<RecentWeatherStore> recentStore) {
+        this.repository = repository;
+        this.rollupService = rollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.recentStore = recentStore.getIfAvailable();
+    }
+
+    /**
+     * Saves a batch of weather readings and updates the pre-aggregated tables
+     * in a single transaction.
+     *
+     * @param batch the unsaved weather readings
+     * @return the saved weather readings
+     */
+    public List<WeatherData> ingest(List<WeatherData> batch) {
+        writeLock.lock();
+        try {
+            List<WeatherData> saved = write(status -> {
+                List<WeatherData> written = repository.saveAll(batch);
+                rollupService.apply(written);
+                return written;
+            });
+            if (recentStore != null) {
+                recentStore.add(saved);
+            }
+            return saved;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Reloads the {@link RecentWeatherStore}, if enabled, from the database, in turn with
+     * the batches of readings, so that none is missed or added twice.
+     */
+    public void reloadRecentReadings() {
+        if (recentStore == null) {
+            return;
+        }
+        writeLock.lock();
+        try {
+            recentStore.load();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Runs a write transaction in turn with the batches of readings.
+     * <p>
+     * Background jobs writing to the database, such as the partition maintenance, split their
+     * work into short transactions run through here, so a waiting batch is written between
+     * any two of them.
+     *
+     * @param action the work of the transaction
+     * @param <T>    the type of the result
+     * @return the result of the action
+     */
+    public <T> T write(TransactionCallback<T> action) {
+        writeLock.lock();
+        try {
+            return transactionTemplate.execute(action);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+}
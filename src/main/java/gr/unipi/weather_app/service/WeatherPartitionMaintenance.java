@@ -0,0 +1,260 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherPartition;
+import gr.unipi.weather_app.repository.SchedulerLeaseRepository;
+import gr.unipi.weather_app.repository.WeatherPartitions;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Moves past months of weather readings into their archive tables and applies the retention policy.
+ * <p>
+ * Every {@code interval}, the job works through three steps, oldest data first:
+ * <ol>
+ *     <li>Raw readings older than {@code raw} are downsampled, a day at a time. Their hourly
+ *     buckets are updated as the readings are stored, so a day is only deleted once its
+ *     buckets hold at least as many readings as the partitions do; otherwise the job stops
+ *     and asks for a rebuild of the rollups. Archives left empty are dropped.</li>
+ *     <li>Readings of past months still in "weather_data" are moved into the archive of their
+ *     month, which is created and recorded in the catalog first, as described in
+ *     {@link WeatherPartitions}.</li>
+ *     <li>Hourly buckets older than {@code hourly} are deleted. The daily buckets and the
+ *     per-city totals are kept forever.</li>
+ * </ol>
+ * Rows are moved and deleted {@code batch-size} at a time, each batch in a transaction of its
+ * own run through {@link WeatherIngestService#write}, so new readings are written between any
+ * two batches and never wait for more than one. Deleted pages are reused by later inserts,
+ * so the database file stops growing once the retention is reached.
+ * <p>
+ * Only the node holding the {@value #LEASE} lease runs the job, renewing it after every day or month it completes.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "weather.retention.enabled", havingValue = "true")
+public class WeatherPartitionMaintenance {
+
+    /**
+     * The name of the lease held by the node running the maintenance.
+     */
+    static final String LEASE = "weather-partition-maintenance";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnly;
+    private final WeatherIngestService ingestService;
+    private final SchedulerLeaseRepository leaseRepository;
+    private final Duration rawRetention;
+    private final Duration hourlyRetention;
+    private final int batchSize;
+    private final Duration leaseDuration;
+    private final String nodeId;
+
+    /**
+     * Constructs a new {@code WeatherPartitionMaintenance}.
+     *
+     * @param dataSource         the data source of the persistence unit
+     * @param transactionManager the transaction manager running the read-only transactions
+     * @param ingestService      the service running the write transactions in turn with the batches of readings
+     * @param leaseRepository    the repository of the leases shared by all nodes
+     * @param rawRetention       how long raw readings are kept, or zero to keep them forever
+     * @param hourlyRetention    how long hourly buckets are kept, at least the raw retention, or zero to keep them forever
+     * @param batchSize          the number of rows moved or deleted per transaction
+     * @param leaseDuration      how long the lease lasts without being renewed
+     * @param nodeId             the identifier of this node, or blank to use the process name
+     */
+    public WeatherPartitionMaintenance(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                       WeatherIngestService ingestService, SchedulerLeaseRepository leaseRepository,
+                                       @Value("${weather.retention.raw}") Duration rawRetention,
+                                       @Value("${weather.retention.hourly}") Duration hourlyRetention,
+                                       @Value("${weather.retention.batch-size}") int batchSize,
+                                       @Value("${weather.retention.lease-duration}") Duration leaseDuration,
+                                       @Value("${weather.retention.node-id:}") String nodeId) {
+        if (!rawRetention.isZero() && !hourlyRetention.isZero() && hourlyRetention.compareTo(rawRetention) < 0) {
+            throw new IllegalArgumentException("weather.retention.hourly must be at least weather.retention.raw");
+        }
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.ingestService = ingestService;
+        this.leaseRepository = leaseRepository;
+        this.rawRetention = rawRetention;
+        this.hourlyRetention = hourlyRetention;
+        this.batchSize = batchSize;
+        this.leaseDuration = leaseDuration;
+        this.nodeId = nodeId.isBlank() ? ManagementFactory.getRuntimeMXBean().getName() : nodeId;
+    }
+
+    /**
+     * Runs the maintenance if this node holds the lease.
+     */
+    @Scheduled(initialDelayString = "${weather.retention.initial-delay}", fixedDelayString = "${weather.retention.interval}")
+    public void run() {
+        run(LocalDateTime.now());
+    }
+
+    /**
+     * Runs the maintenance as of the given time.
+     *
+     * @param now the current time
+     */
+    void run(LocalDateTime now) {
+        if (!renewLease()) {
+            return;
+        }
+        long downsampled = rawRetention.isZero() ? 0 : downsample(now.minus(rawRetention).truncatedTo(ChronoUnit.DAYS));
+        long archived = archive(YearMonth.from(now));
+        long expired = hourlyRetention.isZero() ? 0 : expireHourly(now.minus(hourlyRetention).truncatedTo(ChronoUnit.DAYS));
+        if (downsampled + archived + expired > 0) {
+            log.info("Downsampled {} raw readings, archived {} and deleted {} hourly buckets", downsampled, archived, expired);
+        }
+    }
+
+    private boolean renewLease() {
+        long now = System.currentTimeMillis();
+        return leaseRepository.acquire(LEASE, nodeId, now, now + leaseDuration.toMillis()) == 1;
+    }
+
+    /**
+     * Deletes the raw readings of every day before the cutoff whose hourly buckets hold them.
+     *
+     * @param cutoff the start of the first day to keep
+     * @return the number of deleted readings
+     */
+    private long downsample(LocalDateTime cutoff) {
+        long deleted = 0;
+        LocalDateTime oldest;
+        while ((oldest = oldestReading()) != null && oldest.isBefore(cutoff)) {
+            LocalDateTime day = oldest.truncatedTo(ChronoUnit.DAYS);
+            LocalDateTime next = day.plusDays(1);
+            long[] readings = readOnly.execute(status -> new long[]{
+                    rawReadings(day, next),
+                    jdbcTemplate.queryForObject("SELECT COALESCE(SUM(readings), 0) FROM weather_hourly " +
+                            "WHERE bucket_start >= ? AND bucket_start < ?", Long.class, timestamp(day), timestamp(next))});
+            if (readings[1] < readings[0]) {
+                log.warn("The hourly buckets of {} hold {} of its {} raw readings, which are kept until the " +
+                        "rollups are rebuilt with --rebuild-rollups", day.toLocalDate(), readings[1], readings[0]);
+                break;
+            }
+            long deletedOfDay = 0;
+            for (String table : readOnly.execute(status -> WeatherPartitions.tables(jdbcTemplate, day, next))) {
+                int rows;
+                while ((rows = ingestService.write(status -> deleteBatch(table, day, next))) > 0) {
+                    deletedOfDay += rows;
+                }
+            }
+            deleted += deletedOfDay;
+            if (deletedOfDay == 0 || !renewLease()) {
+                return deleted;
+            }
+        }
+
+        List<WeatherPartition> expired = readOnly.execute(status -> WeatherPartitions.archives(jdbcTemplate, null, cutoff));
+        for (WeatherPartition archive : expired) {
+            if (archive.getRangeEnd().isAfter(cutoff)) {
+                continue;
+            }
+            ingestService.write(status -> {
+                if (jdbcTemplate.queryForList("SELECT 1 FROM " + archive.getName() + " LIMIT 1").isEmpty()) {
+                    WeatherPartitions.dropArchive(jdbcTemplate, archive.getName());
+                    log.info("Dropped the empty archive {}", archive.getName());
+                }
+                return null;
+            });
+        }
+        return deleted;
+    }
+
+    private LocalDateTime oldestReading() {
+        return readOnly.execute(status -> WeatherPartitions.oldest(jdbcTemplate, WeatherPartitions.tables(jdbcTemplate, null, null)));
+    }
+
+    private long rawReadings(LocalDateTime from, LocalDateTime to) {
+        long readings = 0;
+        for (String table : WeatherPartitions.tables(jdbcTemplate, from, to)) {
+            readings += jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table +
+                    " WHERE timestamp >= ? AND timestamp < ?", Long.class, timestamp(from), timestamp(to));
+        }
+        return readings;
+    }
+
+    private int deleteBatch(String table, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN (SELECT id FROM " + table +
+                " WHERE timestamp >= ? AND timestamp < ? LIMIT " + batchSize + ")", timestamp(from), timestamp(to));
+    }
+
+    /**
+     * Moves the readings of every month before the current one from "weather_data" into their archives.
+     *
+     * @param current the current month
+     * @return the number of moved readings
+     */
+    private long archive(YearMonth current) {
+        LocalDateTime monthStart = current.atDay(1).atStartOfDay();
+        long moved = 0;
+        LocalDateTime oldest;
+        while ((oldest = oldestHotReading()) != null && oldest.isBefore(monthStart)) {
+            YearMonth month = YearMonth.from(oldest);
+            WeatherPartition archive = ingestService.write(status -> WeatherPartitions.createArchive(jdbcTemplate, month));
+            int rows;
+            while ((rows = ingestService.write(status -> moveBatch(archive))) > 0) {
+                moved += rows;
+            }
+            if (!renewLease()) {
+                break;
+            }
+        }
+        return moved;
+    }
+
+    private LocalDateTime oldestHotReading() {
+        return readOnly.execute(status -> WeatherPartitions.oldest(jdbcTemplate, List.of(WeatherPartitions.HOT)));
+    }
+
+    private int moveBatch(WeatherPartition archive) {
+        // Both statements select the same rows, since nothing else writes within the transaction
+        String batch = "SELECT id FROM " + WeatherPartitions.HOT + " WHERE timestamp >= ? AND timestamp < ? LIMIT " + batchSize;
+        Timestamp from = timestamp(archive.getRangeStart());
+        Timestamp to = timestamp(archive.getRangeEnd());
+        int copied = jdbcTemplate.update("INSERT INTO " + archive.getName() + " (" + WeatherPartitions.COLUMNS + ") " +
+                "SELECT " + WeatherPartitions.COLUMNS + " FROM " + WeatherPartitions.HOT + " WHERE id IN (" + batch + ")", from, to);
+        int deleted = jdbcTemplate.update("DELETE FROM " + WeatherPartitions.HOT + " WHERE id IN (" + batch + ")", from, to);
+        if (copied != deleted) {
+            throw new IllegalStateException("Copied " + copied + " readings into " + archive.getName() + " but deleted " + deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes the hourly buckets starting before the cutoff.
+     *
+     * @param cutoff the start of the first bucket to keep
+     * @return the number of deleted buckets
+     */
+    private long expireHourly(LocalDateTime cutoff) {
+        long deleted = 0;
+        int rows;
+        while ((rows = ingestService.write(status -> jdbcTemplate.update("DELETE FROM weather_hourly WHERE rowid IN " +
+                "(SELECT rowid FROM weather_hourly WHERE bucket_start < ? LIMIT " + batchSize + ")", timestamp(cutoff)))) > 0) {
+            deleted += rows;
+        }
+        return deleted;
+    }
+
+    private static Timestamp timestamp(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime);
+    }
+}
@@ -0,0 +1,182 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.CityStats;
+import gr.unipi.weather_app.model.DailyWeather;
+import gr.unipi.weather_app.model.HourlyWeather;
+import gr.unipi.weather_app.model.WeatherBucket;
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.model.WeatherTotals;
+import gr.unipi.weather_app.repository.CityStatsRepository;
+import gr.unipi.weather_app.repository.DailyWeatherRepository;
+import gr.unipi.weather_app.repository.HourlyWeatherRepository;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Service class responsible for keeping the pre-aggregated weather tables up to date.
+ * <p>
+ * The per-city totals in "city_stats" and the hourly and daily buckets in "weather_hourly"
+ * and "weather_daily" are updated in the same transaction that inserts the readings, and
+ * can be rebuilt from the stored "weather_data" history. Since the hourly buckets exist as soon
+ * as a reading is stored, they are what raw readings are downsampled into once they expire.
+ */
+@Service
+public class WeatherRollupService {
+
+    /**
+     * The number of buckets a rebuild inserts before clearing them from the persistence context.
+     */
+    private static final int REBUILD_FLUSH_SIZE = 5000;
+
+    private final CityStatsRepository cityStatsRepository;
+    private final HourlyWeatherRepository hourlyRepository;
+    private final DailyWeatherRepository dailyRepository;
+    private final WeatherRepository weatherRepository;
+    private final EntityManager entityManager;
+
+    /**
+     * Constructs a new {@code WeatherRollupService}.
+     *
+     * @param cityStatsRepository the repository holding the per-city totals
+     * @param hourlyRepository    the repository holding the hourly totals
+     * @param dailyRepository     the repository holding the daily totals
+     * @param weatherRepository   the repository holding the raw readings
+     * @param entityManager       the entity manager inserting the rebuilt buckets
+     */
+    public WeatherRollupService(CityStatsRepository cityStatsRepository, HourlyWeatherRepository hourlyRepository,
+                                DailyWeatherRepository dailyRepository, WeatherRepository weatherRepository,
+                                EntityManager entityManager) {
+        this.cityStatsRepository = cityStatsRepository;
+        this.hourlyRepository = hourlyRepository;
+        this.dailyRepository = dailyRepository;
+        this.weatherRepository = weatherRepository;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Adds a batch of new readings to the per-city totals and to their hourly and daily buckets.
+     * <p>
+     * Must be called in the transaction that inserts the readings.
+     *
+     * @param batch the readings being inserted
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(List<WeatherData> batch) {
+        Map<String, CityStats> byCity = new LinkedHashMap<>();
+        Map<WeatherBucket.Key, HourlyWeather> byHour = new LinkedHashMap<>();
+        Map<WeatherBucket.Key, DailyWeather> byDay = new LinkedHashMap<>();
+        for (WeatherData data : batch) {
+            byCity.computeIfAbsent(data.getCity(), CityStats::new).add(data);
+            add(byHour, HourlyWeather::new, ChronoUnit.HOURS, data.getCity(), data.getTemperature(),
+                    data.getHumidity(), data.getWindSpeed(), data.getUvIndex(), data.getTimestamp());
+            add(byDay, DailyWeather::new, ChronoUnit.DAYS, data.getCity(), data.getTemperature(),
+                    data.getHumidity(), data.getWindSpeed(), data.getUvIndex(), data.getTimestamp());
+        }
+        byCity.values().forEach(cityStatsRepository::add);
+        byHour.values().forEach(hourlyRepository::add);
+        byDay.values().forEach(dailyRepository::add);
+    }
+
+    /**
+     * Recomputes the per-city totals and the hourly and daily buckets from the stored
+     * "weather_data" history.
+     * <p>
+     * Raw readings older than the retention are downsampled a day at a time, so the buckets
+     * before the day of the oldest stored reading are the only record of those days: they are
+     * kept, and the per-city totals start from their daily sums. The buckets from that day on
+     * are recomputed from the readings.
+     * <p>
+     * The readings are streamed in time order, so only the buckets of the current hour
+     * and day are held in memory at any point. Each bucket is complete once its hour or
+     * day has passed, so it is inserted into the emptied tables as part of a JDBC batch
+     * rather than upserted, and cleared from the persistence context after every
+     * {@value #REBUILD_FLUSH_SIZE} buckets; each native upsert would hold memory until the
+     * end of the transaction, which runs out of heap on tables of tens of millions of rows.
+     *
+     * @return the number of cities rebuilt
+     */
+    @Transactional
+    public int rebuild() {
+        // Without any stored reading, every bucket is downsampled history
+        LocalDateTime rawFrom = weatherRepository.findOldestTimestamp()
+                .orElseGet(LocalDateTime::now)
+                .truncatedTo(ChronoUnit.DAYS);
+
+        Map<String, CityStats> byCity = new HashMap<>();
+        for (Object[] row : dailyRepository.findTotalsByCityBefore(rawFrom)) {
+            WeatherTotals totals = new WeatherTotals(((Number) row[1]).longValue(), ((Number) row[2]).longValue(),
+                    ((Number) row[3]).longValue(), ((Number) row[4]).longValue(), ((Number) row[5]).longValue());
+            byCity.computeIfAbsent((String) row[0], CityStats::new)
+                    .addDownsampled(totals, ((Number) row[6]).intValue(), ((Number) row[7]).intValue());
+        }
+
+        cityStatsRepository.deleteAllInBatch();
+        hourlyRepository.deleteFrom(rawFrom);
+        dailyRepository.deleteFrom(rawFrom);
+        Map<WeatherBucket.Key, HourlyWeather> byHour = new LinkedHashMap<>();
+        Map<WeatherBucket.Key, DailyWeather> byDay = new LinkedHashMap<>();
+        LocalDateTime hour = null;
+        LocalDateTime day = null;
+        int[] inserted = {0};
+        Consumer<Object> insert = entity -> {
+            entityManager.persist(entity);
+            if (++inserted[0] % REBUILD_FLUSH_SIZE == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        };
+        try (Stream<Object[]> rows = weatherRepository.streamByTimestamp(rawFrom)) {
+            for (Object[] row : (Iterable<Object[]>) rows::iterator) {
+                LocalDateTime timestamp = (LocalDateTime) row[5];
+                if (!timestamp.truncatedTo(ChronoUnit.HOURS).equals(hour)) {
+                    flush(byHour, insert);
+                    hour = timestamp.truncatedTo(ChronoUnit.HOURS);
+                }
+                if (!timestamp.truncatedTo(ChronoUnit.DAYS).equals(day)) {
+                    flush(byDay, insert);
+                    day = timestamp.truncatedTo(ChronoUnit.DAYS);
+                }
+                String city = (String) row[0];
+                int temperature = (Integer) row[1];
+                int humidity = (Integer) row[2];
+                int windSpeed = (Integer) row[3];
+                int uvIndex = (Integer) row[4];
+                byCity.computeIfAbsent(city, CityStats::new).add(temperature, humidity, windSpeed, uvIndex);
+                add(byHour, HourlyWeather::new, ChronoUnit.HOURS, city, temperature, humidity, windSpeed, uvIndex, timestamp);
+                add(byDay, DailyWeather::new, ChronoUnit.DAYS, city, temperature, humidity, windSpeed, uvIndex, timestamp);
+            }
+        }
+        flush(byHour, insert);
+        flush(byDay, insert);
+        byCity.values().forEach(insert);
+        return byCity.size();
+    }
+
+    private static <T extends WeatherBucket> void add(Map<WeatherBucket.Key, T> buckets,
+                                                      BiFunction<String, LocalDateTime, T> factory, ChronoUnit unit, String city,
+                                                      int temperature, int humidity, int windSpeed, int uvIndex,
+                                                      LocalDateTime timestamp) {
+        LocalDateTime start = timestamp.truncatedTo(unit);
+        buckets.computeIfAbsent(new WeatherBucket.Key(city, start), key -> factory.apply(city, start))
+                .add(temperature, humidity, windSpeed, uvIndex);
+    }
+
+    private static <T extends WeatherBucket> void flush(Map<WeatherBucket.Key, T> buckets,
+                                                        Consumer<? super T> upsert) {
+        buckets.values().forEach(upsert);
+        buckets.clear();
+    }
+}
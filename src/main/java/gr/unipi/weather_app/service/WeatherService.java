@@ -1,193 +1,522 @@
 package gr.unipi.weather_app.service;
 
+import gr.unipi.weather_app.model.City;
 import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.model.WeatherTotals;
+import gr.unipi.weather_app.provider.CurrentCondition;
+import gr.unipi.weather_app.provider.WeatherProvider;
+import gr.unipi.weather_app.resilience.CircuitBreakerOpenException;
+import gr.unipi.weather_app.resilience.RequestPriority;
+import gr.unipi.weather_app.resilience.WeatherApiRateLimiter;
+import gr.unipi.weather_app.resilience.WeatherApiResilience;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.annotation.Transactional;
+import gr.unipi.weather_app.repository.DailyWeatherRepository;
+import gr.unipi.weather_app.repository.HourlyWeatherRepository;
 import gr.unipi.weather_app.repository.WeatherRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 /**
  * Service class responsible for handling weather-related operations.
  * <p>
- * This class interacts with an external weather API to fetch real-time weather data,
- * stores it in the database, and provides analytical weather reports.
+ * This class interacts with an external weather API through a {@link WeatherProvider}
+ * to fetch real-time weather data, stores it in the database, and provides analytical
+ * weather reports. The reports are answered from the {@link RecentWeatherStore} when it is
+ * enabled and holds the readings they cover, and from the database otherwise.
+ * <p>
+ * Cities are resolved through the {@link CityDictionary}, so every spelling of a city shares
+ * its cache entry, its upstream calls, its readings and its searches under one canonical name.
  */
 @Service
 public class WeatherService {
 
-    private final WebClient webClient;
+    private final WeatherProvider provider;
     private final WeatherRepository repository;
+    private final WeatherCache cache;
+    private final Scheduler databaseScheduler;
+    private final WeatherDataWriter writer;
+    private final WeatherIngestService ingestService;
+    private final HourlyWeatherRepository hourlyRepository;
+    private final DailyWeatherRepository dailyRepository;
+    private final WeatherApiResilience resilience;
+    private final WeatherApiRateLimiter rateLimiter;
+    private final SearchCounter searchCounter;
+    private final RecentWeatherStore recentStore;
+    private final CityDictionary cityDictionary;
 
     /**
-     * The URL extension for the weather API.
-     * <p>
-     * The `%s` placeholder in the URL represents the city name,
-     * and `j1` indicates the JSON format.
+     * The upstream calls currently in progress, keyed by the key of the city.
      */
-    @Value("${weather.api.url-params}")
-    private String urlParams;
+    private final Map<String, Mono<WeatherData>> inFlight = new ConcurrentHashMap<>();
 
     /**
-     * Constructs a new {@code WeatherService} with the specified repository and WebClient.
+     * The maximum number of concurrent calls to the weather API during a bulk fetch.
+     */
+    @Value("${weather.api.bulk.concurrency}")
+    private int bulkConcurrency;
+
+    /**
+     * Constructs a new {@code WeatherService} with the specified repository and weather provider.
      *
-     * @param repository the repository used for weather data persistence and retrieval
-     * @param webClient  the WebClient used to fetch weather data from an external API
+     * @param repository        the repository used for weather data persistence and retrieval
+     * @param provider          the provider used to fetch weather data from an external API
+     * @param cache             the cache holding the latest weather data per city
+     * @param databaseScheduler the bounded scheduler running blocking database calls
+     * @param writer            the write-behind buffer saving single readings in batches
+     * @param ingestService     the service saving batches of readings in one transaction
+     * @param hourlyRepository  the repository holding the hourly weather totals
+     * @param dailyRepository   the repository holding the daily weather totals
+     * @param resilience        the retries and circuit breaker around the weather API calls
+     * @param rateLimiter       the rate limiter and scheduler of the weather API calls
+     * @param searchCounter     the counter of the searches of each city
+     * @param recentStore       the in-memory store of the recent readings, if enabled
+     * @param cityDictionary    the dictionary resolving the city names to their canonical cities
      */
-    public WeatherService(WeatherRepository repository, WebClient webClient) {
-        this.webClient = webClient;
+    public WeatherService(WeatherRepository repository, WeatherProvider provider,
+                          WeatherCache cache, Scheduler databaseScheduler, WeatherDataWriter writer,
+                          WeatherIngestService ingestService, HourlyWeatherRepository hourlyRepository,
+                          DailyWeatherRepository dailyRepository, WeatherApiResilience resilience,
+                          WeatherApiRateLimiter rateLimiter, SearchCounter searchCounter,
+                          ObjectProvider<RecentWeatherStore> recentStore, CityDictionary cityDictionary) {
+        this.provider = provider;
         this.repository = repository;
+        this.cache = cache;
+        this.databaseScheduler = databaseScheduler;
+        this.writer = writer;
+        this.ingestService = ingestService;
+        this.hourlyRepository = hourlyRepository;
+        this.dailyRepository = dailyRepository;
+        this.resilience = resilience;
+        this.rateLimiter = rateLimiter;
+        this.searchCounter = searchCounter;
+        this.recentStore = recentStore.getIfAvailable();
+        this.cityDictionary = cityDictionary;
     }
 
     /**
-     * Fetches weather data for a given city from an external API and saves it to the database.
+     * Returns the weather data for a given city, blocking until it is available.
+     * <p>
+     * This is a thin synchronous wrapper around {@link #getWeatherAsync(String)}.
      *
      * @param city the name of the city
-     * @return the saved {@link WeatherData} entity containing weather details
+     * @return the {@link WeatherData} entity containing weather details
      * @throws RuntimeException if an error occurs while fetching data from the API
      */
     public WeatherData getWeather(String city) {
-        try {
-            String url = String.format(urlParams, city);
+        return getWeatherAsync(city).block(); // Blocking call to make it synchronous
+    }
 
-            Map response = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(Map.class)
-                    .block(); // Blocking call to make it synchronous
+    /**
+     * Returns the weather data for a given city without blocking.
+     * <p>
+     * Fresh cached data is emitted immediately. Stale cached data is also emitted
+     * immediately while a single background refresh is started. Otherwise the data
+     * is fetched from the external API, queued for saving to the database and cached.
+     * Every lookup that returns data counts as a search of the city, under its canonical name.
+     *
+     * @param city the name of the city
+     * @return a {@link Mono} emitting the {@link WeatherData} entity containing weather details
+     */
+    public Mono<WeatherData> getWeatherAsync(String city) {
+        return Mono.defer(() -> {
+            String key = cityDictionary.key(city);
+            WeatherCache.CachedWeather cached = cache.get(key);
 
-            if (response == null) {
-                throw new RuntimeException("No response from weather API");
+            if (cached != null) {
+                if (cached.stale() && cache.beginRefresh(key)) {
+                    fetchWeather(city, key, RequestPriority.BULK)
+                            .doFinally(signal -> cache.endRefresh(key))
+                            .subscribe(data -> { }, e -> { });
+                }
+                return Mono.just(cached.data());
             }
 
-            Map<String, Object> currentCondition = ((List<Map<String, Object>>) response.get("current_condition")).getFirst();
-            WeatherData data = new WeatherData();
-            data.setCity(city);
-            data.setTemperature(Integer.parseInt((String) currentCondition.get("temp_C")));
-            data.setHumidity(Integer.parseInt((String) currentCondition.get("humidity")));
-            data.setWindSpeed(Integer.parseInt((String) currentCondition.get("windspeedKmph")));
-            data.setUvIndex(Integer.parseInt((String) currentCondition.get("uvIndex")));
-            data.setWeather_description(((List<Map<String, Object>>) currentCondition.get("weatherDesc")).getFirst().get("value").toString());
-            data.setTimestamp(LocalDateTime.now());
-
-            return repository.save(data);
-        } catch (Exception e) {
-            throw new RuntimeException("Error fetching weather data", e);
+            return fetchWeather(city, key, RequestPriority.INTERACTIVE);
+        }).doOnNext(data -> searchCounter.record(data.getCity()));
+    }
+
+    /**
+     * Fetches the current weather of a city into the cache ahead of its lookups.
+     * <p>
+     * Unlike a lookup, the reading is not saved, since background refreshes would
+     * otherwise count as searches and keep the city among the most searched ones.
+     * The call waits for the rate limiter with the bulk priority.
+     *
+     * @param city the name of the city
+     * @return a {@link Mono} emitting the cached, unsaved {@link WeatherData}
+     */
+    public Mono<WeatherData> refreshWeather(String city) {
+        return requestUnsavedWeather(city, RequestPriority.BULK)
+                .doOnNext(data -> cache.put(WeatherCache.key(data.getCity()), data));
+    }
+
+    /**
+     * Returns the weather data for a stream of cities without blocking.
+     *
+     * @param cities the names of the cities
+     * @return a {@link Flux} emitting the {@link WeatherData} of each city as it becomes available
+     */
+    public Flux<WeatherData> getWeatherAsync(Flux<String> cities) {
+        return cities.flatMap(this::getWeatherAsync);
+    }
+
+    /**
+     * Fetches weather data for several cities at once, blocking until all of them are done.
+     * <p>
+     * The cities are fetched from the external API concurrently, with at most
+     * {@code weather.api.bulk.concurrency} calls in flight. A failure for one city
+     * is recorded in the result instead of aborting the whole batch. All successful
+     * readings are then saved in a single {@code saveAll} transaction and cached.
+     * Names resolving to the same known city are fetched once, and its reading or
+     * failure is reported under each of them. Every city fetched successfully counts
+     * as a search.
+     *
+     * @param cities the names of the cities
+     * @return the {@link BulkWeatherResult} holding the saved readings and the failures
+     */
+    public BulkWeatherResult getWeather(Collection<String> cities) {
+        Map<String, List<String>> citiesByKey = new LinkedHashMap<>();
+        for (String city : cities) {
+            citiesByKey.computeIfAbsent(cityDictionary.key(city), key -> new ArrayList<>()).add(city);
         }
+
+        Map<String, String> failures = new ConcurrentHashMap<>();
+
+        List<Map.Entry<List<String>, WeatherData>> fetched = Flux.fromIterable(citiesByKey.values())
+                .flatMap(names -> requestUnsavedWeather(names.getFirst(), RequestPriority.BULK)
+                        .map(data -> Map.entry(names, data))
+                        .onErrorResume(e -> {
+                            String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                            names.forEach(name -> failures.put(name, message));
+                            return Mono.empty();
+                        }), bulkConcurrency)
+                .collectList()
+                .block(); // Blocking call to make it synchronous
+
+        // The readings are saved in the order they were fetched in
+        List<WeatherData> saved = fetched == null || fetched.isEmpty()
+                ? List.of()
+                : Mono.fromCallable(() -> ingestService.ingest(fetched.stream().map(Map.Entry::getValue).toList()))
+                        .subscribeOn(databaseScheduler)
+                        .block();
+
+        Map<String, WeatherData> successes = new LinkedHashMap<>();
+        for (int i = 0; i < saved.size(); i++) {
+            WeatherData data = saved.get(i);
+            cache.put(WeatherCache.key(data.getCity()), data);
+            searchCounter.record(data.getCity());
+            fetched.get(i).getKey().forEach(name -> successes.put(name, data));
+        }
+
+        return new BulkWeatherResult(successes, failures);
+    }
+
+    /**
+     * Returns the counters of the weather cache.
+     *
+     * @return the current {@link WeatherCache.CacheStats}
+     */
+    public WeatherCache.CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Returns the queue depths and wait times of the weather API rate limiter.
+     *
+     * @return the current {@link WeatherApiRateLimiter.RateLimiterStats}
+     */
+    public WeatherApiRateLimiter.RateLimiterStats getRateLimiterStats() {
+        return rateLimiter.stats();
+    }
+
+    /**
+     * Fetches weather data for a given city, sharing the upstream call with any
+     * concurrent caller asking for the same city.
+     * <p>
+     * The first caller for a key registers the upstream {@link Mono} in the in-flight
+     * registry; later callers subscribe to the same cached {@link Mono} and receive the
+     * same result or error. The registry entry is removed once the call completes or fails,
+     * unless it has already been replaced by the entry of a newer call.
+     * The reading is cached under the key of its canonical city, which a name searched for
+     * the first time only resolves to once the weather API has reported its area.
+     * <p>
+     * While the circuit breaker of the weather API is open, the latest stored reading of
+     * the city is returned instead. It is neither cached nor saved again.
+     *
+     * @param city     the name of the city
+     * @param key      the cache key the city resolves to
+     * @param priority the priority of the call when it waits for the rate limiter
+     * @return a {@link Mono} emitting the cached {@link WeatherData} entity queued for saving
+     */
+    private Mono<WeatherData> fetchWeather(String city, String key, RequestPriority priority) {
+        return inFlight.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<WeatherData>> shared = new AtomicReference<>();
+            shared.set(requestWeather(city, priority)
+                    .doOnNext(data -> cache.put(WeatherCache.key(data.getCity()), data))
+                    .onErrorResume(CircuitBreakerOpenException.class, e -> latestStoredWeather(city, e))
+                    // Only this call's own entry, never one registered after it for a newer call
+                    .doFinally(signal -> inFlight.remove(k, shared.get()))
+                    .cache());
+            return shared.get();
+        });
+    }
+
+    /**
+     * Reads the latest stored weather data of a city, for when the weather API cannot be called.
+     *
+     * @param city  the name of the city
+     * @param error the error to emit if nothing is stored for the city
+     * @return a {@link Mono} emitting the latest stored {@link WeatherData}, or the error
+     */
+    private Mono<WeatherData> latestStoredWeather(String city, Throwable error) {
+        return Mono.fromCallable(() -> repository.findLatestByCity(cityDictionary.name(city)))
+                .subscribeOn(databaseScheduler)
+                .flatMap(Mono::justOrEmpty)
+                .switchIfEmpty(Mono.error(error));
+    }
+
+    /**
+     * Fetches weather data for a given city from an external API and queues it for saving.
+     * <p>
+     * Queueing may block while the write-behind buffer is full, so it runs on the
+     * database scheduler and never ties up the threads performing HTTP I/O.
+     *
+     * @param city     the name of the city
+     * @param priority the priority of the call when it waits for the rate limiter
+     * @return a {@link Mono} emitting the {@link WeatherData} entity queued for saving
+     */
+    private Mono<WeatherData> requestWeather(String city, RequestPriority priority) {
+        return requestUnsavedWeather(city, priority)
+                .flatMap(data -> Mono.fromRunnable(() -> writer.submit(data))
+                        .subscribeOn(databaseScheduler)
+                        .thenReturn(data));
+    }
+
+    /**
+     * Fetches weather data for a given city from an external API without saving it.
+     * <p>
+     * The call goes through the {@link WeatherApiResilience} layer, so failures of the
+     * weather API are retried and may open its circuit breaker. Every attempt waits for
+     * a permit of the {@link WeatherApiRateLimiter}. A known city is requested by its
+     * canonical name; a name searched for the first time is registered with the area the
+     * weather API reports for it, on the database scheduler.
+     *
+     * @param city     the name of the city
+     * @param priority the priority of the call when it waits for the rate limiter
+     * @return a {@link Mono} emitting the unsaved {@link WeatherData} entity
+     */
+    private Mono<WeatherData> requestUnsavedWeather(String city, RequestPriority priority) {
+        return Mono.defer(() -> {
+            City known = cityDictionary.find(city);
+            return provider.fetch(known != null ? known.getName() : City.normalize(city))
+                    .transform(call -> rateLimiter.schedule(priority, call))
+                    .transform(resilience::decorate)
+                    .flatMap(condition -> known != null
+                            ? Mono.just(toWeatherData(known, condition))
+                            : Mono.fromCallable(() -> cityDictionary.register(city, condition.area(), condition.country()))
+                                    .subscribeOn(databaseScheduler)
+                                    .map(registered -> toWeatherData(registered, condition)));
+        }).onErrorMap(e -> !(e instanceof CircuitBreakerOpenException),
+                e -> new RuntimeException("Error fetching weather data", e));
+    }
+
+    /**
+     * Maps the current weather conditions of a city to a new {@link WeatherData} entity.
+     *
+     * @param city      the canonical city
+     * @param condition the current weather conditions reported by the weather API
+     * @return the unsaved {@link WeatherData} entity
+     */
+    private WeatherData toWeatherData(City city, CurrentCondition condition) {
+        WeatherData data = new WeatherData();
+        data.setCityId(city.getId());
+        data.setCity(city.getName());
+        data.setTemperature(condition.temperature());
+        data.setHumidity(condition.humidity());
+        data.setWindSpeed(condition.windSpeed());
+        data.setUvIndex(condition.uvIndex());
+        data.setWeather_description(condition.description());
+        data.setTimestamp(LocalDateTime.now());
+        return data;
     }
 
     /**
      * Retrieves the average weather statistics for a specific city.
      *
      * @param city the name of the city
-     * @return a formatted string containing the average weather details
+     * @return the {@link AverageWeather} of all stored readings of the city
      */
-    public String getAverageWeatherForCity(String city) {
-        Object[] avgWeather = repository.getAverageWeatherForCity(city);
-        return formatAverageWeather(city, avgWeather);
+    public AverageWeather getAverageWeatherForCity(String city) {
+        String name = cityDictionary.name(city);
+        if (recentStore != null) {
+            return AverageWeather.of(name, recentStore.getTotalsOfCity(name));
+        }
+        return AverageWeather.of(name, repository.findTotalsByCity(name));
     }
 
     /**
      * Retrieves the average weather statistics for the last specified number of days.
+     * <p>
+     * The range is answered from pre-aggregated totals: the raw readings up to the
+     * first full hour, the hourly buckets up to the first full day, and the daily
+     * buckets from there on. The combined sums give the same averages as a scan
+     * of the raw readings, while reading at most one row per city and day.
+     * <p>
+     * Once the raw readings of the first hour have been downsampled, its whole hourly
+     * bucket is counted instead, so the range then starts at the full hour.
+     * <p>
+     * Ranges held by the {@link RecentWeatherStore} are added up in memory instead.
      *
      * @param days the number of days for which the average should be calculated
-     * @return a formatted string containing the average weather details
+     * @return the {@link AverageWeather} of the readings of the period
      */
-    public String getAverageWeatherForLastDays(int days) {
+    @Transactional(readOnly = true)
+    public AverageWeather getAverageWeatherForLastDays(int days) {
         LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        Object[] avgWeather = repository.getAverageWeatherForLastDays(startDate);
-        return formatAverageWeather("the last " + days + " days", avgWeather);
+        if (recentStore != null && recentStore.covers(startDate)) {
+            return AverageWeather.of("the last " + days + " days", recentStore.getTotalsSince(startDate));
+        }
+        LocalDateTime firstHour = ceil(startDate, ChronoUnit.HOURS);
+        LocalDateTime firstDay = ceil(startDate, ChronoUnit.DAYS);
+        LocalDateTime endDay = LocalDateTime.now().truncatedTo(ChronoUnit.DAYS).plusDays(1);
+
+        // Raw readings are downsampled a day at a time, oldest first
+        boolean downsampled = repository.findOldestTimestamp()
+                .map(oldest -> startDate.isBefore(oldest.truncatedTo(ChronoUnit.DAYS)))
+                .orElse(true);
+        WeatherTotals totals = downsampled
+                ? hourlyRepository.getTotalsBetween(startDate.truncatedTo(ChronoUnit.HOURS), firstDay)
+                : repository.getTotalsBetween(startDate, firstHour)
+                        .plus(hourlyRepository.getTotalsBetween(firstHour, firstDay));
+        totals = totals.plus(dailyRepository.getTotalsBetween(firstDay, endDay));
+        return AverageWeather.of("the last " + days + " days", totals);
     }
 
     /**
-     * Finds and returns the hottest city recorded in the database.
+     * Rounds a time up to the start of the next unit, unless it already is one.
      *
-     * @return a formatted string containing the hottest city's name and temperature
+     * @param time the time to round
+     * @param unit the unit to round to
+     * @return the first start of a unit at or after {@code time}
      */
-    public String findHottestCity() {
-        Object[] hottestCity = repository.findHottestCity();
-        Object[] nestedHottestCity = (Object[]) hottestCity[0];
+    private static LocalDateTime ceil(LocalDateTime time, ChronoUnit unit) {
+        LocalDateTime floor = time.truncatedTo(unit);
+        return floor.equals(time) ? floor : floor.plus(1, unit);
+    }
 
-        if (nestedHottestCity[0] == null) {
-            return "No data available for the hottest city";
+    /**
+     * Finds the hottest city recorded in the database.
+     * <p>
+     * If several cities share the highest temperature, all of them are listed.
+     *
+     * @return the hottest cities with their temperature, or an empty list if nothing is stored
+     */
+    public List<CityTemperature> findHottestCity() {
+        if (recentStore != null) {
+            return recentStore.findHottestCity();
         }
-
-        return String.format(
-                "%n🔥 Hottest City Recorded: %s%nHottest Temperature: %d°C",
-                nestedHottestCity[0], ((Number) nestedHottestCity[1]).intValue()
-        );
+        return repository.findHottestCities().stream().map(CityTemperature::of).toList();
     }
 
     /**
-     * Finds and returns the coldest city recorded in the database.
+     * Finds the coldest city recorded in the database.
+     * <p>
+     * If several cities share the lowest temperature, all of them are listed.
      *
-     * @return a formatted string containing the coldest city's name and temperature
+     * @return the coldest cities with their temperature, or an empty list if nothing is stored
      */
-    public String findColdestCity() {
-        Object[] coldestCity = repository.findColdestCity();
-        Object[] nestedColdestCity = (Object[]) coldestCity[0];
-
-        if (nestedColdestCity[0] == null) {
-            return "No data available for the coldest city";
+    public List<CityTemperature> findColdestCity() {
+        if (recentStore != null) {
+            return recentStore.findColdestCity();
         }
-
-        return String.format(
-                "%n❄️ Coldest City Recorded: %s%nColdest Temperature: %d°C",
-                nestedColdestCity[0], ((Number) nestedColdestCity[1]).intValue()
-        );
+        return repository.findColdestCities().stream().map(CityTemperature::of).toList();
     }
 
     /**
-     * Retrieves the most searched cities based on the number of queries stored in the database.
+     * Finds the cities with the highest recorded temperatures.
      *
-     * @return a formatted string listing the most searched cities and their search counts
+     * @param count the number of cities to return; cities tied with the last one are also returned
+     * @return the hottest cities with their highest temperatures, in ranking order
      */
-    public String getMostSearchedCities() {
-        List<Object[]> cities = repository.findMostSearchedCities();
-        if (cities == null || cities.isEmpty()) {
-            return "No data available for the most searched cities";
+    @Transactional(readOnly = true)
+    public List<CityTemperature> findHottestCities(int count) {
+        if (recentStore != null) {
+            return recentStore.findHottestCities(count);
         }
-        StringBuilder result = new StringBuilder();
-        for (Object[] c : cities) {
-            result.append(String.format(
-                    "%n🔍 City: %s%n🔢 Searches: %d",
-                    c[0], ((Number) c[1]).intValue()
-            ));
+        try (Stream<Object[]> readings = repository.streamByTemperatureDesc()) {
+            return topCities(readings, count);
         }
-
-        return result.toString();
     }
 
     /**
-     * Formats average weather data into a human-readable string.
+     * Finds the cities with the lowest recorded temperatures.
      *
-     * @param location   the location for which the weather data is being displayed
-     * @param avgWeather an array containing average weather values
-     * @return a formatted string containing average weather statistics
+     * @param count the number of cities to return; cities tied with the last one are also returned
+     * @return the coldest cities with their lowest temperatures, in ranking order
      */
-    private String formatAverageWeather(String location, Object[] avgWeather) {
-        if (avgWeather == null || avgWeather.length == 0) {
-            return "No data available for " + location;
+    @Transactional(readOnly = true)
+    public List<CityTemperature> findColdestCities(int count) {
+        if (recentStore != null) {
+            return recentStore.findColdestCities(count);
         }
+        try (Stream<Object[]> readings = repository.streamByTemperatureAsc()) {
+            return topCities(readings, count);
+        }
+    }
 
-        Object[] nestedAvgWeather = (Object[]) avgWeather[0];
-
-        double avgTemp = nestedAvgWeather[0] != null ? ((Number) nestedAvgWeather[0]).doubleValue() : 0.0;
-        double avgHumidity = nestedAvgWeather[1] != null ? ((Number) nestedAvgWeather[1]).doubleValue() : 0.0;
-        double avgWindSpeed = nestedAvgWeather[2] != null ? ((Number) nestedAvgWeather[2]).doubleValue() : 0.0;
-        double avgUvIndex = nestedAvgWeather[3] != null ? ((Number) nestedAvgWeather[3]).doubleValue() : 0.0;
+    /**
+     * Picks the first {@code count} distinct cities from cities ordered by record temperature.
+     * <p>
+     * The first row of a city holds its record temperature. Reading stops as soon as
+     * {@code count} cities were found and the temperature moves past the last one's,
+     * so cities tied with the last place are included.
+     *
+     * @param readings city and temperature pairs, ordered by temperature
+     * @param count    the number of cities to pick
+     * @return the cities with their record temperatures, in ranking order
+     */
+    private List<CityTemperature> topCities(Stream<Object[]> readings, int count) {
+        Map<Object, Object[]> cities = new LinkedHashMap<>();
+        Iterator<Object[]> iterator = readings.iterator();
+        Object lastTemperature = null;
 
-        if (avgTemp == 0.0 && avgHumidity == 0.0 && avgWindSpeed == 0.0 && avgUvIndex == 0.0) {
-            return "No data available for " + location;
+        while (iterator.hasNext()) {
+            Object[] reading = iterator.next();
+            if (cities.size() >= count && !reading[1].equals(lastTemperature)) {
+                break;
+            }
+            if (cities.putIfAbsent(reading[0], reading) == null) {
+                lastTemperature = reading[1];
+            }
         }
+        return cities.values().stream().map(CityTemperature::of).toList();
+    }
 
-        return String.format(
-                "%nAverage Weather for %s%nAverage Temperature: %.1f°C%nAverage Humidity: %.1f%%%nAverage Wind Speed: %.1f km/h%nAverage UV Index: %.1f",
-                location, avgTemp, avgHumidity, avgWindSpeed, avgUvIndex
-        );
+    /**
+     * Retrieves the most searched cities from the ranking kept in memory by the {@link SearchCounter}.
+     *
+     * @param count the number of cities to return, at most {@code weather.search.leaderboard-size}
+     * @return the cities with their search counts, most searched first
+     */
+    public List<CitySearches> getMostSearchedCities(int count) {
+        return searchCounter.mostSearched(count);
     }
 
 }
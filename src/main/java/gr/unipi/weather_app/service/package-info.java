@@ -5,6 +5,20 @@
  * fetching weather data from an external API, and processing analytical weather reports.
  * <p>
  * Currently, it includes the {@link gr.unipi.weather_app.service.WeatherService}
- * class, which manages weather data retrieval, processing, and storage.
+ * class, which manages weather data retrieval, processing, and storage, and the
+ * {@link gr.unipi.weather_app.service.WeatherCache} class, which keeps the latest
+ * weather data per city in memory to avoid repeated calls to the external API.
+ * Readings are persisted in batches by the {@link gr.unipi.weather_app.service.WeatherDataWriter}
+ * write-behind buffer through the {@link gr.unipi.weather_app.service.WeatherIngestService},
+ * and the {@link gr.unipi.weather_app.service.WeatherPartitionMaintenance} archives past months
+ * and deletes the readings past their retention, while the {@link gr.unipi.weather_app.service.RollupRebuild}
+ * recomputes the pre-aggregated tables on request before anything else writes to them. The optional
+ * {@link gr.unipi.weather_app.service.RecentWeatherStore} holds the recent readings in
+ * memory as primitive columns, answering the statistics without the database.
+ * The {@link gr.unipi.weather_app.service.SearchCounter} counts the searches of each city
+ * in memory and serves the most searched cities, which the
+ * {@link gr.unipi.weather_app.service.HotCityRefresher} keeps cached ahead of their lookups. The {@link gr.unipi.weather_app.service.CityDictionary}
+ * resolves every spelling of a city to its canonical name and id, from memory. Reports are returned as records such as {@link gr.unipi.weather_app.service.AverageWeather},
+ * which the controllers serialize as JSON and the console formats for display.
  */
 package gr.unipi.weather_app.service;
\ No newline at end of file
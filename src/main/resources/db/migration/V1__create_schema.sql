@@ -0,0 +1,50 @@
+-- The schema Hibernate created from the entities while it ran with ddl-auto: update.
+-- Every statement is skipped for a table or index that already exists, so databases created
+-- by those releases are adopted as they are; spring.flyway.baseline-version is 0 for them.
+
+CREATE TABLE IF NOT EXISTS weather_data (id integer not null, city varchar(50) not null, humidity integer not null,
+    temperature integer not null, timestamp timestamp not null, uv_index integer not null,
+    weather_description varchar(255) not null, wind_speed integer not null, primary key (id));
+CREATE INDEX IF NOT EXISTS idx_weather_data_city_timestamp ON weather_data (city, timestamp);
+CREATE INDEX IF NOT EXISTS idx_weather_data_timestamp ON weather_data (timestamp);
+
+-- The pooled ids of weather_data: the table holds the first id of the next block
+CREATE TABLE IF NOT EXISTS weather_data_seq (next_val bigint);
+INSERT INTO weather_data_seq (next_val) SELECT 1 WHERE NOT EXISTS (SELECT 1 FROM weather_data_seq);
+
+CREATE TABLE IF NOT EXISTS weather_partition (name varchar(50) not null, range_end timestamp not null,
+    range_start timestamp not null, primary key (name));
+
+CREATE TABLE IF NOT EXISTS city_stats (city varchar(50) not null, humidity_max integer not null,
+    humidity_min integer not null, humidity_sum bigint not null, readings bigint not null,
+    temperature_max integer not null, temperature_min integer not null, temperature_sum bigint not null,
+    uv_index_max integer not null, uv_index_min integer not null, uv_index_sum bigint not null,
+    wind_speed_max integer not null, wind_speed_min integer not null, wind_speed_sum bigint not null,
+    primary key (city));
+CREATE INDEX IF NOT EXISTS idx_city_stats_temperature_max ON city_stats (temperature_max, city);
+CREATE INDEX IF NOT EXISTS idx_city_stats_temperature_min ON city_stats (temperature_min, city);
+
+CREATE TABLE IF NOT EXISTS weather_hourly (bucket_start timestamp not null, city varchar(50) not null,
+    humidity_sum bigint not null, readings bigint not null, temperature_max integer not null,
+    temperature_min integer not null, temperature_sum bigint not null, uv_index_sum bigint not null,
+    wind_speed_sum bigint not null, primary key (bucket_start, city));
+CREATE INDEX IF NOT EXISTS idx_weather_hourly_bucket_start ON weather_hourly (bucket_start);
+
+CREATE TABLE IF NOT EXISTS weather_daily (bucket_start timestamp not null, city varchar(50) not null,
+    humidity_sum bigint not null, readings bigint not null, temperature_max integer not null,
+    temperature_min integer not null, temperature_sum bigint not null, uv_index_sum bigint not null,
+    wind_speed_sum bigint not null, primary key (bucket_start, city));
+CREATE INDEX IF NOT EXISTS idx_weather_daily_bucket_start ON weather_daily (bucket_start);
+
+CREATE TABLE IF NOT EXISTS city_search_count (city varchar(50) not null, searches bigint not null, primary key (city));
+CREATE INDEX IF NOT EXISTS idx_city_search_count_searches ON city_search_count (searches);
+
+CREATE TABLE IF NOT EXISTS scheduler_lease (name varchar(50) not null, expires_at bigint not null,
+    owner varchar(100) not null, primary key (name));
+
+-- Databases created while ids came from the identity column hold rows the id table must start after
+UPDATE weather_data_seq SET next_val = (SELECT COALESCE(MAX(id), 0) + 1 FROM weather_data)
+WHERE next_val <= (SELECT COALESCE(MAX(id), 0) FROM weather_data);
+
+-- The hottest and coldest city queries read city_stats instead of this index since it was added
+DROP INDEX IF EXISTS idx_weather_data_temperature;
@@ -3,7 +3,7 @@ package gr.unipi.weather_app;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = "weather.cli.enabled=false")
 class WeatherDataAppApiApplicationTests {
 
     @Test
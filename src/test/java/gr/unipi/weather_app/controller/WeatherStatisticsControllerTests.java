@@ -0,0 +1,70 @@
+package gr.unipi.weather_app.controller;
+
+import gr.unipi.weather_app.model.WeatherTotals;
+import gr.unipi.weather_app.service.AverageWeather;
+import gr.unipi.weather_app.service.CityTemperature;
+import gr.unipi.weather_app.service.WeatherIngestService;
+import gr.unipi.weather_app.service.WeatherRollupService;
+import gr.unipi.weather_app.service.WeatherService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(WeatherStatisticsController.class)
+class WeatherStatisticsControllerTests {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockitoBean
+    private WeatherService weatherService;
+
+    @MockitoBean
+    private WeatherRollupService rollupService;
+
+    @MockitoBean
+    private WeatherIngestService ingestService;
+
+    @Test
+    void returnsAveragesAsJson() throws Exception {
+        given(weatherService.getAverageWeatherForCity("Athens"))
+                .willReturn(AverageWeather.of("Athens", new WeatherTotals(2, 30, 100, 20, 6)));
+
+        mvc.perform(get("/api/statistics/cities/Athens/average"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.location").value("Athens"))
+                .andExpect(jsonPath("$.readings").value(2))
+                .andExpect(jsonPath("$.temperature").value(15.0))
+                .andExpect(jsonPath("$.uvIndex").value(3.0));
+    }
+
+    @Test
+    void returnsRankingsAsJson() throws Exception {
+        given(weatherService.findHottestCity())
+                .willReturn(List.of(new CityTemperature("Athens", 40), new CityTemperature("Cairo", 40)));
+        given(weatherService.findColdestCities(1)).willReturn(List.of(new CityTemperature("Oslo", -12)));
+
+        mvc.perform(get("/api/statistics/hottest"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].city").value("Cairo"));
+        mvc.perform(get("/api/statistics/coldest").param("count", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].temperature").value(-12));
+    }
+
+    @Test
+    void rejectsNonPositiveDays() throws Exception {
+        mvc.perform(get("/api/statistics/average").param("days", "0"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,159 @@
+package gr.unipi.weather_app.export;
+
+import gr.unipi.weather_app.model.City;
+import gr.unipi.weather_app.repository.WeatherPartitions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeatherDataExporterTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000);
+
+    @TempDir
+    private Path directory;
+
+    private SQLiteDataSource dataSource;
+    private WeatherDataExporter exporter;
+
+    @BeforeEach
+    void createDatabase() throws Exception {
+        dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + directory.resolve("weather.db"));
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE weather_partition (name varchar(50) not null, range_end timestamp not null, " +
+                "range_start timestamp not null, primary key (name))");
+        jdbcTemplate.execute("CREATE TABLE city (id integer, name varchar(50) not null unique, country varchar(100), " +
+                "primary key (id))");
+        jdbcTemplate.execute("CREATE TABLE city_alias (alias varchar(100) not null, city_id integer not null, " +
+                "primary key (alias))");
+        WeatherPartitions.createTable(jdbcTemplate, WeatherPartitions.HOT);
+        exporter = new WeatherDataExporter(dataSource, 100, 1);
+    }
+
+    /**
+     * Stores readings the way the JDBC driver stores them for Hibernate, one minute apart, registering their cities.
+     */
+    private void insert(int from, int to, String... cities) throws Exception {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        for (String city : cities) {
+            jdbcTemplate.update("INSERT OR IGNORE INTO city (name) VALUES (?)", city);
+            jdbcTemplate.update("INSERT OR IGNORE INTO city_alias (alias, city_id) SELECT ?, id FROM city WHERE name = ?",
+                    City.key(city), city);
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO weather_data (id, city_id, temperature, " +
+                     "humidity, wind_speed, uv_index, weather_description, timestamp) " +
+                     "VALUES (?, (SELECT id FROM city WHERE name = ?), ?, ?, ?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int i = from; i < to; i++) {
+                insert.setInt(1, i);
+                insert.setString(2, cities[i % cities.length]);
+                insert.setInt(3, i % 50 - 20);
+                insert.setInt(4, i % 100);
+                insert.setInt(5, i % 80);
+                insert.setInt(6, i % 12);
+                insert.setString(7, i % 3 == 0 ? "Sunny" : "Partly cloudy");
+                insert.setTimestamp(8, Timestamp.valueOf(START.plusMinutes(i)));
+                insert.addBatch();
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+    }
+
+    private String csv(ExportFilter filter) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(filter, ExportFormat.CSV, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void writesCsvWithQuotedTextAndLocalTimestamps() throws Exception {
+        insert(1, 3, "Athens", "Washington, \"D.C.\"");
+
+        assertThat(csv(ExportFilter.ALL)).isEqualTo(CsvRowWriter.HEADER +
+                "1,\"Washington, \"\"D.C.\"\"\",-19,1,1,1,Partly cloudy,2025-03-14T09:27:53.589\n" +
+                "2,Athens,-18,2,2,2,Partly cloudy,2025-03-14T09:28:53.589\n");
+        assertThat(csv(new ExportFilter("Lisbon", null, null))).isEqualTo(CsvRowWriter.HEADER);
+    }
+
+    @Test
+    void readsColumnarFilesBackAcrossBlocks() throws Exception {
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            cities.add("City " + i);
+        }
+        cities.add("Αθήνα");
+        insert(0, 10_000, cities.toArray(String[]::new));
+        Path file = directory.resolve("export.wdc");
+
+        assertThat(exporter.export(ExportFilter.ALL, file)).isEqualTo(10_000);
+
+        try (InputStream in = Files.newInputStream(file);
+             ColumnarWeatherDataReader reader = new ColumnarWeatherDataReader(in)) {
+            for (int i = 0; i < 10_000; i++) {
+                assertThat(reader.next()).isTrue();
+                assertThat(reader.id()).isEqualTo(i);
+                assertThat(reader.city()).isEqualTo(cities.get(i % cities.size()));
+                assertThat(reader.temperature()).isEqualTo(i % 50 - 20);
+                assertThat(reader.humidity()).isEqualTo(i % 100);
+                assertThat(reader.windSpeed()).isEqualTo(i % 80);
+                assertThat(reader.uvIndex()).isEqualTo(i % 12);
+                assertThat(reader.weatherDescription()).isEqualTo(i % 3 == 0 ? "Sunny" : "Partly cloudy");
+                assertThat(reader.timestamp()).isEqualTo(START.plusMinutes(i));
+            }
+            assertThat(reader.next()).isFalse();
+        }
+        try (var files = Files.list(directory)) {
+            assertThat(files.map(Path::getFileName).map(Path::toString)).containsExactlyInAnyOrder("weather.db", "export.wdc");
+        }
+    }
+
+    @Test
+    void exportsTheReadingsOfACityWithinTheTimeRange() throws Exception {
+        insert(0, 100, "Athens", "Paris");
+
+        String csv = csv(new ExportFilter("Paris", START.plusMinutes(10), START.plusMinutes(20)));
+
+        assertThat(csv.lines().skip(1).map(line -> line.substring(0, line.indexOf(','))))
+                .containsExactly("11", "13", "15", "17", "19");
+        assertThat(csv(new ExportFilter(" PARIS ", START.plusMinutes(10), START.plusMinutes(20)))).isEqualTo(csv);
+    }
+
+    @Test
+    void mergesTheArchivedMonthsWithTheHotPartition() throws Exception {
+        insert(0, 100, "Athens", "Paris");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        WeatherPartitions.createArchive(jdbcTemplate, YearMonth.from(START));
+        jdbcTemplate.update("INSERT INTO weather_data_2025_03 SELECT * FROM weather_data WHERE id % 3 = 0");
+        jdbcTemplate.update("DELETE FROM weather_data WHERE id % 3 = 0");
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(String.valueOf(i));
+        }
+        assertThat(csv(ExportFilter.ALL).lines().skip(1).map(line -> line.substring(0, line.indexOf(','))))
+                .containsExactlyElementsOf(ids);
+        assertThat(csv(new ExportFilter("Athens", START.plusMinutes(10), START.plusMinutes(20)))
+                .lines().skip(1).map(line -> line.substring(0, line.indexOf(','))))
+                .containsExactly("10", "12", "14", "16", "18");
+    }
+}
@@ -0,0 +1,87 @@
+package gr.unipi.weather_app.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MeteredMethodInterceptorTests {
+
+    interface Lookup {
+
+        String find(String city);
+
+        Mono<String> fetch(String city);
+
+        Mono<String> fetch(String city, Duration delay);
+    }
+
+    static class SlowLookup implements Lookup {
+
+        @Override
+        public String find(String city) {
+            if (city.isEmpty()) {
+                throw new IllegalArgumentException("No city");
+            }
+            return city;
+        }
+
+        @Override
+        public Mono<String> fetch(String city) {
+            return Mono.just(city);
+        }
+
+        @Override
+        public Mono<String> fetch(String city, Duration delay) {
+            return Mono.just(city).delayElement(delay);
+        }
+    }
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private Lookup proxy() {
+        ProxyFactory factory = new ProxyFactory(new SlowLookup());
+        factory.addAdvice(new MeteredMethodInterceptor(() -> registry, "test", null));
+        return (Lookup) factory.getProxy();
+    }
+
+    private long count(String method, String outcome) {
+        return registry.get("test").tag("class", "SlowLookup").tag("method", method).tag("outcome", outcome)
+                .timer().count();
+    }
+
+    @Test
+    void tagsCallsWithTheirOutcome() {
+        Lookup lookup = proxy();
+
+        lookup.find("Athens");
+        assertThatThrownBy(() -> lookup.find("")).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(count("find", "success")).isEqualTo(1);
+        assertThat(count("find", "error")).isEqualTo(1);
+    }
+
+    @Test
+    void timesReactiveCallsFromSubscriptionToCompletion() {
+        Lookup lookup = proxy();
+
+        Mono<String> result = lookup.fetch("Athens", Duration.ofMillis(50));
+        assertThat(count("fetch(String,Duration)", "success")).isZero();
+
+        result.block();
+        assertThat(count("fetch(String,Duration)", "success")).isEqualTo(1);
+        assertThat(registry.get("test").tag("method", "fetch(String,Duration)").tag("outcome", "success")
+                .timer().totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+
+        lookup.fetch("Athens", Duration.ofSeconds(10)).timeout(Duration.ofMillis(10), Mono.empty()).block();
+        assertThat(count("fetch(String,Duration)", "cancelled")).isEqualTo(1);
+        assertThat(registry.find("test").tag("method", "fetch(String)").timers()).isEmpty();
+    }
+}
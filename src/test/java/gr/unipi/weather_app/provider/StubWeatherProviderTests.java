@@ -0,0 +1,54 @@
+package gr.unipi.weather_app.provider;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StubWeatherProviderTests {
+
+    private static StubWeatherProvider provider(double errorRate) {
+        return new StubWeatherProvider(7, StubWeatherProvider.LatencyDistribution.LOG_NORMAL,
+                Duration.ofMillis(1), Duration.ofMillis(2), Duration.ofMillis(10), errorRate, 0);
+    }
+
+    private static List<String> outcomes(StubWeatherProvider provider, int calls) {
+        return Flux.range(0, calls)
+                .concatMap(i -> provider.fetch("Athens")
+                        .map(CurrentCondition::toString)
+                        .onErrorResume(WebClientResponseException.class, e -> Mono.just(e.getStatusText())))
+                .collectList()
+                .block();
+    }
+
+    @Test
+    void repeatsTheSameSequenceForTheSameSeed() {
+        assertThat(outcomes(provider(0.2), 50)).isEqualTo(outcomes(provider(0.2), 50));
+    }
+
+    @Test
+    void keepsEachCityCloseToItsOwnWeather() {
+        StubWeatherProvider provider = provider(0);
+
+        CurrentCondition first = provider.fetch("Athens").block();
+        CurrentCondition second = provider.fetch(" athens ").block();
+
+        assertThat(second.description()).isEqualTo(first.description());
+        assertThat(second.uvIndex()).isEqualTo(first.uvIndex());
+        assertThat(Math.abs(second.temperature() - first.temperature())).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    void failsAtTheConfiguredRate() {
+        long failures = outcomes(provider(0.3), 1000).stream()
+                .filter("Service Unavailable"::equals)
+                .count();
+
+        assertThat(failures).isBetween(250L, 350L);
+    }
+}
@@ -0,0 +1,63 @@
+package gr.unipi.weather_app.provider;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WttrResponseParserTests {
+
+    private final WttrResponseParser parser = new WttrResponseParser();
+
+    @Test
+    void parsesRecordedPayload() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/wttr/athens.json")) {
+            CurrentCondition condition = parser.parse(in);
+
+            assertThat(condition.temperature()).isEqualTo(3);
+            assertThat(condition.humidity()).isEqualTo(28);
+            assertThat(condition.description()).isEqualTo("Mist");
+            assertThat(condition.area()).isEqualTo("Athens");
+            assertThat(condition.country()).isEqualTo("Greece");
+        }
+    }
+
+    @Test
+    void skipsFieldsBeforeCurrentConditionAndAcceptsNumbers() throws IOException {
+        String json = """
+                {"request": [{"query": "Athens", "type": "City"}],
+                 "current_condition": [{"temp_C": -4, "humidity": "81", "windspeedKmph": "12",
+                                        "uvIndex": "0", "weatherDesc": [{"value": "Light snow"}]}]}
+                """;
+
+        CurrentCondition condition = parser.parse(json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(condition).isEqualTo(new CurrentCondition(-4, 81, 12, 0, "Light snow", null, null));
+    }
+
+    @Test
+    void readsTheNearestAreaInEitherOrder() throws IOException {
+        String json = """
+                {"nearest_area": [{"areaName": [{"value": "Athens"}], "country": [{"value": "Greece"}],
+                                   "region": [{"value": "Attica"}]}, {"areaName": [{"value": "Piraeus"}]}],
+                 "current_condition": [{"temp_C": "3", "humidity": "28", "windspeedKmph": "11",
+                                        "uvIndex": "1", "weatherDesc": [{"value": "Mist"}]}],
+                 "weather": [{"hourly": []}]}
+                """;
+
+        CurrentCondition condition = parser.parse(json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(condition).isEqualTo(new CurrentCondition(3, 28, 11, 1, "Mist", "Athens", "Greece"));
+    }
+
+    @Test
+    void rejectsResponseWithoutCurrentCondition() {
+        byte[] json = "{\"weather\": []}".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> parser.parse(json)).isInstanceOf(IOException.class);
+    }
+}
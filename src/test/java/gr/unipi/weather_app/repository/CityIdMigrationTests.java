@@ -0,0 +1,87 @@
+package gr.unipi.weather_app.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Upgrades a database of the original release, which held the searched names in its readings
+ * and nothing else, with the Flyway migrations the application runs at start.
+ */
+class CityIdMigrationTests {
+
+    @TempDir
+    private Path directory;
+
+    /**
+     * An empty database with the schema Hibernate created for the original release.
+     */
+    private JdbcTemplate originalRelease() {
+        JdbcTemplate jdbc = new JdbcTemplate(
+                new DriverManagerDataSource("jdbc:sqlite:" + directory.resolve("weather.db")));
+        jdbc.execute("CREATE TABLE weather_data (id integer, city varchar(50) not null, humidity integer not null, " +
+                "temperature integer not null, timestamp timestamp not null, uv_index integer not null, " +
+                "weather_description varchar(255) not null, wind_speed integer not null, primary key (id))");
+        return jdbc;
+    }
+
+    private static void migrate(DataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .javaMigrations(new CityIdMigration())
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+    }
+
+    @Test
+    void startsTheSearchCountsOfAnOriginalReleaseDatabaseFromItsReadings() {
+        JdbcTemplate jdbc = originalRelease();
+        List<String> searched = List.of("Athens", "athens", "ATHENS ", "Athens", "Paris");
+        for (int i = 0; i < searched.size(); i++) {
+            jdbc.update("INSERT INTO weather_data (id, city, humidity, temperature, timestamp, uv_index, " +
+                    "weather_description, wind_speed) VALUES (?, ?, 50, 20, ?, 5, 'Sunny', 10)",
+                    i + 1, searched.get(i), "2024-01-01 10:0" + i + ":00");
+        }
+
+        migrate(jdbc.getDataSource());
+
+        assertThat(jdbc.queryForList("SELECT name FROM city ORDER BY name", String.class))
+                .containsExactly("Athens", "Paris");
+        assertThat(jdbc.queryForList("SELECT c.name FROM weather_data w JOIN city c ON c.id = w.city_id ORDER BY w.id",
+                String.class))
+                .containsExactly("Athens", "Athens", "Athens", "Athens", "Paris");
+        assertThat(jdbc.queryForList("SELECT city, searches FROM city_search_count").stream()
+                .collect(Collectors.toMap(row -> (String) row.get("city"),
+                        row -> ((Number) row.get("searches")).longValue())))
+                .containsOnly(entry("Athens", 4L), entry("Paris", 1L));
+    }
+
+    @Test
+    void keepsTheSearchCountsOfADatabaseThatAlreadyCountedSearches() {
+        JdbcTemplate jdbc = originalRelease();
+        jdbc.execute("CREATE TABLE city_search_count (city varchar(50) not null, searches bigint not null, " +
+                "primary key (city))");
+        jdbc.update("INSERT INTO weather_data (id, city, humidity, temperature, timestamp, uv_index, " +
+                "weather_description, wind_speed) VALUES (1, 'Athens', 50, 20, '2024-01-01 10:00:00', 5, 'Sunny', 10)");
+        jdbc.update("INSERT INTO city_search_count (city, searches) VALUES ('athens', 7)");
+
+        migrate(jdbc.getDataSource());
+
+        assertThat(jdbc.queryForList("SELECT city, searches FROM city_search_count"))
+                .containsExactly(Map.of("city", "Athens", "searches", 7));
+    }
+}
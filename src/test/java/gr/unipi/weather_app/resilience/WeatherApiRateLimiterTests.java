@@ -0,0 +1,91 @@
+package gr.unipi.weather_app.resilience;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WeatherApiRateLimiterTests {
+
+    @Test
+    void servesInteractiveCallsAheadOfBulkCalls() {
+        WeatherApiRateLimiter limiter = new WeatherApiRateLimiter(50, 1, 100, 2, Duration.ofSeconds(1));
+        List<String> order = new CopyOnWriteArrayList<>();
+        // Holds the calls back until all of them are queued
+        limiter.pause(Duration.ofMillis(100));
+
+        Flux.merge(
+                call(limiter, RequestPriority.BULK, "b1", order),
+                call(limiter, RequestPriority.BULK, "b2", order),
+                call(limiter, RequestPriority.INTERACTIVE, "i1", order),
+                call(limiter, RequestPriority.INTERACTIVE, "i2", order),
+                call(limiter, RequestPriority.INTERACTIVE, "i3", order)
+        ).blockLast(Duration.ofSeconds(5));
+
+        assertThat(order).containsExactly("i1", "i2", "b1", "i3", "b2");
+        assertThat(limiter.stats().granted()).isEqualTo(5);
+    }
+
+    @Test
+    void rejectsCallsWhenTheQueueIsFull() {
+        WeatherApiRateLimiter limiter = new WeatherApiRateLimiter(0.001, 1, 1, 2, Duration.ofSeconds(1));
+        limiter.schedule(RequestPriority.BULK, Mono.just("first")).block();
+        limiter.schedule(RequestPriority.BULK, Mono.just("queued")).subscribe();
+
+        assertThatThrownBy(() -> limiter.schedule(RequestPriority.BULK, Mono.just("rejected")).block())
+                .isInstanceOf(RequestRejectedException.class);
+        assertThat(limiter.stats().queuedBulk()).isEqualTo(1);
+        assertThat(limiter.stats().rejected()).isEqualTo(1);
+    }
+
+    @Test
+    void pausesAfterTooManyRequests() {
+        WeatherApiRateLimiter limiter = new WeatherApiRateLimiter(50, 5, 100, 2, Duration.ofSeconds(1));
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        WebClientResponseException tooManyRequests = WebClientResponseException.create(429, "Too Many Requests",
+                headers, new byte[0], StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> limiter.schedule(RequestPriority.BULK, Mono.error(tooManyRequests)).block())
+                .isSameAs(tooManyRequests);
+
+        long start = System.nanoTime();
+        limiter.schedule(RequestPriority.INTERACTIVE, Mono.just("after")).block();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThan(Duration.ofMillis(900));
+        assertThat(limiter.stats().throttled()).isEqualTo(1);
+    }
+
+    @Test
+    void readsRetryAfterAsSecondsOrDate() {
+        Duration fallback = Duration.ofSeconds(5);
+        HttpHeaders headers = new HttpHeaders();
+        assertThat(WeatherApiRateLimiter.retryAfter(headers, fallback)).isEqualTo(fallback);
+
+        headers.set(HttpHeaders.RETRY_AFTER, "120");
+        assertThat(WeatherApiRateLimiter.retryAfter(headers, fallback)).isEqualTo(Duration.ofSeconds(120));
+
+        headers.setZonedDateTime(HttpHeaders.RETRY_AFTER, ZonedDateTime.now().plusMinutes(2));
+        assertThat(WeatherApiRateLimiter.retryAfter(headers, fallback)).isBetween(Duration.ofSeconds(100), Duration.ofSeconds(120));
+
+        headers.set(HttpHeaders.RETRY_AFTER, "soon");
+        assertThat(WeatherApiRateLimiter.retryAfter(headers, fallback)).isEqualTo(fallback);
+    }
+
+    private static Mono<String> call(WeatherApiRateLimiter limiter, RequestPriority priority, String name,
+                                     List<String> order) {
+        return limiter.schedule(priority, Mono.fromCallable(() -> {
+            order.add(name);
+            return name;
+        }));
+    }
+}
@@ -0,0 +1,68 @@
+package gr.unipi.weather_app.resilience;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WeatherApiResilienceTests {
+
+    private static WeatherApiResilience resilience(int minimumCalls) {
+        return new WeatherApiResilience(3, Duration.ofMillis(1), Duration.ofMillis(5), 0.5,
+                20, minimumCalls, 50, Duration.ofMinutes(1), 1,
+                false, 0.95, 20, Duration.ofMillis(50));
+    }
+
+    private static WebClientRequestException connectionRefused() {
+        return new WebClientRequestException(new IOException("Connection refused"), HttpMethod.GET,
+                URI.create("http://localhost/athens"), new HttpHeaders());
+    }
+
+    @Test
+    void retriesUpstreamFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> calls.incrementAndGet() < 3
+                ? Mono.error(connectionRefused())
+                : Mono.just("ok"));
+
+        assertThat(resilience(20).decorate(call).block()).isEqualTo("ok");
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void doesNotRetryOtherErrors() {
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalArgumentException("Unknown city"));
+        });
+
+        assertThatThrownBy(() -> resilience(20).decorate(call).block()).isInstanceOf(IllegalArgumentException.class);
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void rejectsCallsOnceTheBreakerOpens() {
+        WeatherApiResilience resilience = resilience(3);
+        AtomicInteger calls = new AtomicInteger();
+        Mono<String> call = Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(connectionRefused());
+        });
+
+        assertThatThrownBy(() -> resilience.decorate(call).block()).isInstanceOf(WebClientRequestException.class);
+        assertThat(resilience.circuitBreakerState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        assertThatThrownBy(() -> resilience.decorate(call).block()).isInstanceOf(CircuitBreakerOpenException.class);
+        assertThat(calls).hasValue(3);
+    }
+}
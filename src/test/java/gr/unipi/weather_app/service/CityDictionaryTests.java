@@ -0,0 +1,129 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.City;
+import gr.unipi.weather_app.repository.CityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionCallback;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CityDictionaryTests {
+
+    private final CityRepository repository = mock(CityRepository.class);
+    private final WeatherIngestService ingestService = mock(WeatherIngestService.class);
+    private final CityDictionary dictionary = new CityDictionary(repository, ingestService, 2);
+
+    /**
+     * The rows of the "city" table by id, and of the "city_alias" table.
+     */
+    private final Map<Integer, City> cities = new HashMap<>();
+    private final Map<String, Integer> aliases = new HashMap<>();
+
+    @BeforeEach
+    void storeInMemory() {
+        given(ingestService.write(any())).willAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        given(repository.save(any())).willAnswer(invocation -> {
+            City city = invocation.getArgument(0);
+            City saved = new City(cities.size() + 1, city.getName(), city.getCountry());
+            cities.put(saved.getId(), saved);
+            return saved;
+        });
+        willAnswer(invocation -> aliases.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)))
+                .given(repository).addAlias(anyString(), anyInt());
+        given(repository.findByAlias(anyString())).willAnswer(invocation ->
+                Optional.ofNullable(aliases.get(invocation.<String>getArgument(0))).map(cities::get));
+    }
+
+    @Test
+    void resolvesEverySpellingToTheCityOfTheReportedArea() {
+        City athens = dictionary.register("athina", "Athens", "Greece");
+
+        assertThat(athens.getName()).isEqualTo("Athens");
+        assertThat(dictionary.find("Athina")).isNull();
+        assertThat(aliases).containsOnlyKeys("athens");
+
+        assertThat(dictionary.register("Athina", "Athens", "Greece").getId()).isEqualTo(athens.getId());
+        assertThat(dictionary.register(" ATHENS ", "Athens", "Greece").getId()).isEqualTo(athens.getId());
+        assertThat(dictionary.find("Athina").getId()).isEqualTo(athens.getId());
+        assertThat(dictionary.key("ATHINA")).isEqualTo("athens");
+        assertThat(dictionary.name("athens")).isEqualTo("Athens");
+        assertThat(dictionary.name("  new   York ")).isEqualTo("new York");
+        assertThat(aliases).containsOnlyKeys("athens", "athina");
+
+        dictionary.register("Athina", "Athens", "Greece");
+        verify(ingestService, times(2)).write(any());
+    }
+
+    @Test
+    void qualifiesAreasNamedLikeACityOfAnotherCountry() {
+        City paris = dictionary.register("Paris", "Paris", "France");
+        City texas = dictionary.register("Paris Texas", "Paris", "United States of America");
+
+        assertThat(texas.getId()).isNotEqualTo(paris.getId());
+        assertThat(texas.getName()).isEqualTo("Paris, United States of America");
+        assertThat(dictionary.find("paris").getName()).isEqualTo("Paris");
+        assertThat(dictionary.find("paris, united states of america").getId()).isEqualTo(texas.getId());
+    }
+
+    @Test
+    void shortensTheQualifiedNameOfALongAreaToFitTheNameColumn() {
+        String area = "Llanfairpwllgwyngyllgogerychwyrndrobwllllantysiliogogogoch";
+        String country = "United Kingdom of Great Britain and Northern Ireland";
+        City wales = dictionary.register("Llanfair PG", area, country);
+        City elsewhere = dictionary.register("Llanfair", area, "The Democratic Republic of the Congo");
+
+        assertThat(wales.getName()).hasSize(City.MAX_NAME_LENGTH).isEqualTo(area.substring(0, City.MAX_NAME_LENGTH));
+        assertThat(elsewhere.getId()).isNotEqualTo(wales.getId());
+        assertThat(elsewhere.getName()).isEqualTo("Llanfairpwllgwyngyllgoger, The Democratic Republic");
+        assertThat(dictionary.register("Llanfair Congo", area, "The Democratic Republic of the Congo").getId())
+                .isEqualTo(elsewhere.getId());
+    }
+
+    @Test
+    void storesOnlyTheSpellingsRegisteredTwiceAndKeepsTheMostRecentlyUsedInMemory() {
+        City athens = dictionary.register("Athens", "Athens", "Greece");
+        dictionary.register("Atenas", "Athens", "Greece");
+        for (String spelling : List.of("Athina", "Atene", "Athen")) {
+            dictionary.register(spelling, "Athens", "Greece");
+            dictionary.register(spelling, "Athens", "Greece");
+        }
+
+        assertThat(aliases).containsOnlyKeys("athens", "athina", "atene", "athen");
+        assertThat(dictionary.find("Athina")).isNull();
+        assertThat(dictionary.find("Atene").getId()).isEqualTo(athens.getId());
+        assertThat(dictionary.find("Athen").getId()).isEqualTo(athens.getId());
+
+        assertThat(dictionary.register("Athina", "Athens", "Greece").getId()).isEqualTo(athens.getId());
+        assertThat(dictionary.find("Athina").getId()).isEqualTo(athens.getId());
+        assertThat(dictionary.find("Atene")).isNull();
+        assertThat(cities).hasSize(1);
+    }
+
+    @Test
+    void loadsTheStoredAliases() {
+        given(repository.findAll()).willReturn(List.of(new City(7, "New York", "United States of America")));
+        given(repository.findAllAliases()).willReturn(List.<Object[]>of(new Object[]{"new york", 7},
+                new Object[]{"nyc", 7}));
+
+        dictionary.load();
+
+        assertThat(dictionary.find("NYC").getName()).isEqualTo("New York");
+        assertThat(dictionary.key("nyc")).isEqualTo("new york");
+        assertThat(dictionary.find("Boston")).isNull();
+    }
+}
@@ -0,0 +1,105 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.repository.SchedulerLeaseRepository;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class HotCityRefresherTests {
+
+    private final WeatherService weatherService = mock(WeatherService.class);
+    private final SearchCounter searchCounter = mock(SearchCounter.class);
+    private final SchedulerLeaseRepository leaseRepository = mock(SchedulerLeaseRepository.class);
+    private final WeatherCache cache = new WeatherCache(Duration.ofMinutes(10), Duration.ofMinutes(30), 100);
+
+    private HotCityRefresher refresher(int maxConcurrency) {
+        return new HotCityRefresher(weatherService, searchCounter, leaseRepository, cache, 3,
+                Duration.ofSeconds(30), Duration.ZERO, Duration.ofMinutes(10), 10, 3, 0.1,
+                maxConcurrency, Duration.ofSeconds(90), "node-1");
+    }
+
+    private static WeatherData reading(String city, int temperature, String description) {
+        return new WeatherData(0, 0, city, temperature, 50, 10, 3, description, LocalDateTime.now());
+    }
+
+    private void mostSearched(String... cities) {
+        given(searchCounter.mostSearched(3)).willReturn(
+                List.of(cities).stream().map(city -> new CitySearches(city, 10)).toList());
+    }
+
+    @Test
+    void onlyTheLeaseHolderRefreshes() {
+        mostSearched("Athens");
+        given(leaseRepository.acquire(eq(HotCityRefresher.LEASE), eq("node-1"), anyLong(), anyLong())).willReturn(0);
+        HotCityRefresher refresher = refresher(4);
+
+        refresher.plan();
+        refresher.refreshDueCities();
+
+        verify(searchCounter, never()).mostSearched(anyInt());
+        verify(weatherService, never()).refreshWeather(anyString());
+        assertThat(refresher.stats().leader()).isFalse();
+    }
+
+    @Test
+    void refreshesDueCitiesOnceAndUpToTheConcurrencyLimit() {
+        mostSearched("Athens", "Paris", "Oslo");
+        given(leaseRepository.acquire(anyString(), anyString(), anyLong(), anyLong())).willReturn(1);
+        Sinks.One<WeatherData> pending = Sinks.one();
+        given(weatherService.refreshWeather(anyString())).willReturn(pending.asMono());
+        HotCityRefresher refresher = refresher(2);
+
+        refresher.plan();
+        refresher.refreshDueCities();
+        refresher.refreshDueCities();
+
+        verify(weatherService, times(2)).refreshWeather(anyString());
+        verify(weatherService).refreshWeather("Athens");
+        verify(weatherService).refreshWeather("Paris");
+
+        pending.tryEmitValue(reading("Athens", 20, "Sunny"));
+        refresher.refreshDueCities();
+
+        verify(weatherService).refreshWeather("Oslo");
+        assertThat(refresher.stats()).isEqualTo(new HotCityRefresher.RefreshStats(true, 3, 3, 0));
+    }
+
+    @Test
+    void countsFailedRefreshesAndKeepsGoing() {
+        mostSearched("Athens");
+        given(leaseRepository.acquire(anyString(), anyString(), anyLong(), anyLong())).willReturn(1);
+        given(weatherService.refreshWeather("Athens")).willReturn(Mono.error(new RuntimeException("Down")));
+        HotCityRefresher refresher = refresher(1);
+
+        refresher.plan();
+        refresher.refreshDueCities();
+
+        assertThat(refresher.stats().failed()).isEqualTo(1);
+        assertThat(refresher.stats().cities()).isEqualTo(1);
+    }
+
+    @Test
+    void scoresChangesOfTheReadings() {
+        WeatherData before = reading("Athens", 20, "Sunny");
+
+        assertThat(HotCityRefresher.change(before, reading("Athens", 20, "Sunny"))).isZero();
+        assertThat(HotCityRefresher.change(before, reading("Athens", 22, "Sunny"))).isEqualTo(2);
+        assertThat(HotCityRefresher.change(before, reading("Athens", 19, "Cloudy"))).isEqualTo(2);
+    }
+}
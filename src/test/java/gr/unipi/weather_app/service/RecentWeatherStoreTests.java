@@ -0,0 +1,109 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.CityStats;
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.model.WeatherTotals;
+import gr.unipi.weather_app.repository.CityStatsRepository;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class RecentWeatherStoreTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private final WeatherRepository repository = mock(WeatherRepository.class);
+    private final CityStatsRepository cityStatsRepository = mock(CityStatsRepository.class);
+    private final RecentWeatherStore store = new RecentWeatherStore(repository, cityStatsRepository,
+            mock(PlatformTransactionManager.class), Duration.ofDays(7));
+
+    private static CityStats stats(String city, int... temperatures) {
+        CityStats stats = new CityStats(city);
+        for (int temperature : temperatures) {
+            stats.add(temperature, 50, 10, 3);
+        }
+        return stats;
+    }
+
+    private static WeatherData reading(String city, int temperature, LocalDateTime timestamp) {
+        return new WeatherData(0, 0, city, temperature, 50, 10, 3, "Sunny", timestamp);
+    }
+
+    private void load(LocalDateTime oldest, List<CityStats> stats, Object[]... readings) {
+        given(cityStatsRepository.findAll()).willReturn(stats);
+        given(repository.streamByTimestamp(any())).willReturn(Stream.of(readings));
+        given(repository.findOldestTimestamp()).willReturn(Optional.ofNullable(oldest));
+        store.load();
+    }
+
+    @Test
+    void answersFromTheLoadedTotalsAndReadingsOfTheWindow() {
+        load(NOW.minusDays(30), List.of(stats("Athens", 30, 20, 10), stats("Oslo", -5)),
+                new Object[]{"Athens", 10, 50, 10, 3, NOW.minusDays(2)},
+                new Object[]{"Oslo", -5, 50, 10, 3, NOW.minusHours(1)});
+
+        assertThat(store.getTotalsOfCity("Athens")).isEqualTo(new WeatherTotals(3, 60, 150, 30, 9));
+        assertThat(store.getTotalsOfCity("Lisbon")).isEqualTo(WeatherTotals.EMPTY);
+        assertThat(store.getTotalsSince(NOW.minusDays(3)).readings()).isEqualTo(2);
+        assertThat(store.getTotalsSince(NOW.minusDays(1))).isEqualTo(new WeatherTotals(1, -5, 50, 10, 3));
+        assertThat(store.covers(NOW.minusDays(6))).isTrue();
+        assertThat(store.covers(NOW.minusDays(8))).isFalse();
+    }
+
+    @Test
+    void onlyCoversTheDaysLeftAfterDownsampling() {
+        load(NOW.minusDays(2), List.of());
+
+        assertThat(store.covers(NOW.minusDays(3))).isFalse();
+        assertThat(store.covers(NOW.minusDays(1))).isTrue();
+    }
+
+    @Test
+    void addsReadingsAndEvictsTheOnesLeavingTheWindow() {
+        load(NOW.minusDays(30), List.of());
+        List<WeatherData> batch = new ArrayList<>();
+        for (int hour = 240; hour >= 0; hour--) {
+            batch.add(reading("Athens", hour % 10, NOW.minusHours(hour)));
+        }
+
+        store.add(batch);
+
+        assertThat(store.getTotalsOfCity("Athens").readings()).isEqualTo(241);
+        assertThat(store.getTotalsSince(NOW.minusDays(3)).readings()).isEqualTo(73);
+        assertThat(store.getTotalsSince(NOW.minusDays(7).plusHours(1)).readings()).isEqualTo(168);
+        assertThat(store.covers(NOW.minusDays(7).minusHours(1))).isFalse();
+        assertThat(store.covers(NOW.minusDays(7).plusMinutes(1))).isTrue();
+
+        store.add(List.of(reading("Athens", 0, NOW.minusHours(2).minusMinutes(30))));
+
+        assertThat(store.getTotalsSince(NOW.minusHours(3)).readings()).isEqualTo(5);
+        assertThat(store.getTotalsSince(NOW.minusHours(2)).readings()).isEqualTo(3);
+    }
+
+    @Test
+    void ranksTheCitiesByTheirRecordTemperatures() {
+        load(NOW.minusDays(30), List.of(stats("Oslo", -5, 12), stats("Athens", 30, 10), stats("Cairo", 30)));
+        store.add(List.of(reading("Reykjavik", -5, NOW), reading("Madrid", 28, NOW)));
+
+        assertThat(store.findHottestCity()).containsExactly(
+                new CityTemperature("Athens", 30), new CityTemperature("Cairo", 30));
+        assertThat(store.findColdestCity()).containsExactly(
+                new CityTemperature("Oslo", -5), new CityTemperature("Reykjavik", -5));
+        assertThat(store.findHottestCities(3)).containsExactly(new CityTemperature("Athens", 30),
+                new CityTemperature("Cairo", 30), new CityTemperature("Madrid", 28));
+        assertThat(store.findColdestCities(1)).containsExactly(
+                new CityTemperature("Oslo", -5), new CityTemperature("Reykjavik", -5));
+    }
+}
@@ -0,0 +1,68 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.CitySearchCount;
+import gr.unipi.weather_app.repository.CitySearchCountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class SearchCounterTests {
+
+    private final CitySearchCountRepository repository = mock(CitySearchCountRepository.class);
+    private final SearchCounter counter = new SearchCounter(repository, mock(PlatformTransactionManager.class), 2);
+
+    private static CitySearchCount count(String city, long searches) {
+        CitySearchCount count = new CitySearchCount();
+        count.setCity(city);
+        count.setSearches(searches);
+        return count;
+    }
+
+    @Test
+    void addsTheSearchesOfEachCityOncePerFlush() {
+        counter.record("Athens");
+        counter.record("Athens");
+        counter.record("Paris");
+        given(repository.findByOrderBySearchesDesc(Limit.of(2)))
+                .willReturn(List.of(count("Athens", 12), count("Paris", 5)));
+
+        counter.flush();
+        counter.flush();
+
+        verify(repository).add("Athens", 2);
+        verify(repository).add("Paris", 1);
+        assertThat(counter.mostSearched(1)).containsExactly(new CitySearches("Athens", 12));
+        assertThat(counter.mostSearched(10)).hasSize(2);
+        assertThat(counter.stats()).isEqualTo(new SearchCounter.SearchStats(3, 0));
+    }
+
+    @Test
+    void keepsTheSearchesWhenTheFlushFails() {
+        counter.record("Athens");
+        willThrow(new IllegalStateException("Database is locked")).given(repository).add("Athens", 1);
+
+        assertThatThrownBy(counter::flush).isInstanceOf(IllegalStateException.class);
+
+        assertThat(counter.stats().pending()).isEqualTo(1);
+        verify(repository, never()).findByOrderBySearchesDesc(Limit.of(2));
+    }
+
+    @Test
+    void flushesNothingWithoutSearches() {
+        counter.flush();
+
+        verify(repository, never()).add(anyString(), anyLong());
+    }
+}
@@ -0,0 +1,62 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherData;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeatherCacheTests {
+
+    @Test
+    void normalizesKeys() {
+        assertThat(WeatherCache.key("  New   York ")).isEqualTo("new york");
+        assertThat(WeatherCache.key("ATHENS")).isEqualTo(WeatherCache.key("athens"));
+        assertThat(WeatherCache.key("New\u00A0York\t")).isEqualTo("new york");
+        assertThat(WeatherCache.key("ＡＴＨＥＮＳ")).isEqualTo("athens");
+        assertThat(WeatherCache.key("ΑΘΗΝΑΣ")).isEqualTo(WeatherCache.key("αθηνασ"));
+    }
+
+    @Test
+    void servesFreshEntriesAndCountsMisses() {
+        WeatherCache cache = new WeatherCache(Duration.ofMinutes(10), Duration.ofMinutes(30), 10);
+        WeatherData data = new WeatherData();
+
+        assertThat(cache.get("athens")).isNull();
+        cache.put("athens", data);
+
+        WeatherCache.CachedWeather cached = cache.get("athens");
+        assertThat(cached.data()).isSameAs(data);
+        assertThat(cached.stale()).isFalse();
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void servesStaleEntriesWithASingleRefresh() {
+        WeatherCache cache = new WeatherCache(Duration.ZERO, Duration.ofMinutes(30), 10);
+        cache.put("athens", new WeatherData());
+
+        assertThat(cache.get("athens").stale()).isTrue();
+        assertThat(cache.beginRefresh("athens")).isTrue();
+        assertThat(cache.beginRefresh("athens")).isFalse();
+
+        cache.endRefresh("athens");
+        assertThat(cache.beginRefresh("athens")).isTrue();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedEntries() {
+        WeatherCache cache = new WeatherCache(Duration.ofMinutes(10), Duration.ZERO, 2);
+        cache.put("athens", new WeatherData());
+        cache.put("rome", new WeatherData());
+        cache.get("athens");
+        cache.put("paris", new WeatherData());
+
+        assertThat(cache.get("rome")).isNull();
+        assertThat(cache.get("athens")).isNotNull();
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.stats().size()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,95 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.repository.CityIdMigration;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Writes batches through the {@link WeatherDataWriter} into a SQLite database created by the
+ * Flyway migrations, outside of any test transaction, as the application does.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class WeatherDataWriterSqliteTests {
+
+    @TempDir
+    private static Path directory;
+
+    @Autowired
+    private WeatherRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * The persistence layer alone, on a database created by the Flyway migrations.
+     */
+    @Configuration
+    @Import(CityIdMigration.class)
+    @EntityScan(basePackageClasses = WeatherData.class)
+    @EnableJpaRepositories(basePackageClasses = WeatherRepository.class)
+    static class JpaConfig {
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + directory.resolve("weather.db"));
+    }
+
+    private static WeatherData reading(int temperature) {
+        return new WeatherData(0, 1, null, temperature, 50, 10, 5, "Sunny", LocalDateTime.now());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void storesABatchOnTheAttemptAfterItsTransactionFailed() {
+        WeatherRollupService rollupService = mock(WeatherRollupService.class);
+        willThrow(new IllegalStateException("Database is locked")).willDoNothing().given(rollupService).apply(anyList());
+        WeatherIngestService ingestService = new WeatherIngestService(repository, rollupService, transactionManager,
+                mock(ObjectProvider.class));
+        WeatherDataWriter writer = new WeatherDataWriter(ingestService, 10, 2, Duration.ofMillis(20),
+                Duration.ofSeconds(1), 3, Duration.ofMillis(10));
+        writer.start();
+
+        writer.submit(reading(20));
+        writer.submit(reading(25));
+        writer.stop();
+
+        verify(rollupService, times(2)).apply(anyList());
+        assertThat(writer.dropped()).isZero();
+        assertThat(jdbcTemplate.queryForList("SELECT temperature FROM weather_data ORDER BY temperature", Integer.class))
+                .containsExactly(20, 25);
+    }
+}
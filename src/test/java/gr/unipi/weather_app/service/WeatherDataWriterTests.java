@@ -0,0 +1,160 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class WeatherDataWriterTests {
+
+    private final WeatherIngestService ingestService = mock(WeatherIngestService.class);
+    private WeatherDataWriter writer;
+
+    /**
+     * Copies of the batches written, as the writer reuses its batch list.
+     */
+    private final List<List<WeatherData>> written = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @BeforeEach
+    void recordBatches() {
+        given(ingestService.ingest(any())).willAnswer(invocation -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("Database is locked");
+            }
+            List<WeatherData> batch = List.copyOf(invocation.getArgument(0));
+            written.add(batch);
+            return batch;
+        });
+    }
+
+    private static WeatherData reading(String city) {
+        return new WeatherData(0, 0, city, 20, 50, 10, 5, "Sunny", LocalDateTime.now());
+    }
+
+    private WeatherDataWriter start(int capacity, int batchSize, Duration flushInterval) {
+        writer = new WeatherDataWriter(ingestService, capacity, batchSize, flushInterval, Duration.ofMillis(50),
+                3, Duration.ofMillis(10));
+        writer.start();
+        return writer;
+    }
+
+    @AfterEach
+    void stop() {
+        if (writer.isRunning()) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void flushesAFullBatchWithoutWaitingForTheInterval() {
+        start(10, 2, Duration.ofSeconds(2));
+        WeatherData athens = reading("Athens");
+        WeatherData paris = reading("Paris");
+
+        writer.submit(athens);
+        writer.submit(paris);
+
+        verify(ingestService, timeout(1000)).ingest(any());
+        assertThat(written).containsExactly(List.of(athens, paris));
+    }
+
+    @Test
+    void flushesAPartialBatchOnceTheIntervalIsOver() {
+        start(10, 50, Duration.ofMillis(20));
+        WeatherData athens = reading("Athens");
+
+        writer.submit(athens);
+
+        verify(ingestService, timeout(1000)).ingest(any());
+        assertThat(written).containsExactly(List.of(athens));
+        assertThat(writer.pending()).isZero();
+    }
+
+    @Test
+    void writesAFailedBatchAgain() {
+        failures.set(2);
+        start(10, 1, Duration.ofMillis(20));
+        WeatherData athens = reading("Athens");
+
+        writer.submit(athens);
+
+        verify(ingestService, timeout(1000).times(3)).ingest(any());
+        writer.stop();
+        assertThat(written).containsExactly(List.of(athens));
+        assertThat(writer.dropped()).isZero();
+    }
+
+    @Test
+    void countsTheReadingsOfABatchDroppedAfterEveryAttemptFailed() {
+        failures.set(3);
+        start(10, 2, Duration.ofMillis(20));
+        WeatherData rome = reading("Rome");
+
+        writer.submit(reading("Athens"));
+        writer.submit(reading("Paris"));
+        verify(ingestService, timeout(1000).times(3)).ingest(any());
+        writer.submit(rome);
+        writer.stop();
+
+        assertThat(written).containsExactly(List.of(rome));
+        assertThat(writer.dropped()).isEqualTo(2);
+    }
+
+    @Test
+    void drainsTheQueueWhenStopped() {
+        start(10, 50, Duration.ofMillis(200));
+        WeatherData athens = reading("Athens");
+        WeatherData paris = reading("Paris");
+
+        writer.submit(athens);
+        writer.submit(paris);
+        writer.stop();
+
+        assertThat(written).containsExactly(List.of(athens, paris));
+        assertThatThrownBy(() -> writer.submit(reading("Rome"))).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsReadingsOnceTheQueueStayedFull() {
+        CountDownLatch release = new CountDownLatch(1);
+        willAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            List<WeatherData> batch = List.copyOf(invocation.getArgument(0));
+            written.add(batch);
+            return batch;
+        }).given(ingestService).ingest(any());
+        start(1, 1, Duration.ofMillis(20));
+        WeatherData athens = reading("Athens");
+        WeatherData paris = reading("Paris");
+
+        writer.submit(athens);
+        verify(ingestService, timeout(1000)).ingest(any());
+        writer.submit(paris);
+        assertThatThrownBy(() -> writer.submit(reading("Rome")))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("full");
+
+        release.countDown();
+        writer.stop();
+        assertThat(written).containsExactly(List.of(athens), List.of(paris));
+    }
+}
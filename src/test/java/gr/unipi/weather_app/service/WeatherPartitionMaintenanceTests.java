@@ -0,0 +1,165 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.repository.PartitionedWeatherQueriesImpl;
+import gr.unipi.weather_app.repository.SchedulerLeaseRepository;
+import gr.unipi.weather_app.repository.WeatherPartitions;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.sqlite.SQLiteDataSource;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class WeatherPartitionMaintenanceTests {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 3, 15, 12, 0);
+
+    @TempDir
+    private Path directory;
+
+    private final SchedulerLeaseRepository leaseRepository = mock(SchedulerLeaseRepository.class);
+    private SQLiteDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private PartitionedWeatherQueriesImpl queries;
+    private int nextId;
+
+    @BeforeEach
+    void createDatabase() {
+        dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + directory.resolve("weather.db"));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE weather_partition (name varchar(50) not null, range_end timestamp not null, " +
+                "range_start timestamp not null, primary key (name))");
+        jdbcTemplate.execute("CREATE TABLE weather_hourly (city varchar(50) not null, bucket_start timestamp not null, " +
+                "readings bigint not null, primary key (bucket_start, city))");
+        jdbcTemplate.execute("CREATE TABLE city (id integer, name varchar(50) not null, country varchar(100), " +
+                "primary key (id))");
+        jdbcTemplate.update("INSERT INTO city (id, name) VALUES (1, 'Athens')");
+        WeatherPartitions.createTable(jdbcTemplate, WeatherPartitions.HOT);
+        queries = new PartitionedWeatherQueriesImpl(dataSource);
+        given(leaseRepository.acquire(eq(WeatherPartitionMaintenance.LEASE), eq("node-1"), anyLong(), anyLong()))
+                .willReturn(1);
+    }
+
+    private WeatherPartitionMaintenance maintenance(Duration raw, Duration hourly) {
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        WeatherIngestService ingestService = new WeatherIngestService(mock(WeatherRepository.class),
+                mock(WeatherRollupService.class), transactionManager, mock(ObjectProvider.class));
+        return new WeatherPartitionMaintenance(dataSource, transactionManager, ingestService, leaseRepository,
+                raw, hourly, 7, Duration.ofMinutes(10), "node-1");
+    }
+
+    /**
+     * Stores a reading of Athens every hour within a time range, counting them in their hourly buckets as ingestion does.
+     */
+    private void readings(LocalDateTime from, LocalDateTime to, boolean bucketed) {
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource)).executeWithoutResult(status -> {
+            for (LocalDateTime hour = from; hour.isBefore(to); hour = hour.plusHours(1)) {
+                jdbcTemplate.update("INSERT INTO weather_data (" + WeatherPartitions.COLUMNS + ") " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", nextId++, 1, hour.getHour(), 50, 10, 3, "Sunny",
+                        Timestamp.valueOf(hour));
+                if (bucketed) {
+                    jdbcTemplate.update("INSERT INTO weather_hourly (city, bucket_start, readings) VALUES (?, ?, 1)",
+                            "Athens", Timestamp.valueOf(hour));
+                }
+            }
+        });
+    }
+
+    private List<String> archives() {
+        return jdbcTemplate.queryForList("SELECT name FROM weather_partition ORDER BY range_start", String.class);
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    @Test
+    void movesPastMonthsIntoArchivesTheQueriesStillRead() {
+        readings(LocalDateTime.of(2025, 1, 31, 0, 0), LocalDateTime.of(2025, 3, 1, 6, 0), true);
+
+        maintenance(Duration.ZERO, Duration.ZERO).run(NOW);
+
+        assertThat(archives()).containsExactly("weather_data_2025_01", "weather_data_2025_02");
+        assertThat(count("weather_data_2025_01")).isEqualTo(24);
+        assertThat(count("weather_data_2025_02")).isEqualTo(28 * 24);
+        assertThat(count(WeatherPartitions.HOT)).isEqualTo(6);
+
+        assertThat(queries.findOldestTimestamp()).contains(LocalDateTime.of(2025, 1, 31, 0, 0));
+        assertThat(queries.findLatestByCity("Athens")).map(WeatherData::getTimestamp)
+                .contains(LocalDateTime.of(2025, 3, 1, 5, 0));
+        assertThat(queries.getTotalsBetween(LocalDateTime.of(2025, 1, 31, 23, 0), LocalDateTime.of(2025, 3, 1, 1, 0))
+                .readings()).isEqualTo(1 + 28 * 24 + 1);
+        List<LocalDateTime> streamed = new ArrayList<>();
+        try (Stream<Object[]> rows = queries.streamByTimestamp(LocalDateTime.of(2025, 2, 28, 22, 0))) {
+            rows.forEach(row -> streamed.add((LocalDateTime) row[5]));
+        }
+        assertThat(streamed).hasSize(8).isSorted();
+
+        jdbcTemplate.update("DELETE FROM weather_data");
+        assertThat(queries.findLatestByCity("Athens")).map(WeatherData::getTimestamp)
+                .contains(LocalDateTime.of(2025, 2, 28, 23, 0));
+    }
+
+    @Test
+    void downsamplesOnlyTheDaysHeldByTheHourlyBuckets() {
+        readings(LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 10, 0, 0), true);
+        readings(LocalDateTime.of(2025, 1, 10, 0, 0), LocalDateTime.of(2025, 1, 11, 0, 0), false);
+        readings(LocalDateTime.of(2025, 1, 11, 0, 0), LocalDateTime.of(2025, 3, 1, 0, 0), true);
+        WeatherPartitionMaintenance maintenance = maintenance(Duration.ofDays(30), Duration.ZERO);
+
+        maintenance.run(NOW);
+
+        assertThat(queries.findOldestTimestamp()).contains(LocalDateTime.of(2025, 1, 10, 0, 0));
+        assertThat(archives()).containsExactly("weather_data_2025_01", "weather_data_2025_02");
+
+        jdbcTemplate.update("INSERT INTO weather_hourly (city, bucket_start, readings) VALUES (?, ?, 24)",
+                "Athens", Timestamp.valueOf(LocalDateTime.of(2025, 1, 10, 0, 0)));
+        maintenance.run(NOW);
+
+        assertThat(queries.findOldestTimestamp()).contains(LocalDateTime.of(2025, 2, 13, 0, 0));
+        assertThat(archives()).containsExactly("weather_data_2025_02");
+        assertThat(count("weather_hourly")).isEqualTo(58 * 24 + 1);
+    }
+
+    @Test
+    void expiresTheHourlyBucketsPastTheirRetention() {
+        readings(LocalDateTime.of(2025, 2, 1, 0, 0), LocalDateTime.of(2025, 3, 1, 0, 0), true);
+
+        maintenance(Duration.ofDays(30), Duration.ofDays(40)).run(NOW);
+
+        assertThat(jdbcTemplate.queryForObject("SELECT MIN(bucket_start) FROM weather_hourly", Timestamp.class))
+                .isEqualTo(Timestamp.valueOf(LocalDateTime.of(2025, 2, 3, 0, 0)));
+        assertThat(queries.findOldestTimestamp()).contains(LocalDateTime.of(2025, 2, 13, 0, 0));
+    }
+
+    @Test
+    void onlyTheLeaseHolderRuns() {
+        readings(LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2025, 1, 2, 0, 0), true);
+        given(leaseRepository.acquire(eq(WeatherPartitionMaintenance.LEASE), eq("node-1"), anyLong(), anyLong()))
+                .willReturn(0);
+
+        maintenance(Duration.ofDays(30), Duration.ofDays(40)).run(NOW);
+
+        assertThat(archives()).isEmpty();
+        assertThat(count(WeatherPartitions.HOT)).isEqualTo(24);
+    }
+}
@@ -0,0 +1,183 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.repository.CityIdMigration;
+import gr.unipi.weather_app.repository.WeatherPartitions;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class WeatherRollupServiceTests {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+    @TempDir
+    private static Path directory;
+
+    @Autowired
+    private WeatherRollupService rollupService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private int nextId;
+
+    /**
+     * The persistence layer alone, on a database created by the Flyway migrations.
+     */
+    @Configuration
+    @Import({WeatherRollupService.class, CityIdMigration.class})
+    @EntityScan(basePackageClasses = WeatherData.class)
+    @EnableJpaRepositories(basePackageClasses = WeatherRepository.class)
+    static class JpaConfig {
+    }
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + directory.resolve("weather.db"));
+    }
+
+    @BeforeEach
+    void createCities() {
+        jdbcTemplate.update("INSERT INTO city (id, name) VALUES (1, 'Athens'), (2, 'Paris')");
+    }
+
+    private static WeatherData reading(int cityId, String city, int temperature, LocalDateTime timestamp) {
+        return new WeatherData(0, cityId, city, temperature, temperature + 40, temperature / 2, temperature % 12,
+                "Sunny", timestamp);
+    }
+
+    /**
+     * Stores readings as the ingestion does, without updating the pre-aggregated tables.
+     */
+    private void store(List<WeatherData> readings) {
+        jdbcTemplate.batchUpdate("INSERT INTO " + WeatherPartitions.HOT + " (" + WeatherPartitions.COLUMNS + ") " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                readings.stream().map(data -> new Object[]{nextId++, data.getCityId(), data.getTemperature(),
+                        data.getHumidity(), data.getWindSpeed(), data.getUvIndex(), data.getWeather_description(),
+                        Timestamp.valueOf(data.getTimestamp())}).toList());
+    }
+
+    private List<Map<String, Object>> rows(String table) {
+        entityManager.flush();
+        String order = table.equals("city_stats") ? "city" : "bucket_start, city";
+        return jdbcTemplate.queryForList("SELECT * FROM " + table + " ORDER BY " + order);
+    }
+
+    private List<Map<String, Object>> rollups() {
+        List<Map<String, Object>> rows = new ArrayList<>(rows("city_stats"));
+        rows.addAll(rows("weather_hourly"));
+        rows.addAll(rows("weather_daily"));
+        return rows;
+    }
+
+    private long sum(String column, String table) {
+        entityManager.flush();
+        return jdbcTemplate.queryForObject("SELECT COALESCE(SUM(" + column + "), 0) FROM " + table, Long.class);
+    }
+
+    @Test
+    void addsEachBatchToItsHourAndDayAndRebuildsTheSameTotals() {
+        List<WeatherData> first = List.of(
+                reading(1, "Athens", 10, DAY.plusHours(10).plusMinutes(10)),
+                reading(1, "Athens", 14, DAY.plusHours(10).plusMinutes(50)),
+                reading(2, "Paris", 5, DAY.plusHours(23).plusMinutes(30)));
+        List<WeatherData> second = List.of(
+                reading(1, "Athens", 12, DAY.plusHours(10).plusMinutes(59)),
+                reading(1, "Athens", 20, DAY.plusHours(23).plusMinutes(59)),
+                reading(1, "Athens", 8, DAY.plusDays(1)));
+        store(first);
+        store(second);
+
+        rollupService.apply(first);
+        rollupService.apply(second);
+
+        assertThat(jdbcTemplate.queryForList("SELECT readings, temperature_sum, temperature_min, temperature_max " +
+                "FROM weather_hourly WHERE city = 'Athens' ORDER BY bucket_start")).containsExactly(
+                Map.of("readings", 3, "temperature_sum", 36, "temperature_min", 10, "temperature_max", 14),
+                Map.of("readings", 1, "temperature_sum", 20, "temperature_min", 20, "temperature_max", 20),
+                Map.of("readings", 1, "temperature_sum", 8, "temperature_min", 8, "temperature_max", 8));
+        assertThat(jdbcTemplate.queryForList("SELECT city, readings, temperature_sum, humidity_sum " +
+                "FROM weather_daily ORDER BY bucket_start, city")).containsExactly(
+                Map.of("city", "Athens", "readings", 4, "temperature_sum", 56, "humidity_sum", 216),
+                Map.of("city", "Paris", "readings", 1, "temperature_sum", 5, "humidity_sum", 45),
+                Map.of("city", "Athens", "readings", 1, "temperature_sum", 8, "humidity_sum", 48));
+        assertThat(jdbcTemplate.queryForList("SELECT city, readings, temperature_min, temperature_max, uv_index_max " +
+                "FROM city_stats ORDER BY city")).containsExactly(
+                Map.of("city", "Athens", "readings", 5, "temperature_min", 8, "temperature_max", 20, "uv_index_max", 10),
+                Map.of("city", "Paris", "readings", 1, "temperature_min", 5, "temperature_max", 5, "uv_index_max", 5));
+        List<Map<String, Object>> applied = rollups();
+
+        assertThat(rollupService.rebuild()).isEqualTo(2);
+
+        assertThat(rollups()).isEqualTo(applied);
+    }
+
+    @Test
+    void keepsTheBucketsOfDownsampledDays() {
+        List<WeatherData> downsampled = List.of(
+                reading(1, "Athens", 30, DAY.minusDays(20).plusHours(13)),
+                reading(1, "Athens", 26, DAY.minusDays(20).plusHours(14)));
+        List<WeatherData> raw = List.of(reading(1, "Athens", 10, DAY.plusHours(9)));
+        rollupService.apply(downsampled);
+        rollupService.apply(raw);
+        store(raw);
+        List<Map<String, Object>> hourly = rows("weather_hourly");
+        List<Map<String, Object>> daily = rows("weather_daily");
+
+        rollupService.rebuild();
+
+        assertThat(rows("weather_hourly")).isEqualTo(hourly);
+        assertThat(rows("weather_daily")).isEqualTo(daily);
+        // The buckets keep the extremes of the temperature only, so the others are estimated for downsampled days
+        assertThat(jdbcTemplate.queryForMap("SELECT readings, temperature_sum, humidity_sum, temperature_min, " +
+                "temperature_max FROM city_stats")).isEqualTo(Map.of("readings", 3, "temperature_sum", 66,
+                "humidity_sum", 186, "temperature_min", 10, "temperature_max", 30));
+    }
+
+    @Test
+    void rebuildsMoreBucketsThanAreInsertedPerFlush() {
+        List<WeatherData> readings = new ArrayList<>();
+        for (int hour = 0; hour < 3000; hour++) {
+            readings.add(reading(1, "Athens", hour % 40, DAY.plusHours(hour)));
+            readings.add(reading(2, "Paris", hour % 30, DAY.plusHours(hour).plusMinutes(30)));
+        }
+        store(readings);
+
+        rollupService.rebuild();
+
+        assertThat(rows("weather_hourly")).hasSize(6000);
+        assertThat(rows("weather_daily")).hasSize(2 * 125);
+        assertThat(sum("readings", "weather_hourly")).isEqualTo(readings.size());
+        assertThat(sum("readings", "weather_daily")).isEqualTo(readings.size());
+        assertThat(sum("temperature_sum", "weather_hourly"))
+                .isEqualTo(readings.stream().mapToLong(WeatherData::getTemperature).sum());
+        assertThat(sum("readings", "city_stats")).isEqualTo(readings.size());
+    }
+}
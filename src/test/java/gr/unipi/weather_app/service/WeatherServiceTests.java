@@ -0,0 +1,129 @@
+package gr.unipi.weather_app.service;
+
+import gr.unipi.weather_app.model.City;
+import gr.unipi.weather_app.model.WeatherData;
+import gr.unipi.weather_app.provider.CurrentCondition;
+import gr.unipi.weather_app.provider.WeatherProvider;
+import gr.unipi.weather_app.repository.CityRepository;
+import gr.unipi.weather_app.repository.DailyWeatherRepository;
+import gr.unipi.weather_app.repository.HourlyWeatherRepository;
+import gr.unipi.weather_app.repository.WeatherRepository;
+import gr.unipi.weather_app.resilience.WeatherApiRateLimiter;
+import gr.unipi.weather_app.resilience.WeatherApiResilience;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class WeatherServiceTests {
+
+    private final WeatherProvider provider = mock(WeatherProvider.class);
+    private final WeatherIngestService ingestService = mock(WeatherIngestService.class);
+    private final WeatherApiRateLimiter rateLimiter = mock(WeatherApiRateLimiter.class);
+    private final WeatherApiResilience resilience = mock(WeatherApiResilience.class);
+    private final SearchCounter searchCounter = mock(SearchCounter.class);
+    private final CityRepository cityRepository = mock(CityRepository.class);
+    private final CityDictionary cityDictionary = new CityDictionary(cityRepository, ingestService, 100);
+    private WeatherService service;
+
+    private static CurrentCondition condition(int temperature, String area, String country) {
+        return new CurrentCondition(temperature, 50, 10, 5, "Sunny", area, country);
+    }
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void createService() {
+        given(cityRepository.findAll()).willReturn(List.of(new City(1, "Athens", "Greece"), new City(2, "Paris", "France")));
+        given(cityRepository.findAllAliases()).willReturn(List.of(new Object[]{"athens", 1}, new Object[]{"athina", 1},
+                new Object[]{"paris", 2}));
+        cityDictionary.load();
+        given(rateLimiter.schedule(any(), any())).willAnswer(invocation -> invocation.getArgument(1));
+        given(resilience.decorate(any())).willAnswer(invocation -> invocation.getArgument(0));
+        given(ingestService.ingest(anyList())).willAnswer(invocation -> invocation.getArgument(0));
+
+        service = new WeatherService(mock(WeatherRepository.class), provider,
+                new WeatherCache(Duration.ofMinutes(10), Duration.ofMinutes(30), 100), Schedulers.immediate(),
+                mock(WeatherDataWriter.class), ingestService, mock(HourlyWeatherRepository.class),
+                mock(DailyWeatherRepository.class), resilience, rateLimiter, searchCounter,
+                mock(ObjectProvider.class), cityDictionary);
+        ReflectionTestUtils.setField(service, "bulkConcurrency", 4);
+    }
+
+    @Test
+    void sharesOneUpstreamCallBetweenConcurrentLookupsOfACity() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<CurrentCondition> response = Sinks.one();
+        given(provider.fetch(anyString())).willAnswer(invocation -> {
+            calls.incrementAndGet();
+            return response.asMono();
+        });
+
+        List<WeatherData> results = new CopyOnWriteArrayList<>();
+        for (String city : List.of("Athens", "athens", " ATHENS ", "Athina")) {
+            service.getWeatherAsync(city).subscribe(results::add);
+        }
+        response.tryEmitValue(condition(30, "Athens", "Greece"));
+
+        assertThat(calls).hasValue(1);
+        verify(provider).fetch("Athens");
+        assertThat(results).hasSize(4).allSatisfy(data -> assertThat(data).isSameAs(results.getFirst()));
+
+        // Once completed, the call is no longer shared and the next lookup is answered from the cache
+        assertThat(service.getWeather("ATHINA")).isSameAs(results.getFirst());
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void startsANewUpstreamCallOnceTheSharedOneFailed() {
+        AtomicInteger calls = new AtomicInteger();
+        given(provider.fetch("Paris")).willAnswer(invocation -> calls.incrementAndGet() == 1
+                ? Mono.error(new IllegalStateException("Service unavailable"))
+                : Mono.just(condition(20, "Paris", "France")));
+
+        assertThatThrownBy(() -> service.getWeather("Paris")).hasRootCauseMessage("Service unavailable");
+
+        assertThat(service.getWeather("paris").getTemperature()).isEqualTo(20);
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void fetchesEachCityOnceAndReportsItUnderEveryRequestedName() {
+        given(provider.fetch("Athens")).willReturn(Mono.just(condition(30, "Athens", "Greece")));
+        given(provider.fetch("Paris")).willReturn(Mono.just(condition(20, "Paris", "France")));
+        given(provider.fetch("Nowhere")).willReturn(Mono.error(new IllegalArgumentException("Unknown location")));
+
+        BulkWeatherResult result = service.getWeather(List.of("Athens", "athina", " PARIS", "Nowhere", "nowhere "));
+
+        assertThat(result.successes()).containsOnlyKeys("Athens", "athina", " PARIS");
+        assertThat(result.successes().get("athina")).isSameAs(result.successes().get("Athens"));
+        assertThat(result.successes().get("Athens").getCity()).isEqualTo("Athens");
+        assertThat(result.successes().get(" PARIS").getCity()).isEqualTo("Paris");
+        assertThat(result.successes().get(" PARIS").getTemperature()).isEqualTo(20);
+        assertThat(result.failures()).isEqualTo(Map.of("Nowhere", "Unknown location", "nowhere ", "Unknown location"));
+
+        verify(provider).fetch("Athens");
+        verify(provider).fetch("Paris");
+        verify(provider).fetch("Nowhere");
+        verify(ingestService).ingest(anyList());
+        verify(searchCounter).record("Athens");
+        verify(searchCounter).record("Paris");
+    }
+}